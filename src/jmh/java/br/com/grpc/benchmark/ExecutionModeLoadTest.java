@@ -0,0 +1,191 @@
+package br.com.grpc.benchmark;
+
+import br.com.grpc.GrpcApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Teste de carga do modo de execução: sobe a aplicação inteira neste processo com
+ * {@code grpc.execution.mode} escolhido e dispara {@code concorrência} clientes HTTP contra
+ * a ponte REST→gRPC ({@code /api/grpc-client/users}), que bloqueia no blocking stub do
+ * {@code UserGrpcClient}. Ao final mostra vazão, p50/p99/máximo e o pico de threads de
+ * plataforma por pool.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=br.com.grpc.benchmark.ExecutionModeLoadTest \
+ *     -Dbenchmark.args="platform 1000 30 get"
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=br.com.grpc.benchmark.ExecutionModeLoadTest \
+ *     -Dbenchmark.args="virtual 1000 30 create --users.store.wal.enabled=true --users.store.wal.sync-mode=ALWAYS"
+ * </pre>
+ *
+ * Argumentos depois do quarto são repassados ao Spring Boot.
+ */
+public class ExecutionModeLoadTest {
+
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    // Prefixos dos nomes das threads de cada pool; o resto entra em "other"
+    private static final Map<String, String> POOLS = Map.of(
+            "http-nio-", "tomcat",
+            "grpc-default-executor", "grpc-executor",
+            "grpc-nio-", "grpc-event-loop",
+            "grpc-epoll-", "grpc-event-loop",
+            "HttpClient-", "load-client");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: <platform|virtual> <concurrency> <seconds> <get|create> [spring args...]");
+            System.exit(1);
+        }
+        String mode = args[0];
+        int concurrency = Integer.parseInt(args[1]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[2]));
+        String workload = args[3];
+
+        String[] springArgs = Stream.concat(
+                Stream.of("--grpc.execution.mode=" + mode, "--server.port=0",
+                        "--logging.level.br.com.grpc=WARN", "--logging.level.root=WARN"),
+                Arrays.stream(args, 4, args.length)).toArray(String[]::new);
+        // O restart do devtools relançaria este main com os argumentos do Spring
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        ConfigurableApplicationContext context = SpringApplication.run(GrpcApplication.class, springArgs);
+        String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        try {
+            run(client, base, workload, concurrency, WARMUP);
+            threads.resetPeakThreadCount();
+            Map<String, Integer> peakByPool = new ConcurrentHashMap<>();
+            Thread sampler = Thread.ofPlatform().daemon().name("thread-sampler").start(() -> sample(peakByPool));
+
+            long started = System.nanoTime();
+            Result result = run(client, base, workload, concurrency, duration);
+            double seconds = (System.nanoTime() - started) / 1e9;
+            sampler.interrupt();
+
+            long[] latencies = result.latencies();
+            Arrays.sort(latencies);
+            System.out.printf("mode=%s workload=%s concurrency=%d%n", mode, workload, concurrency);
+            System.out.printf("  requests: %,d ok, %,d errors, %,.0f req/s%n",
+                    latencies.length, result.errors(), latencies.length / seconds);
+            System.out.printf("  latency:  p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 1.0));
+            System.out.printf("  platform threads: peak %d total %s%n",
+                    threads.getPeakThreadCount(), new TreeMap<>(peakByPool));
+        } finally {
+            context.close();
+        }
+        System.exit(0);
+    }
+
+    private static Result run(HttpClient client, String base, String workload, int concurrency, Duration duration)
+            throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong sequence = new AtomicLong();
+        List<Future<long[]>> workers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = request(base, workload, sequence.incrementAndGet());
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        List<long[]> all = new ArrayList<>();
+        for (Future<long[]> worker : workers) {
+            all.add(worker.get());
+        }
+        return new Result(all.stream().flatMapToLong(Arrays::stream).toArray(), errors.get());
+    }
+
+    private static HttpRequest request(String base, String workload, long sequence) {
+        if (workload.equals("create")) {
+            String query = "name=Carga&email=carga" + System.nanoTime() + "." + sequence + "@email.com&age=30&status=ACTIVE";
+            return HttpRequest.newBuilder(URI.create(base + "/api/grpc-client/users?" + query))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .timeout(Duration.ofSeconds(30))
+                    .build();
+        }
+        // Usuários de exemplo criados pelo DataInitializer
+        return HttpRequest.newBuilder(URI.create(base + "/api/grpc-client/users/" + (1 + sequence % 3)))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    private static void sample(Map<String, Integer> peakByPool) {
+        while (!Thread.currentThread().isInterrupted()) {
+            Map<String, Integer> current = new TreeMap<>();
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                current.merge(pool(thread.getName()), 1, Integer::sum);
+            }
+            current.forEach((pool, count) -> peakByPool.merge(pool, count, Math::max));
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static String pool(String threadName) {
+        for (Map.Entry<String, String> entry : POOLS.entrySet()) {
+            if (threadName.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return "other";
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private record Result(long[] latencies, long errors) {
+    }
+}
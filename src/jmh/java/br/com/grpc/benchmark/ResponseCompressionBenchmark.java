@@ -0,0 +1,97 @@
+package br.com.grpc.benchmark;
+
+import br.com.grpc.mapper.UserMapper;
+import br.com.grpc.model.User;
+import br.com.grpc.user.proto.ListUsersResponse;
+import io.grpc.Codec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bytes na rede e CPU por codec para páginas de {@code ListUsersResponse} de tamanhos típicos.
+ * {@code compress} é o custo do servidor por resposta, {@code decompress} o do cliente; o
+ * tamanho de cada página antes e depois da compressão é impresso no setup de cada trial.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="ResponseCompressionBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class ResponseCompressionBenchmark {
+
+    private static final String[] DOMAINS = {"email.com", "gmail.com", "empresa.com.br"};
+
+    @Param({"identity", "gzip"})
+    public String codecName;
+
+    // 1 é o tamanho de um GetUser ou de uma mensagem do stream de GetUsersByStatus
+    @Param({"1", "10", "50", "200"})
+    public int pageSize;
+
+    private Codec codec;
+    private byte[] page;
+    private byte[] compressed;
+    private final ByteArrayOutputStream sink = new ByteArrayOutputStream(1 << 16);
+    private final byte[] readBuffer = new byte[8192];
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        codec = codecName.equals("gzip") ? new Codec.Gzip() : Codec.Identity.NONE;
+        UserMapper mapper = new UserMapper();
+        User.UserStatus[] statuses = User.UserStatus.values();
+        LocalDateTime now = LocalDateTime.now();
+        ListUsersResponse.Builder builder = ListUsersResponse.newBuilder()
+                .setTotalCount(10_000).setSize(pageSize).setNextPageToken("MTAwMDA");
+        for (int i = 0; i < pageSize; i++) {
+            builder.addUsers(mapper.toProto(User.builder()
+                    .id(1_000L + i)
+                    .name("Usuario Exemplo " + i)
+                    .email("usuario.exemplo" + i + "@" + DOMAINS[i % DOMAINS.length])
+                    .age(18 + i % 60)
+                    .status(statuses[i % statuses.length])
+                    .createdAt(now.minusDays(i))
+                    .updatedAt(now.minusHours(i))
+                    .build()));
+        }
+        page = builder.build().toByteArray();
+        compressed = encode();
+        System.out.printf("%n%s page of %d users: %,d bytes -> %,d bytes on the wire (%.0f%%)%n",
+                codecName, pageSize, page.length, compressed.length, 100.0 * compressed.length / page.length);
+    }
+
+    @Benchmark
+    public int compress() throws IOException {
+        return encode().length;
+    }
+
+    @Benchmark
+    public int decompress() throws IOException {
+        int total = 0;
+        try (InputStream in = codec.decompress(new ByteArrayInputStream(compressed))) {
+            for (int read; (read = in.read(readBuffer)) > 0; ) {
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    private byte[] encode() throws IOException {
+        sink.reset();
+        try (OutputStream out = codec.compress(sink)) {
+            out.write(page);
+        }
+        return sink.toByteArray();
+    }
+}
@@ -0,0 +1,110 @@
+package br.com.grpc.benchmark;
+
+import br.com.grpc.mapper.UserJsonModule;
+import br.com.grpc.user.proto.ListUsersResponse;
+import br.com.grpc.user.proto.UserResponse;
+import br.com.grpc.user.proto.UserStatus;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Escrita em JSON das respostas do {@code GrpcClientController}: cópia para {@code Map}s
+ * serializados pelo Jackson ({@code maps}, como o controller fazia) contra o
+ * {@link UserJsonModule} escrevendo direto da mensagem ({@code direct}). A página tem 1000
+ * usuários; a saída vai para um stream que descarta os bytes, então {@code gc.alloc.rate.norm}
+ * com {@code -prof gc} mostra só o que a escrita aloca.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="RestJsonBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class RestJsonBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+
+    @Param({"maps", "direct"})
+    public String writer;
+
+    // Sem fechar o destino, como o conversor do Spring MVC com o stream da resposta
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new UserJsonModule())
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+    private final OutputStream out = OutputStream.nullOutputStream();
+    private UserResponse user;
+    private ListUsersResponse page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ListUsersResponse.Builder builder = ListUsersResponse.newBuilder()
+                .setTotalCount(50_000).setPage(0).setSize(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            builder.addUsers(UserResponse.newBuilder()
+                    .setId(i + 1)
+                    .setName("Usuario Exemplo " + i)
+                    .setEmail("usuario.exemplo" + i + "@email.com")
+                    .setAge(18 + i % 60)
+                    .setStatus(UserStatus.ACTIVE)
+                    .setCreatedAt("2024-01-01T10:00:00.123456")
+                    .setUpdatedAt("2024-01-01T10:00:00.123456"));
+        }
+        page = builder.build();
+        user = page.getUsers(0);
+    }
+
+    @Benchmark
+    public void getUser() throws IOException {
+        objectMapper.writeValue(out, writer.equals("maps") ? userMap(user) : user);
+    }
+
+    @Benchmark
+    public void listUsersPage() throws IOException {
+        objectMapper.writeValue(out, writer.equals("maps") ? pageMap(page) : page);
+    }
+
+    private static Map<String, Object> userMap(UserResponse response) {
+        return Map.of(
+                "id", response.getId(),
+                "name", response.getName(),
+                "email", response.getEmail(),
+                "age", response.getAge(),
+                "status", response.getStatus().name(),
+                "createdAt", response.getCreatedAt(),
+                "updatedAt", response.getUpdatedAt()
+        );
+    }
+
+    private static Map<String, Object> pageMap(ListUsersResponse response) {
+        List<Map<String, Object>> users = response.getUsersList().stream()
+                .map(user -> {
+                    Map<String, Object> userMap = new HashMap<>();
+                    userMap.put("id", user.getId());
+                    userMap.put("name", user.getName());
+                    userMap.put("email", user.getEmail());
+                    userMap.put("age", user.getAge());
+                    userMap.put("status", user.getStatus().name());
+                    return userMap;
+                })
+                .collect(Collectors.toList());
+        Map<String, Object> result = new HashMap<>();
+        result.put("users", users);
+        result.put("totalCount", response.getTotalCount());
+        result.put("page", response.getPage());
+        result.put("size", response.getSize());
+        return result;
+    }
+}
@@ -0,0 +1,145 @@
+package br.com.grpc.benchmark;
+
+import br.com.grpc.client.ChannelPool;
+import br.com.grpc.client.UserGrpcClient;
+import br.com.grpc.config.ImportProperties;
+import br.com.grpc.grpc.UserGrpcService;
+import br.com.grpc.mapper.UserMapper;
+import br.com.grpc.model.User;
+import br.com.grpc.repository.InMemoryUserRepository;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.repository.UserRepository;
+import br.com.grpc.service.UserService;
+import br.com.grpc.user.proto.UserResponse;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Vazão do {@link UserGrpcClient} com {@value #IN_FLIGHT} chamadas assíncronas em andamento,
+ * com 1 ou mais canais no {@link ChannelPool}.
+ *
+ * <p>Com {@code in-process} aparece só o custo do cliente e a contenção dentro de cada canal. Com
+ * {@code netty} cada canal é uma conexão HTTP/2 para um servidor com no máximo
+ * {@value #MAX_CALLS_PER_CONNECTION} chamadas por conexão; com {@code serviceMicros > 0} cada
+ * resposta demora esse tempo (sem ocupar thread), e um canal só deixa de dar conta das chamadas.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="UserGrpcClientBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class UserGrpcClientBenchmark {
+
+    private static final int IN_FLIGHT = 512;
+    private static final int MAX_CALLS_PER_CONNECTION = 100;
+    private static final int USERS = 1_000;
+
+    @Param({"in-process", "netty"})
+    public String transport;
+
+    @Param({"1", "4"})
+    public int channels;
+
+    // 50 ms por resposta: com 100 chamadas por conexão, um canal só fica limitado a ~2.000 chamadas/s
+    @Param({"0", "50000"})
+    public int serviceMicros;
+
+    private Server server;
+    private ScheduledExecutorService delays;
+    private UserGrpcClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // O UserGrpcService loga cada chamada; no console isso mediria o logback
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+        UserRepository repository = new InMemoryUserRepository(new UserChangeLog(1024));
+        for (int i = 0; i < USERS; i++) {
+            repository.save(User.builder()
+                    .name("Usuario " + i)
+                    .email("usuario" + i + "@email.com")
+                    .age(18 + i % 60)
+                    .status(User.UserStatus.ACTIVE)
+                    .build());
+        }
+        delays = Executors.newSingleThreadScheduledExecutor();
+        var service = ServerInterceptors.intercept(
+                new UserGrpcService(new UserService(repository), new UserMapper(), new ImportProperties()),
+                new ServiceTime(delays, serviceMicros));
+
+        Supplier<ManagedChannel> channelFactory;
+        if (transport.equals("netty")) {
+            server = NettyServerBuilder.forPort(0)
+                    .maxConcurrentCallsPerConnection(MAX_CALLS_PER_CONNECTION)
+                    .addService(service)
+                    .build()
+                    .start();
+            channelFactory = () -> NettyChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build();
+        } else {
+            String name = InProcessServerBuilder.generateName();
+            server = InProcessServerBuilder.forName(name).addService(service).build().start();
+            channelFactory = () -> InProcessChannelBuilder.forName(name).build();
+        }
+        client = new UserGrpcClient(ChannelPool.create(channels, channelFactory), Duration.ofSeconds(30));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        client.shutdown();
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        delays.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IN_FLIGHT)
+    public void getUserAsync() {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<UserResponse>[] calls = new CompletableFuture[IN_FLIGHT];
+        for (int i = 0; i < IN_FLIGHT; i++) {
+            calls[i] = client.getUserAsync(1 + i % USERS);
+        }
+        CompletableFuture.allOf(calls).join();
+    }
+
+    // Adia o handler em vez de dormir nele, como uma chamada de I/O assíncrona
+    private record ServiceTime(ScheduledExecutorService delays, int micros) implements ServerInterceptor {
+        @Override
+        public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                     ServerCallHandler<ReqT, RespT> next) {
+            ServerCall.Listener<ReqT> listener = next.startCall(call, headers);
+            if (micros == 0) {
+                return listener;
+            }
+            return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+                @Override
+                public void onHalfClose() {
+                    delays.schedule(() -> delegate().onHalfClose(), micros, TimeUnit.MICROSECONDS);
+                }
+            };
+        }
+    }
+}
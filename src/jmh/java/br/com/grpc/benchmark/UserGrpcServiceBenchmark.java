@@ -0,0 +1,113 @@
+package br.com.grpc.benchmark;
+
+import br.com.grpc.config.ImportProperties;
+import br.com.grpc.grpc.ServerMetricsInterceptor;
+import br.com.grpc.grpc.UserGrpcService;
+import br.com.grpc.mapper.UserMapper;
+import br.com.grpc.model.User;
+import br.com.grpc.repository.InMemoryUserRepository;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.repository.UserRepository;
+import br.com.grpc.service.UserService;
+import br.com.grpc.user.proto.*;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chamadas de ponta a ponta no {@link UserGrpcService} por transporte in-process: stub
+ * bloqueante, interceptors, handler, serviço, repositório e mapper, sem rede nem serialização.
+ * Com {@code metrics=true} o {@link ServerMetricsInterceptor} fica na frente do serviço, como na
+ * aplicação.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="UserGrpcServiceBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(4)
+public class UserGrpcServiceBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int PAGE_SIZE = 50;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private UserGrpcService grpcService;
+    private Server server;
+    private ManagedChannel channel;
+    private UserServiceGrpc.UserServiceBlockingStub stub;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // O UserGrpcService loga cada chamada; no console isso mediria o logback
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+        UserRepository repository = new InMemoryUserRepository(new UserChangeLog(1024));
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(User.builder()
+                    .name("Usuario Exemplo " + i)
+                    .email("usuario.exemplo" + i + "@email.com")
+                    .age(18 + i % 60)
+                    .status(User.UserStatus.values()[i % 3])
+                    .build());
+        }
+        repository.saveAll(users);
+        grpcService = new UserGrpcService(new UserService(repository), new UserMapper(), new ImportProperties());
+        ServerServiceDefinition service = metrics
+                ? ServerInterceptors.intercept(grpcService, new ServerMetricsInterceptor(new SimpleMeterRegistry()))
+                : grpcService.bindService();
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name).addService(service).build().start();
+        channel = InProcessChannelBuilder.forName(name).build();
+        stub = UserServiceGrpc.newBlockingStub(channel);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        grpcService.shutdown();
+    }
+
+    @Benchmark
+    public UserResponse getUser() {
+        long id = ThreadLocalRandom.current().nextLong(1, USERS + 1);
+        return stub.getUser(GetUserRequest.newBuilder().setId(id).build());
+    }
+
+    @Benchmark
+    public ListUsersResponse listUsers() {
+        int page = ThreadLocalRandom.current().nextInt(USERS / PAGE_SIZE);
+        return stub.listUsers(ListUsersRequest.newBuilder().setPage(page).setSize(PAGE_SIZE).build());
+    }
+
+    @Benchmark
+    public BatchUsersResponse batchGetUsers() {
+        long first = ThreadLocalRandom.current().nextLong(1, USERS - BATCH_SIZE + 2);
+        BatchGetUsersRequest.Builder request = BatchGetUsersRequest.newBuilder();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            request.addIds(first + i);
+        }
+        return stub.batchGetUsers(request.build());
+    }
+}
@@ -0,0 +1,451 @@
+package br.com.grpc.benchmark;
+
+import br.com.grpc.client.ChannelPool;
+import br.com.grpc.config.ImportProperties;
+import br.com.grpc.grpc.UserGrpcService;
+import br.com.grpc.mapper.UserMapper;
+import br.com.grpc.model.User;
+import br.com.grpc.repository.InMemoryUserRepository;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.repository.UserRepository;
+import br.com.grpc.service.UserService;
+import br.com.grpc.user.proto.CreateUserRequest;
+import br.com.grpc.user.proto.GetUserRequest;
+import br.com.grpc.user.proto.GetUsersByStatusRequest;
+import br.com.grpc.user.proto.ListUsersRequest;
+import br.com.grpc.user.proto.UserServiceGrpc;
+import br.com.grpc.user.proto.UserStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.Message;
+import com.google.protobuf.util.JsonFormat;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.StreamObserver;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Gerador de carga do {@code UserService}: reenvia um arquivo de requisições ou sorteia uma
+ * mistura de CreateUser/GetUser/ListUsers/GetUsersByStatus, contra um {@link UserGrpcService}
+ * in-process (com {@code --users} usuários de exemplo) ou um servidor em {@code host:porta}.
+ * Ao final mostra vazão e p50/p90/p99/p99.9/máximo por RPC; os percentis são só das chamadas
+ * bem-sucedidas e, nas de streaming, vão até o fim do stream.
+ *
+ * <p>Com {@code --rate} a carga é open loop: a i-ésima chamada tem horário marcado
+ * ({@code início + i / rate}) e sai nesse horário mesmo que as anteriores ainda não tenham
+ * voltado. A latência é medida a partir do horário marcado, então um servidor que trava não
+ * esconde a espera das chamadas que deveriam ter saído durante a trava (coordinated omission).
+ * Sem {@code --rate}, {@code --concurrency} clientes fazem chamadas em sequência (closed loop).
+ *
+ * <p>Arquivos {@code .json} são uma requisição só; nos demais cada linha é uma requisição. Uma
+ * linha pode ser {@code {"method": "GetUser", "request": {"id": 1}}} ou só a requisição, com o
+ * método vindo de {@code --method}. Os campos seguem o mapeamento JSON do protobuf.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=br.com.grpc.benchmark.UserLoadGenerator \
+ *     -Dbenchmark.args="--rate=2000 --seconds=30 --mix=get:70,list:10,create:15,stream:5"
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=br.com.grpc.benchmark.UserLoadGenerator \
+ *     -Dbenchmark.args="--target=localhost:9090 --file=request.json --method=GetUser --rate=500"
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=br.com.grpc.benchmark.UserLoadGenerator \
+ *     -Dbenchmark.args="--concurrency=64 --seconds=30 --mix=get:100"
+ * </pre>
+ */
+public class UserLoadGenerator {
+
+    private static final Map<String, String> OPTIONS = new LinkedHashMap<>();
+
+    static {
+        OPTIONS.put("target", "in-process");
+        OPTIONS.put("users", "10000");
+        OPTIONS.put("channels", "1");
+        OPTIONS.put("seconds", "30");
+        OPTIONS.put("warmup", "5");
+        OPTIONS.put("rate", "0");
+        OPTIONS.put("concurrency", "16");
+        OPTIONS.put("max-in-flight", "10000");
+        OPTIONS.put("deadline", "10");
+        OPTIONS.put("mix", "get:70,list:10,create:15,stream:5");
+        OPTIONS.put("page-size", "50");
+        OPTIONS.put("file", "");
+        OPTIONS.put("method", "");
+    }
+
+    // Nomes curtos do --mix
+    private static final Map<String, String> MIX_METHODS = Map.of(
+            "create", "CreateUser",
+            "get", "GetUser",
+            "list", "ListUsers",
+            "stream", "GetUsersByStatus");
+    private static final UserStatus[] STATUSES = {UserStatus.ACTIVE, UserStatus.INACTIVE, UserStatus.SUSPENDED};
+    // Latências em microssegundos, até 1 hora, com 3 dígitos significativos
+    private static final long MAX_LATENCY_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final Map<String, String> options;
+    private final Map<String, Rpc> rpcs = new LinkedHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final long runId = System.currentTimeMillis();
+    private final AtomicLong sequence = new AtomicLong();
+    private ChannelPool channel;
+    private long measureStart;
+    private long measureEnd;
+
+    private UserLoadGenerator(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(OPTIONS);
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String key = arg.startsWith("--") && equals > 2 ? arg.substring(2, equals) : null;
+            if (key == null || !OPTIONS.containsKey(key)) {
+                System.err.println("Unknown argument: " + arg);
+                System.err.println("Options (with defaults): " + OPTIONS);
+                System.exit(1);
+            }
+            options.put(key, arg.substring(equals + 1));
+        }
+        new UserLoadGenerator(options).run();
+        System.exit(0);
+    }
+
+    private int intOption(String name) {
+        return Integer.parseInt(options.get(name));
+    }
+
+    private void run() throws Exception {
+        // O UserGrpcService loga cada chamada; no console isso mediria o logback
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+        String target = options.get("target");
+        Server server = null;
+        UserGrpcService service = null;
+        if (target.equals("in-process")) {
+            service = inProcessService(intOption("users"));
+            String name = InProcessServerBuilder.generateName();
+            server = InProcessServerBuilder.forName(name).addService(service).build().start();
+            channel = ChannelPool.create(intOption("channels"), () -> InProcessChannelBuilder.forName(name).build());
+        } else {
+            channel = ChannelPool.create(intOption("channels"),
+                    () -> ManagedChannelBuilder.forTarget(target).usePlaintext().build());
+        }
+        Supplier<Call> workload = options.get("file").isEmpty() ? mix(options.get("mix")) : replay(Path.of(options.get("file")));
+
+        int rate = intOption("rate");
+        long start = System.nanoTime();
+        measureStart = start + TimeUnit.SECONDS.toNanos(intOption("warmup"));
+        measureEnd = measureStart + TimeUnit.SECONDS.toNanos(intOption("seconds"));
+        try {
+            if (rate > 0) {
+                openLoop(workload, rate, start);
+            } else {
+                closedLoop(workload, intOption("concurrency"));
+            }
+            report(target, rate);
+        } finally {
+            channel.shutdown(Duration.ofSeconds(5));
+            if (server != null) {
+                server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+                service.shutdown();
+            }
+        }
+    }
+
+    private static UserGrpcService inProcessService(int users) {
+        UserRepository repository = new InMemoryUserRepository(new UserChangeLog(1024));
+        List<User> batch = new ArrayList<>(1000);
+        for (int i = 0; i < users; i++) {
+            batch.add(User.builder()
+                    .name("Usuario Exemplo " + i)
+                    .email("usuario.exemplo" + i + "@email.com")
+                    .age(18 + i % 60)
+                    .status(User.UserStatus.values()[i % 3])
+                    .build());
+            if (batch.size() == 1000 || i == users - 1) {
+                repository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        return new UserGrpcService(new UserService(repository), new UserMapper(), new ImportProperties());
+    }
+
+    // Cada chamada sai no horário marcado; uma thread só despacha, as respostas chegam nas threads do gRPC
+    private void openLoop(Supplier<Call> workload, int rate, long start) throws InterruptedException {
+        int maxInFlight = intOption("max-in-flight");
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * 1e9 / rate);
+            if (intended >= measureEnd) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.get() >= maxInFlight) {
+                if (intended >= measureStart) {
+                    dropped.increment();
+                }
+                continue;
+            }
+            send(workload.get(), intended);
+        }
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(intOption("deadline") + 5L);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void send(Call call, long intended) {
+        inFlight.incrementAndGet();
+        ClientCall<Message, Message> clientCall = channel.newCall(call.rpc().method, callOptions());
+        StreamObserver<Message> observer = new StreamObserver<>() {
+            @Override
+            public void onNext(Message value) {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                inFlight.decrementAndGet();
+                call.rpc().record(intended, System.nanoTime(), Status.fromThrowable(t).getCode());
+            }
+
+            @Override
+            public void onCompleted() {
+                inFlight.decrementAndGet();
+                call.rpc().record(intended, System.nanoTime(), Status.Code.OK);
+            }
+        };
+        if (call.rpc().method.getType() == MethodDescriptor.MethodType.UNARY) {
+            ClientCalls.asyncUnaryCall(clientCall, call.request(), observer);
+        } else {
+            ClientCalls.asyncServerStreamingCall(clientCall, call.request(), observer);
+        }
+    }
+
+    // Cada cliente espera a resposta antes da próxima chamada; a latência não inclui a espera de quem não saiu
+    private void closedLoop(Supplier<Call> workload, int concurrency) {
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                clients.execute(() -> {
+                    long started;
+                    while ((started = System.nanoTime()) < measureEnd) {
+                        Call call = workload.get();
+                        Status.Code code = Status.Code.OK;
+                        try {
+                            if (call.rpc().method.getType() == MethodDescriptor.MethodType.UNARY) {
+                                ClientCalls.blockingUnaryCall(channel, call.rpc().method, callOptions(), call.request());
+                            } else {
+                                Iterator<Message> messages = ClientCalls.blockingServerStreamingCall(
+                                        channel, call.rpc().method, callOptions(), call.request());
+                                messages.forEachRemaining(message -> { });
+                            }
+                        } catch (RuntimeException e) {
+                            code = Status.fromThrowable(e).getCode();
+                        }
+                        call.rpc().record(started, System.nanoTime(), code);
+                    }
+                });
+            }
+        }
+    }
+
+    private CallOptions callOptions() {
+        return CallOptions.DEFAULT.withDeadlineAfter(intOption("deadline"), TimeUnit.SECONDS);
+    }
+
+    private Supplier<Call> mix(String mix) {
+        List<Rpc> chosen = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split(":");
+            String method = MIX_METHODS.get(parts[0].trim());
+            if (method == null || parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry '" + entry + "', expected <"
+                        + String.join("|", MIX_METHODS.keySet()) + ">:<weight>");
+            }
+            chosen.add(rpc(method));
+            weights.add(Integer.parseInt(parts[1].trim()));
+        }
+        int[] cumulative = new int[weights.size()];
+        int total = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            total += weights.get(i);
+            cumulative[i] = total;
+        }
+        int users = intOption("users");
+        int pageSize = intOption("page-size");
+        int weightSum = total;
+        return () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int pick = random.nextInt(weightSum);
+            int i = 0;
+            while (cumulative[i] <= pick) {
+                i++;
+            }
+            Rpc rpc = chosen.get(i);
+            return new Call(rpc, switch (rpc.name) {
+                case "CreateUser" -> CreateUserRequest.newBuilder()
+                        .setName("Carga " + runId)
+                        .setEmail("carga" + runId + "." + sequence.incrementAndGet() + "@email.com")
+                        .setAge(18 + random.nextInt(60))
+                        .setStatus(UserStatus.ACTIVE)
+                        .build();
+                case "GetUser" -> GetUserRequest.newBuilder().setId(random.nextLong(1, users + 1L)).build();
+                case "ListUsers" -> ListUsersRequest.newBuilder()
+                        .setPage(random.nextInt(Math.max(1, users / pageSize)))
+                        .setSize(pageSize)
+                        .build();
+                default -> GetUsersByStatusRequest.newBuilder().setStatus(STATUSES[random.nextInt(STATUSES.length)]).build();
+            });
+        };
+    }
+
+    private Supplier<Call> replay(Path file) throws IOException {
+        String defaultMethod = options.get("method");
+        List<String> entries = file.toString().endsWith(".json")
+                ? List.of(Files.readString(file))
+                : Files.readAllLines(file).stream().filter(line -> !line.isBlank()).toList();
+        ObjectMapper json = new ObjectMapper();
+        List<Call> calls = new ArrayList<>(entries.size());
+        for (String entry : entries) {
+            JsonNode node = json.readTree(entry);
+            String method = node.has("method") ? node.get("method").asText() : defaultMethod;
+            if (method.isEmpty()) {
+                throw new IllegalArgumentException("Request without \"method\" and no --method given: " + entry);
+            }
+            JsonNode request = node.has("method") ? node.path("request") : node;
+            Rpc rpc = rpc(method);
+            Message.Builder builder = rpc.prototype().newBuilderForType();
+            JsonFormat.parser().merge(request.isMissingNode() ? "{}" : request.toString(), builder);
+            calls.add(new Call(rpc, builder.build()));
+        }
+        if (calls.isEmpty()) {
+            throw new IllegalArgumentException("No requests in " + file);
+        }
+        // Reenvia o arquivo em ciclo até o fim da medição
+        AtomicLong next = new AtomicLong();
+        return () -> calls.get((int) (next.getAndIncrement() % calls.size()));
+    }
+
+    private Rpc rpc(String name) {
+        return rpcs.computeIfAbsent(name, Rpc::new);
+    }
+
+    private void report(String target, int rate) {
+        double seconds = (measureEnd - measureStart) / 1e9;
+        System.out.printf("%ntarget=%s %s, %d s measured after %d s warmup%n", target,
+                rate > 0 ? "open loop at " + rate + " calls/s" : "closed loop with " + intOption("concurrency") + " clients",
+                intOption("seconds"), intOption("warmup"));
+        System.out.printf("%-18s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                "rpc", "calls", "errors", "calls/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Histogram all = new Histogram(MAX_LATENCY_MICROS, 3);
+        long allErrors = 0;
+        for (Rpc rpc : rpcs.values()) {
+            all.add(rpc.latency);
+            allErrors += rpc.errors();
+            print(rpc.name, rpc.latency, rpc.errors(), seconds);
+        }
+        if (rpcs.size() > 1) {
+            print("all", all, allErrors, seconds);
+        }
+        for (Rpc rpc : rpcs.values()) {
+            if (!rpc.errorCodes.isEmpty()) {
+                System.out.printf("errors in %s: %s%n", rpc.name, new TreeMap<>(rpc.errorCodes));
+            }
+        }
+        if (inFlight.get() > 0) {
+            System.out.printf("still in flight after the deadline, not counted: %,d%n", inFlight.get());
+        }
+        if (dropped.sum() > 0) {
+            System.out.printf("dropped at the client (more than %d in flight): %,d%n", intOption("max-in-flight"), dropped.sum());
+        }
+    }
+
+    private static void print(String name, Histogram latency, long errors, double seconds) {
+        System.out.printf("%-18s %,10d %,8d %,10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, latency.getTotalCount() + errors, errors, (latency.getTotalCount() + errors) / seconds,
+                millis(latency, 50), millis(latency, 90), millis(latency, 99), millis(latency, 99.9),
+                latency.getMaxValue() / 1000.0);
+    }
+
+    private static double millis(Histogram latency, double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private record Call(Rpc rpc, Message request) {
+    }
+
+    // Latências das chamadas bem-sucedidas e contagem de erros por código, só dentro da janela medida
+    private final class Rpc {
+        private final String name;
+        private final MethodDescriptor<Message, Message> method;
+        private final ConcurrentHistogram latency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        private final Map<Status.Code, LongAdder> errorCodes = new ConcurrentHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        Rpc(String name) {
+            MethodDescriptor<?, ?> found = UserServiceGrpc.getServiceDescriptor().getMethods().stream()
+                    .filter(m -> m.getBareMethodName().equals(name))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown UserService method: " + name));
+            if (found.getType() != MethodDescriptor.MethodType.UNARY
+                    && found.getType() != MethodDescriptor.MethodType.SERVER_STREAMING) {
+                throw new IllegalArgumentException("Only unary and server-streaming methods can be replayed: " + name);
+            }
+            this.name = name;
+            this.method = (MethodDescriptor<Message, Message>) found;
+        }
+
+        @SuppressWarnings("unchecked")
+        Message prototype() {
+            return ((MethodDescriptor.PrototypeMarshaller<Message>) method.getRequestMarshaller()).getMessagePrototype();
+        }
+
+        void record(long intended, long finished, Status.Code code) {
+            if (intended < measureStart || intended >= measureEnd) {
+                return;
+            }
+            if (code == Status.Code.OK) {
+                latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(finished - intended), MAX_LATENCY_MICROS));
+            } else {
+                errorCodes.computeIfAbsent(code, c -> new LongAdder()).increment();
+            }
+        }
+
+        long errors() {
+            return errorCodes.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package br.com.grpc.benchmark;
+
+import br.com.grpc.mapper.UserMapper;
+import br.com.grpc.model.User;
+import br.com.grpc.user.proto.CreateUserRequest;
+import br.com.grpc.user.proto.UserStatus;
+import br.com.grpc.user.proto.UserResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversões do {@link UserMapper} sem o cache de respostas: entidade para proto (com as datas
+ * formatadas em ISO), proto serializado e requisição para entidade. O caminho com cache está
+ * em {@link UserResponseCacheBenchmark}.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="UserMapperBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class UserMapperBenchmark {
+
+    private final UserMapper mapper = new UserMapper();
+    private User user;
+    private CreateUserRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        user = User.builder()
+                .id(123_456L)
+                .name("Usuario Exemplo")
+                .email("usuario.exemplo@email.com")
+                .age(30)
+                .status(User.UserStatus.ACTIVE)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        request = CreateUserRequest.newBuilder()
+                .setName("Usuario Exemplo")
+                .setEmail("usuario.exemplo@email.com")
+                .setAge(30)
+                .setStatus(UserStatus.ACTIVE)
+                .build();
+    }
+
+    @Benchmark
+    public UserResponse toProto() {
+        return mapper.toProto(user);
+    }
+
+    @Benchmark
+    public byte[] toProtoBytes() {
+        return mapper.toProto(user).toByteArray();
+    }
+
+    @Benchmark
+    public User toEntity() {
+        return mapper.toEntity(request);
+    }
+}
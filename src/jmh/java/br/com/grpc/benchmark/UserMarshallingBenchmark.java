@@ -0,0 +1,119 @@
+package br.com.grpc.benchmark;
+
+import br.com.grpc.grpc.PreEncodedMarshallers;
+import br.com.grpc.mapper.UserMapper;
+import br.com.grpc.mapper.UserResponseCache;
+import br.com.grpc.model.User;
+import br.com.grpc.repository.InMemoryUserRepository;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.repository.UserRepository;
+import br.com.grpc.user.proto.ListUsersResponse;
+import br.com.grpc.user.proto.UserResponse;
+import io.grpc.Drainable;
+import io.grpc.MethodDescriptor;
+import io.grpc.protobuf.ProtoUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de mandar respostas já em cache para o transporte: marshaller padrão do protobuf
+ * contra {@link PreEncodedMarshallers}. Cada operação faz o que o framer do gRPC faz,
+ * {@code stream()} seguido de {@code drainTo()} num buffer reaproveitado. Os bytes alocados
+ * por chamada aparecem em {@code gc.alloc.rate.norm} com {@code -prof gc}.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="UserMarshallingBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class UserMarshallingBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"protobuf", "pre-encoded"})
+    public String marshalling;
+
+    private MethodDescriptor.Marshaller<UserResponse> userMarshaller;
+    private MethodDescriptor.Marshaller<ListUsersResponse> listMarshaller;
+    private UserResponse user;
+    private ListUsersResponse page;
+    private final Sink sink = new Sink();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        UserChangeLog changeLog = new UserChangeLog(1024);
+        UserRepository repository = new InMemoryUserRepository(changeLog);
+        UserMapper mapper = new UserMapper(new UserResponseCache(1024, changeLog));
+        List<User> batch = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            batch.add(User.builder()
+                    .name("Usuario Exemplo " + i)
+                    .email("usuario.exemplo" + i + "@email.com")
+                    .age(18 + i)
+                    .status(User.UserStatus.ACTIVE)
+                    .build());
+        }
+        repository.saveAll(batch);
+
+        ListUsersResponse.Builder builder = ListUsersResponse.newBuilder()
+                .setTotalCount(PAGE_SIZE).setSize(PAGE_SIZE).setNextPageToken("bmV4dA");
+        repository.findAllAfter(null, PAGE_SIZE).forEach(u -> builder.addUsers(mapper.toProto(u)));
+        page = builder.build();
+        user = page.getUsers(0);
+
+        if (marshalling.equals("protobuf")) {
+            userMarshaller = ProtoUtils.marshaller(UserResponse.getDefaultInstance());
+            listMarshaller = ProtoUtils.marshaller(ListUsersResponse.getDefaultInstance());
+        } else {
+            userMarshaller = PreEncodedMarshallers.userResponse(mapper::encoded);
+            listMarshaller = PreEncodedMarshallers.listUsersResponse(mapper::encoded);
+        }
+    }
+
+    @Benchmark
+    public int getUser() throws IOException {
+        return send(userMarshaller.stream(user));
+    }
+
+    @Benchmark
+    public int listUsersPage() throws IOException {
+        return send(listMarshaller.stream(page));
+    }
+
+    private int send(InputStream message) throws IOException {
+        sink.reset();
+        return ((Drainable) message).drainTo(sink);
+    }
+
+    // Faz o papel do buffer do transporte: recebe os bytes sem alocar
+    private static final class Sink extends OutputStream {
+        private final byte[] buffer = new byte[1 << 16];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            System.arraycopy(b, off, buffer, size, len);
+            size += len;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package br.com.grpc.benchmark;
+
+import br.com.grpc.model.User;
+import br.com.grpc.repository.InMemoryUserRepository;
+import br.com.grpc.repository.OffHeapUserRepository;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operações do {@link UserRepository} nas duas implementações, com a base de 10 mil a 10
+ * milhões de usuários. Os status se repetem de 3 em 3, então {@code findByStatus} devolve um
+ * terço da base. {@code findAllPaginated} pula {@code page * size} ids a partir do início;
+ * {@code findAllAfter} é a mesma página pelo cursor.
+ *
+ * <p>{@code saveAndDelete} grava um usuário novo e remove o gravado na operação anterior, para
+ * a base não crescer durante a medição.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="UserRepositoryBenchmark -prof gc"
+ * # 10 milhões de usuários, com heap para a implementação em heap
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.jvmArgs=-Xmx16g -Dbenchmark.args="UserRepositoryBenchmark -p users=10000000 -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class UserRepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int LOAD_BATCH = 1_000;
+
+    // 10 milhões no heap não cabem no -Xmx4g padrão do perfil; ver o comando acima
+    @Param({"10000", "1000000"})
+    public int users;
+
+    @Param({"heap", "off-heap"})
+    public String store;
+
+    private UserRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Capacidade pequena: o change log guarda só os eventos recentes
+        UserChangeLog changeLog = new UserChangeLog(1024);
+        repository = store.equals("heap") ? new InMemoryUserRepository(changeLog) : new OffHeapUserRepository(changeLog);
+        List<User> batch = new ArrayList<>(LOAD_BATCH);
+        for (int i = 0; i < users; i++) {
+            batch.add(user("usuario.exemplo" + i + "@email.com", i));
+            if (batch.size() == LOAD_BATCH) {
+                repository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            repository.saveAll(batch);
+        }
+    }
+
+    private static User user(String email, int i) {
+        return User.builder()
+                .name("Usuario Exemplo " + i)
+                .email(email)
+                .age(18 + i % 60)
+                .status(User.UserStatus.values()[i % 3])
+                .build();
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        private long sequence;
+        private Long previous;
+    }
+
+    @Benchmark
+    public User saveAndDelete(Writer writer) {
+        long n = writer.sequence++;
+        User saved = repository.save(user("novo" + n + "." + Thread.currentThread().threadId() + "@email.com", (int) n));
+        if (writer.previous != null) {
+            repository.deleteById(writer.previous);
+        }
+        writer.previous = saved.getId();
+        return saved;
+    }
+
+    @Benchmark
+    public User findById() {
+        return repository.findById(ThreadLocalRandom.current().nextLong(1, users + 1)).orElseThrow();
+    }
+
+    @Benchmark
+    public User findByEmail() {
+        int i = ThreadLocalRandom.current().nextInt(users);
+        return repository.findByEmail("usuario.exemplo" + i + "@email.com").orElseThrow();
+    }
+
+    @Benchmark
+    public List<User> findByStatus() {
+        return repository.findByStatus(User.UserStatus.values()[ThreadLocalRandom.current().nextInt(3)]);
+    }
+
+    @Benchmark
+    public List<User> findAllPaginated() {
+        return repository.findAllPaginated(ThreadLocalRandom.current().nextInt(users / PAGE_SIZE), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<User> findAllAfter() {
+        return repository.findAllAfter(ThreadLocalRandom.current().nextLong(0, users - PAGE_SIZE), PAGE_SIZE);
+    }
+}
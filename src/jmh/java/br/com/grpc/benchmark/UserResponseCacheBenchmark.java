@@ -0,0 +1,78 @@
+package br.com.grpc.benchmark;
+
+import br.com.grpc.mapper.UserMapper;
+import br.com.grpc.mapper.UserResponseCache;
+import br.com.grpc.model.User;
+import br.com.grpc.repository.InMemoryUserRepository;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.repository.UserRepository;
+import br.com.grpc.user.proto.ListUsersResponse;
+import br.com.grpc.user.proto.UserResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminho de leitura do GetUser e do ListUsers (busca no repositório + montagem do
+ * {@link UserResponse} + serialização) com o cache de respostas desligado ({@code cacheSize=0})
+ * e ligado. Com 50 mil usuários e 65536 posições, toda a base cabe no cache.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="UserResponseCacheBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(4)
+public class UserResponseCacheBenchmark {
+
+    private static final int USERS = 50_000;
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"0", "65536"})
+    public int cacheSize;
+
+    private UserRepository repository;
+    private UserMapper mapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        UserChangeLog changeLog = new UserChangeLog(1024);
+        repository = new InMemoryUserRepository(changeLog);
+        mapper = new UserMapper(new UserResponseCache(cacheSize, changeLog));
+        List<User> batch = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            batch.add(User.builder()
+                    .name("Usuario Exemplo " + i)
+                    .email("usuario.exemplo" + i + "@email.com")
+                    .age(18 + i % 60)
+                    .status(User.UserStatus.values()[i % 3])
+                    .build());
+        }
+        repository.saveAll(batch);
+    }
+
+    @Benchmark
+    public byte[] getUser() {
+        long id = ThreadLocalRandom.current().nextLong(1, USERS + 1);
+        return mapper.toProto(repository.findById(id).orElseThrow()).toByteArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public byte[] listUsersPage() {
+        long after = ThreadLocalRandom.current().nextLong(0, USERS - PAGE_SIZE);
+        ListUsersResponse.Builder response = ListUsersResponse.newBuilder();
+        for (User user : repository.findAllAfter(after, PAGE_SIZE)) {
+            response.addUsers(mapper.toProto(user));
+        }
+        return response.build().toByteArray();
+    }
+}
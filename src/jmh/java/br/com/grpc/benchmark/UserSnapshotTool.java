@@ -0,0 +1,91 @@
+package br.com.grpc.benchmark;
+
+import br.com.grpc.model.User;
+import br.com.grpc.repository.InMemoryUserRepository;
+import br.com.grpc.repository.OffHeapUserRepository;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.repository.UserRepository;
+import br.com.grpc.repository.UserSnapshot;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gera snapshots sintéticos e mede a carga deles, para estimar o tempo até a aplicação
+ * ficar pronta com {@code users.store.snapshot-file}.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=br.com.grpc.benchmark.UserSnapshotTool \
+ *     -Dbenchmark.args="generate /tmp/users-10m.snapshot 10000000"
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=br.com.grpc.benchmark.UserSnapshotTool \
+ *     -Dbenchmark.args="load /tmp/users-10m.snapshot off-heap" -Dbenchmark.jvmArgs=-Xmx8g
+ * </pre>
+ */
+public class UserSnapshotTool {
+
+    private static final User.UserStatus[] STATUSES = User.UserStatus.values();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: generate <file> <users> | load <file> [heap|off-heap]");
+            System.exit(1);
+        }
+        Path file = Path.of(args[1]);
+        if (args[0].equals("generate")) {
+            generate(file, Long.parseLong(args[2]));
+        } else {
+            load(file, args.length > 2 ? args[2] : "heap");
+        }
+    }
+
+    private static void generate(Path file, long users) throws Exception {
+        long started = System.nanoTime();
+        UserSnapshot.write(file, syntheticUsers(users));
+        System.out.printf("Generated %,d users in %s: %,d bytes (%.1f B/user) in %d ms%n",
+                users, file, Files.size(file), (double) Files.size(file) / users,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private static void load(Path file, String store) throws Exception {
+        UserRepository repository = store.equals("off-heap")
+                ? new OffHeapUserRepository(new UserChangeLog(1))
+                : new InMemoryUserRepository(new UserChangeLog(1));
+        long started = System.nanoTime();
+        long users = UserSnapshot.load(file, repository);
+        long elapsed = System.nanoTime() - started;
+        System.out.printf("Loaded %,d users into %s store in %d ms (%,.0f users/s, %d threads)%n",
+                users, store, TimeUnit.NANOSECONDS.toMillis(elapsed), users / (elapsed / 1e9),
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    // Dados parecidos com os reais: nomes e emails de tamanho típico, datas espalhadas
+    private static Iterator<User> syntheticUsers(long count) {
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+        return new Iterator<>() {
+            private long id;
+
+            @Override
+            public boolean hasNext() {
+                return id < count;
+            }
+
+            @Override
+            public User next() {
+                id++;
+                LocalDateTime createdAt = base.plusSeconds(id * 37);
+                return User.builder()
+                        .id(id)
+                        .name("Usuario Exemplo " + id)
+                        .email("usuario.exemplo" + id + "@email.com")
+                        .age(18 + (int) (id % 60))
+                        .status(STATUSES[(int) (id % STATUSES.length)])
+                        .createdAt(createdAt)
+                        .updatedAt(createdAt.plusHours(id % 1000))
+                        .build();
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package br.com.grpc.benchmark;
+
+import br.com.grpc.model.User;
+import br.com.grpc.repository.InMemoryUserRepository;
+import br.com.grpc.repository.OffHeapUserRepository;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.repository.UserRepository;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Memória por usuário de cada implementação de {@link UserRepository}: heap retida após
+ * GC e memória direta (fora da heap) reservada. O change log é criado com capacidade 1
+ * para que as referências de eventos não entrem na conta.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec \
+ *     -Dbenchmark.main=br.com.grpc.benchmark.UserStoreFootprint -Dbenchmark.args=1000000
+ * </pre>
+ */
+public class UserStoreFootprint {
+
+    private static final User.UserStatus[] STATUSES = User.UserStatus.values();
+
+    public static void main(String[] args) throws Exception {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("Loading %,d users per store%n", users);
+        System.out.printf("%-10s %14s %14s %14s%n", "store", "heap B/user", "direct B/user", "total B/user");
+        measure("heap", users, () -> new InMemoryUserRepository(new UserChangeLog(1)));
+        measure("off-heap", users, () -> new OffHeapUserRepository(new UserChangeLog(1)));
+    }
+
+    private static void measure(String name, int users, Supplier<UserRepository> factory) throws Exception {
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+
+        UserRepository repository = factory.get();
+        List<User> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < users; i++) {
+            batch.add(user(i));
+            if (batch.size() == 10_000) {
+                repository.saveAll(batch);
+                batch = new ArrayList<>(10_000);
+            }
+        }
+        repository.saveAll(batch);
+        batch = null;
+
+        long heap = usedHeap() - heapBefore;
+        long direct = usedDirect() - directBefore;
+        System.out.printf("%-10s %14.1f %14.1f %14.1f%n", name,
+                (double) heap / users, (double) direct / users, (double) (heap + direct) / users);
+
+        if (repository.count() != users) {
+            throw new IllegalStateException("Unexpected user count: " + repository.count());
+        }
+    }
+
+    // Dados parecidos com os reais: nomes e emails de tamanho típico, domínio repetido
+    private static User user(int i) {
+        return User.builder()
+                .name("Usuario Exemplo " + i)
+                .email("usuario.exemplo" + i + "@email.com")
+                .age(18 + i % 60)
+                .status(STATUSES[i % STATUSES.length])
+                .build();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirect() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+}
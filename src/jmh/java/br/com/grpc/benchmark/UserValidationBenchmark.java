@@ -0,0 +1,82 @@
+package br.com.grpc.benchmark;
+
+import br.com.grpc.model.User;
+import br.com.grpc.service.UserService;
+import br.com.grpc.service.UserValidator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validação que o {@link UserService} faz antes de toda gravação, com usuário válido e com email
+ * inválido: {@link UserValidator} (regras pré-montadas e scanner de email) contra a validação
+ * anterior, reproduzida em {@code legacy*}, que usava {@code String.matches} e lançava uma
+ * exceção com stack trace por falha.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="UserValidationBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class UserValidationBenchmark {
+
+    private final UserValidator validator = new UserValidator();
+    private final User valid = user("usuario.exemplo@email.com");
+    private final User invalidEmail = user("usuario.exemplo@email");
+
+    private static User user(String email) {
+        return User.builder()
+                .name("Usuario Exemplo")
+                .email(email)
+                .age(30)
+                .status(User.UserStatus.ACTIVE)
+                .build();
+    }
+
+    @Benchmark
+    public List<String> validUser() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public List<String> invalidEmail() {
+        return validator.validate(invalidEmail);
+    }
+
+    @Benchmark
+    public void legacyValidUser() {
+        legacyValidate(valid);
+    }
+
+    @Benchmark
+    public Object legacyInvalidEmail() {
+        try {
+            legacyValidate(invalidEmail);
+            throw new AssertionError("email should be rejected");
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    private static void legacyValidate(User user) {
+        if (!StringUtils.hasText(user.getName())) {
+            throw new IllegalArgumentException("Name is required");
+        }
+        if (!StringUtils.hasText(user.getEmail())) {
+            throw new IllegalArgumentException("Email is required");
+        }
+        if (!user.getEmail().matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$")) {
+            throw new IllegalArgumentException("Invalid email format");
+        }
+        if (user.getAge() == null || user.getAge() < 0 || user.getAge() > 150) {
+            throw new IllegalArgumentException("Age must be between 0 and 150");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package br.com.grpc.benchmark;
+
+import br.com.grpc.config.WalProperties;
+import br.com.grpc.model.User;
+import br.com.grpc.repository.InMemoryUserRepository;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.repository.UserRepository;
+import br.com.grpc.repository.UserWriteAheadLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Vazão de {@code save} com o write-ahead log: fsync por escrita (ALWAYS), group commit
+ * (GROUP) e fsync em segundo plano (PERIODIC), com 1 e 16 escritores. O diretório pode ser trocado com
+ * {@code -Dbenchmark.wal.dir=...} para medir o disco real em vez do /tmp.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="WalSyncBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class WalSyncBenchmark {
+
+    private static final AtomicLong EMAILS = new AtomicLong();
+
+    @Param({"ALWAYS", "GROUP", "PERIODIC"})
+    public WalProperties.SyncMode syncMode;
+
+    private Path directory;
+    private UserRepository repository;
+    private UserWriteAheadLog wal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path parent = Path.of(System.getProperty("benchmark.wal.dir", System.getProperty("java.io.tmpdir")));
+        directory = Files.createTempDirectory(parent, "wal-benchmark");
+        WalProperties properties = new WalProperties();
+        properties.setDirectory(directory.toString());
+        properties.setSyncMode(syncMode);
+        properties.setSnapshotInterval(Duration.ZERO);
+        repository = new InMemoryUserRepository(new UserChangeLog(1024));
+        wal = new UserWriteAheadLog(properties, repository);
+        wal.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        wal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public User save_1Writer() {
+        return repository.save(user());
+    }
+
+    @Benchmark
+    @Threads(16)
+    public User save_16Writers() {
+        return repository.save(user());
+    }
+
+    // Email único por escrita: o índice de email rejeita repetidos
+    private static User user() {
+        return User.builder()
+                .name("Usuario Benchmark")
+                .email("usuario.benchmark" + EMAILS.incrementAndGet() + "@email.com")
+                .age(30)
+                .status(User.UserStatus.ACTIVE)
+                .build();
+    }
+}
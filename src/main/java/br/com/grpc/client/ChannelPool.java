@@ -0,0 +1,65 @@
+package br.com.grpc.client;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Vários {@link ManagedChannel} para o mesmo destino vistos como um único {@link Channel}: cada
+ * chamada vai para o próximo canal em round-robin. Cada canal abre sua própria conexão HTTP/2,
+ * então o limite de streams simultâneos por conexão do servidor deixa de ser o teto do cliente.
+ */
+public final class ChannelPool extends Channel {
+
+    private final List<ManagedChannel> channels;
+    private final AtomicInteger next = new AtomicInteger();
+
+    ChannelPool(List<ManagedChannel> channels) {
+        if (channels.isEmpty()) {
+            throw new IllegalArgumentException("Channel pool needs at least one channel");
+        }
+        this.channels = List.copyOf(channels);
+    }
+
+    public static ChannelPool create(int size, Supplier<ManagedChannel> factory) {
+        List<ManagedChannel> channels = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            channels.add(factory.get());
+        }
+        return new ChannelPool(channels);
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions options) {
+        return channels.get(Math.floorMod(next.getAndIncrement(), channels.size())).newCall(method, options);
+    }
+
+    @Override
+    public String authority() {
+        return channels.get(0).authority();
+    }
+
+    public int size() {
+        return channels.size();
+    }
+
+    // Chamadas em andamento têm até "timeout" para terminar; depois são canceladas
+    public void shutdown(Duration timeout) throws InterruptedException {
+        channels.forEach(ManagedChannel::shutdown);
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (ManagedChannel channel : channels) {
+            if (!channel.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                channel.shutdownNow();
+            }
+        }
+    }
+}
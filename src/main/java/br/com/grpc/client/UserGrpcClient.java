@@ -1,86 +1,366 @@
 package br.com.grpc.client;
 
+import br.com.grpc.config.GrpcClientProperties;
 import br.com.grpc.user.proto.*;
-import io.grpc.ManagedChannel;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.Context;
 import io.grpc.ManagedChannelBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PreDestroy;
+import java.time.Duration;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+/**
+ * Cliente do {@code UserService} sobre um {@link ChannelPool}. Os métodos síncronos usam o
+ * blocking stub; os terminados em {@code Async} usam o future stub e não prendem a thread que
+ * chama. Cancelar o {@link CompletableFuture} cancela a chamada gRPC.
+ *
+ * <p>Com {@code grpc.client.coalescing.enabled}, {@code getUser} passa pelo
+ * {@link UserLookupCoalescer}, que junta buscas simultâneas numa chamada só. Com
+ * {@code grpc.client.cache.enabled}, {@code getUser} consulta antes o {@link UserNearCache};
+ * {@code updateUser} e {@code deleteUser} feitos por este cliente invalidam o id.
+ */
 @Slf4j
 @Component
-public class UserGrpcClient {
+public class UserGrpcClient implements MeterBinder {
 
-    private final ManagedChannel channel;
+    private final ChannelPool channels;
+    private final Duration deadline;
     private final UserServiceGrpc.UserServiceBlockingStub blockingStub;
+    private final UserServiceGrpc.UserServiceFutureStub futureStub;
+    // Só com grpc.client.coalescing.enabled
+    private final ScheduledExecutorService scheduler;
+    private final UserLookupCoalescer coalescer;
+    // Só com grpc.client.cache.enabled
+    private final UserNearCache cache;
 
-    public UserGrpcClient() {
-        this.channel = ManagedChannelBuilder.forAddress("localhost", 9090)
-                .usePlaintext()
-                .build();
-        this.blockingStub = UserServiceGrpc.newBlockingStub(channel);
+    @Autowired
+    public UserGrpcClient(GrpcClientProperties properties) {
+        this(ChannelPool.create(properties.getChannels(),
+                        () -> ManagedChannelBuilder.forTarget(properties.resolvedTarget()).usePlaintext().build()),
+                properties.getDeadline(), properties.getCoalescing(), properties.getCache());
+        log.info("gRPC client for {} with {} channels, deadline {}",
+                properties.resolvedTarget(), properties.getChannels(), properties.getDeadline());
+    }
+
+    public UserGrpcClient(ChannelPool channels, Duration deadline) {
+        this(channels, deadline, new GrpcClientProperties.Coalescing());
+    }
+
+    public UserGrpcClient(ChannelPool channels, Duration deadline, GrpcClientProperties.Coalescing coalescing) {
+        this(channels, deadline, coalescing, new GrpcClientProperties.Cache());
+    }
+
+    public UserGrpcClient(ChannelPool channels, Duration deadline, GrpcClientProperties.Coalescing coalescing,
+                          GrpcClientProperties.Cache cache) {
+        this(channels, deadline, coalescing, cache.isEnabled() ? new UserNearCache(cache) : null);
+        if (cache.isEnabled()) {
+            log.info("gRPC client near cache: max size {}, ttl {}", cache.getMaxSize(), cache.getTtl());
+        }
+    }
+
+    UserGrpcClient(ChannelPool channels, Duration deadline, GrpcClientProperties.Coalescing coalescing,
+                   UserNearCache cache) {
+        this.channels = channels;
+        this.deadline = deadline;
+        this.blockingStub = UserServiceGrpc.newBlockingStub(channels);
+        this.futureStub = UserServiceGrpc.newFutureStub(channels);
+        if (coalescing.isEnabled()) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("grpc-client-coalescer").daemon().factory());
+            this.coalescer = new UserLookupCoalescer(
+                    id -> toCompletable(async().getUser(getRequest(id))),
+                    ids -> toCompletable(async().batchGetUsers(batchGetRequest(ids))),
+                    scheduler, coalescing.getWindow(), coalescing.getMaxBatchSize());
+            log.info("gRPC client getUser coalescing: window {}, max batch {}",
+                    coalescing.getWindow(), coalescing.getMaxBatchSize());
+        } else {
+            this.scheduler = null;
+            this.coalescer = null;
+        }
+        this.cache = cache;
+    }
+
+    // O deadline é absoluto, então cada chamada ganha o seu
+    private UserServiceGrpc.UserServiceBlockingStub blocking() {
+        return deadline.isZero() ? blockingStub : blockingStub.withDeadlineAfter(deadline.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private UserServiceGrpc.UserServiceFutureStub async() {
+        return deadline.isZero() ? futureStub : futureStub.withDeadlineAfter(deadline.toMillis(), TimeUnit.MILLISECONDS);
     }
 
     public UserResponse createUser(String name, String email, int age, UserStatus status) {
-        CreateUserRequest request = CreateUserRequest.newBuilder()
+        return blocking().createUser(createRequest(name, email, age, status));
+    }
+
+    public CompletableFuture<UserResponse> createUserAsync(String name, String email, int age, UserStatus status) {
+        return toCompletable(async().createUser(createRequest(name, email, age, status)));
+    }
+
+    public UserResponse getUser(long id) {
+        if (cache == null) {
+            return fetchUser(id);
+        }
+        UserResponse cached = cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long mark = cache.writeMark();
+        UserResponse user = fetchUser(id);
+        cache.put(user, mark);
+        return user;
+    }
+
+    public CompletableFuture<UserResponse> getUserAsync(long id) {
+        if (cache == null) {
+            return fetchUserAsync(id);
+        }
+        UserResponse cached = cache.get(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        long mark = cache.writeMark();
+        CompletableFuture<UserResponse> future = fetchUserAsync(id);
+        // Devolve o future original para o cancelamento continuar chegando à chamada
+        future.thenAccept(user -> cache.put(user, mark));
+        return future;
+    }
+
+    private UserResponse fetchUser(long id) {
+        return coalescer != null ? await(coalescer.get(id)) : blocking().getUser(getRequest(id));
+    }
+
+    private CompletableFuture<UserResponse> fetchUserAsync(long id) {
+        return coalescer != null ? coalescer.get(id) : toCompletable(async().getUser(getRequest(id)));
+    }
+
+    public UserResponse getUserByEmail(String email) {
+        return blocking().getUserByEmail(getByEmailRequest(email));
+    }
+
+    public CompletableFuture<UserResponse> getUserByEmailAsync(String email) {
+        return toCompletable(async().getUserByEmail(getByEmailRequest(email)));
+    }
+
+    public ListUsersResponse listUsers(int page, int size) {
+        return blocking().listUsers(listRequest(page, size));
+    }
+
+    public CompletableFuture<ListUsersResponse> listUsersAsync(int page, int size) {
+        return toCompletable(async().listUsers(listRequest(page, size)));
+    }
+
+    public UserResponse updateUser(long id, String name, String email, int age, UserStatus status) {
+        invalidate(id);
+        try {
+            return blocking().updateUser(updateRequest(id, name, email, age, status));
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    public CompletableFuture<UserResponse> updateUserAsync(long id, String name, String email, int age,
+                                                           UserStatus status) {
+        invalidate(id);
+        return invalidateOnCompletion(id, toCompletable(async().updateUser(updateRequest(id, name, email, age, status))));
+    }
+
+    public DeleteUserResponse deleteUser(long id) {
+        invalidate(id);
+        try {
+            return blocking().deleteUser(deleteRequest(id));
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    public CompletableFuture<DeleteUserResponse> deleteUserAsync(long id) {
+        invalidate(id);
+        return invalidateOnCompletion(id, toCompletable(async().deleteUser(deleteRequest(id))));
+    }
+
+    // Antes da chamada e de novo no fim, para descartar buscas que leram a versão antiga no meio do caminho
+    private void invalidate(long id) {
+        if (cache != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    private <T> CompletableFuture<T> invalidateOnCompletion(long id, CompletableFuture<T> future) {
+        if (cache != null) {
+            future.whenComplete((value, error) -> cache.invalidate(id));
+        }
+        return future;
+    }
+
+    public BatchUsersResponse batchGetUsers(List<Long> ids) {
+        return blocking().batchGetUsers(batchGetRequest(ids));
+    }
+
+    public CompletableFuture<BatchUsersResponse> batchGetUsersAsync(List<Long> ids) {
+        return toCompletable(async().batchGetUsers(batchGetRequest(ids)));
+    }
+
+    public BatchUsersResponse batchCreateUsers(List<CreateUserRequest> users) {
+        return blocking().batchCreateUsers(batchCreateRequest(users));
+    }
+
+    public CompletableFuture<BatchUsersResponse> batchCreateUsersAsync(List<CreateUserRequest> users) {
+        return toCompletable(async().batchCreateUsers(batchCreateRequest(users)));
+    }
+
+    /**
+     * Entrega cada usuário do stream ao {@code consumer}, na thread que chama, e devolve quantos
+     * foram entregues. O blocking stub só pede a próxima mensagem depois que o consumer retorna,
+     * então um consumer lento (escrita HTTP bloqueada) segura o servidor pelo controle de fluxo
+     * do HTTP/2 em vez de acumular usuários na memória. Se o consumer lançar exceção, a chamada
+     * é cancelada e a exceção repassada.
+     *
+     * <p>Não aplica o deadline por chamada, que cortaria streams longos.
+     */
+    public long streamUsersByStatus(UserStatus status, Consumer<UserResponse> consumer) {
+        GetUsersByStatusRequest request = GetUsersByStatusRequest.newBuilder()
+                .setStatus(status)
+                .build();
+
+        // Fechar o contexto cancela a chamada se o stream não chegou ao fim
+        try (Context.CancellableContext context = Context.current().withCancellation()) {
+            Context previous = context.attach();
+            try {
+                long count = 0;
+                Iterator<UserResponse> users = blockingStub.getUsersByStatus(request);
+                while (users.hasNext()) {
+                    consumer.accept(users.next());
+                    count++;
+                }
+                return count;
+            } finally {
+                context.detach(previous);
+            }
+        }
+    }
+
+    private static CreateUserRequest createRequest(String name, String email, int age, UserStatus status) {
+        return CreateUserRequest.newBuilder()
                 .setName(name)
                 .setEmail(email)
                 .setAge(age)
                 .setStatus(status)
                 .build();
-        return blockingStub.createUser(request);
     }
 
-    public UserResponse getUser(long id) {
-        GetUserRequest request = GetUserRequest.newBuilder()
+    private static GetUserRequest getRequest(long id) {
+        return GetUserRequest.newBuilder()
                 .setId(id)
                 .build();
-        return blockingStub.getUser(request);
     }
 
-    public ListUsersResponse listUsers(int page, int size) {
-        ListUsersRequest request = ListUsersRequest.newBuilder()
+    private static GetUserByEmailRequest getByEmailRequest(String email) {
+        return GetUserByEmailRequest.newBuilder()
+                .setEmail(email)
+                .build();
+    }
+
+    private static ListUsersRequest listRequest(int page, int size) {
+        return ListUsersRequest.newBuilder()
                 .setPage(page)
                 .setSize(size)
                 .build();
-        return blockingStub.listUsers(request);
     }
 
-    public UserResponse updateUser(long id, String name, String email, int age, UserStatus status) {
-        UpdateUserRequest request = UpdateUserRequest.newBuilder()
+    private static UpdateUserRequest updateRequest(long id, String name, String email, int age, UserStatus status) {
+        return UpdateUserRequest.newBuilder()
                 .setId(id)
                 .setName(name)
                 .setEmail(email)
                 .setAge(age)
                 .setStatus(status)
                 .build();
-        return blockingStub.updateUser(request);
     }
 
-    public DeleteUserResponse deleteUser(long id) {
-        DeleteUserRequest request = DeleteUserRequest.newBuilder()
+    private static DeleteUserRequest deleteRequest(long id) {
+        return DeleteUserRequest.newBuilder()
                 .setId(id)
                 .build();
-        return blockingStub.deleteUser(request);
     }
 
-    public void streamUsersByStatus(UserStatus status) {
-        GetUsersByStatusRequest request = GetUsersByStatusRequest.newBuilder()
-                .setStatus(status)
+    private static BatchGetUsersRequest batchGetRequest(List<Long> ids) {
+        return BatchGetUsersRequest.newBuilder()
+                .addAllIds(ids)
+                .build();
+    }
+
+    private static BatchCreateUsersRequest batchCreateRequest(List<CreateUserRequest> users) {
+        return BatchCreateUsersRequest.newBuilder()
+                .addAllUsers(users)
                 .build();
-        
-        Iterator<UserResponse> users = blockingStub.getUsersByStatus(request);
-        while (users.hasNext()) {
-            UserResponse user = users.next();
-            log.info("Received user: {} - {}", user.getId(), user.getName());
+    }
+
+    // Completa na thread que recebeu a resposta; trabalho pesado encadeado deve ir para thenApplyAsync e afins
+    private static <T> CompletableFuture<T> toCompletable(ListenableFuture<T> future) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Futures.addCallback(future, new FutureCallback<>() {
+            @Override
+            public void onSuccess(T value) {
+                result.complete(value);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    // Devolve o StatusRuntimeException como o blocking stub faria
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (coalescer != null) {
+            coalescer.bindTo(registry);
+        }
+        if (cache != null) {
+            cache.bindTo(registry);
         }
     }
 
     @PreDestroy
     public void shutdown() throws InterruptedException {
-        channel.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        channels.shutdown(Duration.ofSeconds(5));
     }
-}
\ No newline at end of file
+}
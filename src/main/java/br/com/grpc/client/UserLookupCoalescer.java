@@ -0,0 +1,183 @@
+package br.com.grpc.client;
+
+import br.com.grpc.user.proto.BatchUserResult;
+import br.com.grpc.user.proto.BatchUsersResponse;
+import br.com.grpc.user.proto.UserResponse;
+import io.grpc.Status;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Junta buscas de usuário por id antes de irem para a rede. Uma busca por um id que já está
+ * em andamento recebe o mesmo resultado; ids diferentes pedidos dentro da janela saem num
+ * único {@code BatchGetUsers}. Um lote de um id só vira um {@code GetUser} comum.
+ *
+ * <p>Cada chamador recebe uma cópia do future compartilhado, então cancelar a sua não afeta
+ * os outros que esperam o mesmo id.
+ */
+final class UserLookupCoalescer {
+
+    private final LongFunction<CompletableFuture<UserResponse>> getUser;
+    private final Function<List<Long>, CompletableFuture<BatchUsersResponse>> batchGetUsers;
+    private final ScheduledExecutorService scheduler;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    private final Map<Long, CompletableFuture<UserResponse>> inFlight = new ConcurrentHashMap<>();
+    // Lote aberto, recebendo ids até a janela fechar ou encher; guardado por "this"
+    private Map<Long, CompletableFuture<UserResponse>> pending;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder batched = new LongAdder();
+    private final LongAdder getUserCalls = new LongAdder();
+    private final LongAdder batchCalls = new LongAdder();
+
+    UserLookupCoalescer(LongFunction<CompletableFuture<UserResponse>> getUser,
+                        Function<List<Long>, CompletableFuture<BatchUsersResponse>> batchGetUsers,
+                        ScheduledExecutorService scheduler, Duration window, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.getUser = getUser;
+        this.batchGetUsers = batchGetUsers;
+        this.scheduler = scheduler;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    CompletableFuture<UserResponse> get(long id) {
+        requests.increment();
+        CompletableFuture<UserResponse> created = new CompletableFuture<>();
+        CompletableFuture<UserResponse> existing = inFlight.putIfAbsent(id, created);
+        if (existing != null) {
+            joined.increment();
+            return existing.copy();
+        }
+        created.whenComplete((user, error) -> inFlight.remove(id, created));
+        if (windowNanos == 0) {
+            send(Map.of(id, created));
+        } else {
+            enqueue(id, created);
+        }
+        return created.copy();
+    }
+
+    private void enqueue(long id, CompletableFuture<UserResponse> future) {
+        Map<Long, CompletableFuture<UserResponse>> full = null;
+        synchronized (this) {
+            if (pending == null) {
+                Map<Long, CompletableFuture<UserResponse>> batch = new LinkedHashMap<>();
+                pending = batch;
+                scheduler.schedule(() -> flush(batch), windowNanos, TimeUnit.NANOSECONDS);
+            }
+            pending.put(id, future);
+            if (pending.size() >= maxBatchSize) {
+                full = pending;
+                pending = null;
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+    }
+
+    // O lote pode já ter saído por ter enchido antes da janela fechar
+    private void flush(Map<Long, CompletableFuture<UserResponse>> batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                return;
+            }
+            pending = null;
+        }
+        send(batch);
+    }
+
+    private void send(Map<Long, CompletableFuture<UserResponse>> batch) {
+        if (batch.size() == 1) {
+            Map.Entry<Long, CompletableFuture<UserResponse>> only = batch.entrySet().iterator().next();
+            getUserCalls.increment();
+            forward(getUser.apply(only.getKey()), only.getValue());
+            return;
+        }
+        List<Long> ids = new ArrayList<>(batch.keySet());
+        batchCalls.increment();
+        batched.add(ids.size() - 1);
+        batchGetUsers.apply(ids).whenComplete((response, error) -> {
+            if (error != null) {
+                batch.values().forEach(future -> future.completeExceptionally(error));
+                return;
+            }
+            for (BatchUserResult result : response.getResultsList()) {
+                CompletableFuture<UserResponse> future = batch.get(ids.get(result.getIndex()));
+                if (result.getCode() == Status.Code.OK.value()) {
+                    future.complete(result.getUser());
+                } else {
+                    // Mesmo erro que o GetUser daria para o id
+                    future.completeExceptionally(Status.fromCodeValue(result.getCode())
+                            .withDescription(result.getErrorMessage())
+                            .asRuntimeException());
+                }
+            }
+            batch.values().forEach(future -> future.completeExceptionally(
+                    Status.INTERNAL.withDescription("Missing result in batch response").asRuntimeException()));
+        });
+    }
+
+    private static <T> void forward(CompletableFuture<T> source, CompletableFuture<T> target) {
+        source.whenComplete((value, error) -> {
+            if (error != null) {
+                target.completeExceptionally(error);
+            } else {
+                target.complete(value);
+            }
+        });
+    }
+
+    long requestCount() {
+        return requests.sum();
+    }
+
+    long callCount() {
+        return getUserCalls.sum() + batchCalls.sum();
+    }
+
+    long savedCount() {
+        return joined.sum() + batched.sum();
+    }
+
+    void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("grpc.client.coalescing.requests", requests, LongAdder::sum)
+                .description("User lookups by id that went through the coalescer")
+                .register(registry);
+        FunctionCounter.builder("grpc.client.coalescing.calls", getUserCalls, LongAdder::sum)
+                .tag("method", "GetUser")
+                .description("RPCs actually sent for coalesced lookups")
+                .register(registry);
+        FunctionCounter.builder("grpc.client.coalescing.calls", batchCalls, LongAdder::sum)
+                .tag("method", "BatchGetUsers")
+                .description("RPCs actually sent for coalesced lookups")
+                .register(registry);
+        FunctionCounter.builder("grpc.client.coalescing.saved", joined, LongAdder::sum)
+                .tag("reason", "in-flight")
+                .description("Lookups answered by an identical call already in flight")
+                .register(registry);
+        FunctionCounter.builder("grpc.client.coalescing.saved", batched, LongAdder::sum)
+                .tag("reason", "batched")
+                .description("GetUser calls folded into a BatchGetUsers with other ids")
+                .register(registry);
+    }
+}
@@ -0,0 +1,82 @@
+package br.com.grpc.client;
+
+import br.com.grpc.config.GrpcClientProperties;
+import br.com.grpc.user.proto.UserResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache local de {@link UserResponse} por id no {@link UserGrpcClient}. O limite é em bytes
+ * (tamanho serializado de cada usuário), então a política W-TinyLFU do Caffeine despeja
+ * considerando o peso de cada entrada, e cada entrada expira {@code ttl} depois de gravada.
+ *
+ * <p>Alterações feitas por este cliente invalidam a entrada; as feitas por outros clientes
+ * aparecem no máximo depois do TTL. Uma busca que começou antes de uma invalidação não grava
+ * o resultado, que pode ser anterior à alteração.
+ */
+final class UserNearCache {
+
+    static final String NAME = "userGrpcClient";
+    // Cabeçalhos do objeto e da entrada do mapa, além dos bytes da mensagem
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final Cache<Long, UserResponse> cache;
+    // Conta invalidações; put só grava se nenhuma aconteceu desde o início da busca
+    private final AtomicLong writes = new AtomicLong();
+
+    UserNearCache(GrpcClientProperties.Cache properties) {
+        this(properties, Ticker.systemTicker(), Runnable::run);
+    }
+
+    UserNearCache(GrpcClientProperties.Cache properties, Ticker ticker, Executor maintenance) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .weigher((Long id, UserResponse user) -> user.getSerializedSize() + ENTRY_OVERHEAD)
+                .expireAfterWrite(properties.getTtl())
+                .ticker(ticker)
+                .executor(maintenance)
+                .recordStats()
+                .build();
+    }
+
+    UserResponse get(long id) {
+        return cache.getIfPresent(id);
+    }
+
+    // Marca a ser passada ao put do resultado da busca que vai começar
+    long writeMark() {
+        return writes.get();
+    }
+
+    // O compute serializa com o invalidate da mesma chave, então a checagem e a gravação são atômicas
+    void put(UserResponse user, long mark) {
+        cache.asMap().compute(user.getId(), (id, current) -> writes.get() == mark ? user : current);
+    }
+
+    void invalidate(long id) {
+        cache.asMap().compute(id, (key, current) -> {
+            writes.incrementAndGet();
+            return null;
+        });
+    }
+
+    CacheStats stats() {
+        return cache.stats();
+    }
+
+    long size() {
+        return cache.estimatedSize();
+    }
+
+    // cache.gets{result=hit|miss}, cache.evictions, cache.eviction.weight, cache.size...
+    void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, NAME);
+    }
+}
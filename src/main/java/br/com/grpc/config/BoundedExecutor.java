@@ -0,0 +1,70 @@
+package br.com.grpc.config;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Roda no máximo {@code limit} tarefas ao mesmo tempo no executor de destino. As demais
+ * esperam numa fila sem bloquear quem submete, o que importa quando quem submete é um
+ * event loop do Netty ou o acceptor do Tomcat.
+ */
+final class BoundedExecutor implements Executor {
+
+    private final Executor delegate;
+    private final int limit;
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger();
+
+    BoundedExecutor(Executor delegate, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Concurrency limit must be positive");
+        }
+        this.delegate = delegate;
+        this.limit = limit;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        pending.add(task);
+        startPending();
+    }
+
+    // Quem termina uma tarefa também chama aqui, então nenhuma tarefa enfileirada fica parada
+    private void startPending() {
+        while (!pending.isEmpty()) {
+            int current = running.get();
+            if (current >= limit) {
+                return;
+            }
+            if (!running.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Runnable task = pending.poll();
+            if (task == null) {
+                running.decrementAndGet();
+                continue;
+            }
+            try {
+                delegate.execute(() -> run(task));
+            } catch (RuntimeException e) {
+                running.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } finally {
+            running.decrementAndGet();
+            startPending();
+        }
+    }
+
+    int running() {
+        return running.get();
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.grpc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "grpc.compression")
+public class CompressionProperties {
+    // Codec das respostas de métodos sem entrada em "methods"
+    private String defaultCodec = "identity";
+    // Nome do método (ListUsers, GetUsersByStatus...) -> codec registrado no gRPC (gzip, identity)
+    private Map<String, String> methods = new HashMap<>();
+    // Mensagens menores que isto saem sem compressão, mesmo em métodos com codec
+    private DataSize minSize = DataSize.ofKilobytes(1);
+}
@@ -2,20 +2,59 @@ package br.com.grpc.config;
 
 import br.com.grpc.model.User;
 import br.com.grpc.repository.UserRepository;
+import br.com.grpc.repository.UserSnapshot;
+import br.com.grpc.repository.UserWriteAheadLog;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class DataInitializer implements CommandLineRunner {
+public class DataInitializer implements SmartInitializingSingleton {
 
     private final UserRepository userRepository;
+    private final ObjectProvider<UserWriteAheadLog> writeAheadLog;
+
+    // Snapshot (formato UserSnapshot) usado como carga inicial no lugar dos dados de exemplo
+    @Value("${users.store.snapshot-file:}")
+    private String snapshotFile;
 
+    // Roda depois de criados todos os singletons (o write-ahead log já recuperou a base) e antes
+    // do start dos lifecycles, ou seja, antes de os servidores gRPC e HTTP aceitarem conexões
     @Override
-    public void run(String... args) {
+    public void afterSingletonsInstantiated() {
+        try {
+            initialize();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load initial users", e);
+        }
+    }
+
+    private void initialize() throws IOException {
+        // Base recuperada do write-ahead log: os dados de exemplo já estão lá
+        if (userRepository.count() > 0) {
+            log.info("Skipping sample data, {} users already stored", userRepository.count());
+            return;
+        }
+
+        if (!snapshotFile.isBlank()) {
+            UserSnapshot.load(Path.of(snapshotFile), userRepository);
+            // A carga não passa pelo log: um snapshot do log torna a base inicial durável
+            UserWriteAheadLog wal = writeAheadLog.getIfAvailable();
+            if (wal != null) {
+                wal.snapshot();
+            }
+            return;
+        }
+
         log.info("Initializing sample data...");
 
         User user1 = User.builder()
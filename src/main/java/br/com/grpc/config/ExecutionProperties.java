@@ -0,0 +1,21 @@
+package br.com.grpc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "grpc.execution")
+public class ExecutionProperties {
+    private Mode mode = Mode.PLATFORM;
+    // Em VIRTUAL, máximo de tarefas rodando ao mesmo tempo em cada pilha (gRPC e Tomcat); 0 = sem limite
+    private int maxConcurrency = 0;
+
+    public enum Mode {
+        // Pool em cache do grpc-java e pool de threads do Tomcat (server.tomcat.threads.max)
+        PLATFORM,
+        // Uma virtual thread por handler gRPC e por requisição HTTP, inclusive as que chamam o UserGrpcClient
+        VIRTUAL
+    }
+}
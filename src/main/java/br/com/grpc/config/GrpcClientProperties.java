@@ -0,0 +1,49 @@
+package br.com.grpc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "grpc.client")
+public class GrpcClientProperties {
+    private String host = "localhost";
+    private int port = 9090;
+    // Target completo do gRPC (dns:///user-service:9090, ...); quando informado, substitui host e port
+    private String target;
+    // Canais (conexões HTTP/2) usados em round-robin; cada um tem seu limite de streams simultâneos
+    private int channels = 4;
+    // Deadline de cada chamada; zero = sem deadline
+    private Duration deadline = Duration.ofSeconds(30);
+    private Coalescing coalescing = new Coalescing();
+    private Cache cache = new Cache();
+
+    public String resolvedTarget() {
+        return StringUtils.hasText(target) ? target : host + ":" + port;
+    }
+
+    @Data
+    public static class Coalescing {
+        // Desligado, cada getUser é uma chamada GetUser própria
+        private boolean enabled = false;
+        // Espera para juntar ids diferentes num BatchGetUsers; zero só junta buscas repetidas em andamento
+        private Duration window = Duration.ofMillis(2);
+        // Lote que sai antes do fim da janela; no máximo UserService.MAX_BATCH_SIZE
+        private int maxBatchSize = 100;
+    }
+
+    @Data
+    public static class Cache {
+        // Desligado, todo getUser vai ao servidor
+        private boolean enabled = false;
+        // Soma do tamanho serializado dos usuários guardados; acima disso o Caffeine despeja
+        private DataSize maxSize = DataSize.ofMegabytes(16);
+        // Tempo máximo que um usuário alterado por outro cliente pode ser servido desatualizado
+        private Duration ttl = Duration.ofSeconds(5);
+    }
+}
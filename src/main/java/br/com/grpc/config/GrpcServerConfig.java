@@ -1,52 +1,125 @@
 package br.com.grpc.config;
 
-import io.grpc.Server;
-import io.grpc.ServerBuilder;
-import io.grpc.protobuf.services.ProtoReflectionService;
+import io.grpc.netty.NettyServerBuilder;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.MultithreadEventExecutorGroup;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.context.ApplicationContext;
-import org.springframework.grpc.server.service.GrpcService;
-import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.grpc.autoconfigure.server.GrpcServerProperties;
+import org.springframework.grpc.server.ServerBuilderCustomizer;
+import org.springframework.grpc.server.lifecycle.GrpcServerStartedEvent;
+import org.springframework.util.unit.DataSize;
 
-import java.io.IOException;
-import java.util.Map;
+import java.time.Duration;
 
+/**
+ * Servidor gRPC único, criado pelo Spring gRPC (Netty) a partir de {@code spring.grpc.server}.
+ * Aqui entram as opções de transporte que ele não expõe ({@link NettyServerProperties}) e o
+ * log das configurações efetivas quando o servidor sobe.
+ */
 @Slf4j
-@Component
-public class GrpcServerConfig implements CommandLineRunner {
-
-    @Autowired
-    private ApplicationContext applicationContext;
-
-    @Override
-    public void run(String... args) throws Exception {
-        startGrpcServer();
-    }
-
-    private void startGrpcServer() throws IOException, InterruptedException {
-        ServerBuilder<?> serverBuilder = ServerBuilder.forPort(9090);
-        
-        // Adicionar serviço de reflection
-        serverBuilder.addService(ProtoReflectionService.newInstance());
-        log.info("Registered gRPC reflection service");
-        
-        // Registrar todos os serviços gRPC
-        Map<String, Object> grpcServices = applicationContext.getBeansWithAnnotation(GrpcService.class);
-        for (Object service : grpcServices.values()) {
-            if (service instanceof io.grpc.BindableService) {
-                serverBuilder.addService((io.grpc.BindableService) service);
-                log.info("Registered gRPC service: {}", service.getClass().getSimpleName());
+@Configuration
+public class GrpcServerConfig {
+
+    // Limite do grpc-java quando spring.grpc.server.max-inbound-message-size não é informado
+    private static final DataSize DEFAULT_MAX_INBOUND_MESSAGE_SIZE = DataSize.ofMegabytes(4);
+
+    // Os grupos são nossos, então o Netty não os encerra junto com o servidor
+    @Bean(destroyMethod = "shutdownGracefully")
+    public EventLoopGroup grpcBossEventLoopGroup(NettyServerProperties properties) {
+        return eventLoopGroup(properties, properties.getBossThreads(), "boss");
+    }
+
+    @Bean(destroyMethod = "shutdownGracefully")
+    public EventLoopGroup grpcWorkerEventLoopGroup(NettyServerProperties properties) {
+        return eventLoopGroup(properties, properties.getWorkerThreads(), "worker");
+    }
+
+    @Bean
+    public ServerBuilderCustomizer<NettyServerBuilder> nettyTransportCustomizer(
+            NettyServerProperties properties,
+            @Qualifier("grpcBossEventLoopGroup") EventLoopGroup boss,
+            @Qualifier("grpcWorkerEventLoopGroup") EventLoopGroup worker) {
+        Class<? extends ServerChannel> channelType = useEpoll(properties)
+                ? EpollServerSocketChannel.class
+                : NioServerSocketChannel.class;
+        int window = Math.toIntExact(properties.getFlowControlWindow().toBytes());
+        return builder -> {
+            builder.bossEventLoopGroup(boss)
+                    .workerEventLoopGroup(worker)
+                    .channelType(channelType);
+            if (properties.isAutoFlowControl()) {
+                builder.initialFlowControlWindow(window);
+            } else {
+                builder.flowControlWindow(window);
+            }
+            if (properties.getMaxConcurrentCallsPerConnection() > 0) {
+                builder.maxConcurrentCallsPerConnection(properties.getMaxConcurrentCallsPerConnection());
             }
+        };
+    }
+
+    @Bean
+    public ApplicationListener<GrpcServerStartedEvent> grpcServerSettingsReporter(
+            GrpcServerProperties server,
+            NettyServerProperties netty,
+            ExecutionProperties execution,
+            @Qualifier("grpcBossEventLoopGroup") EventLoopGroup boss,
+            @Qualifier("grpcWorkerEventLoopGroup") EventLoopGroup worker) {
+        return event -> {
+            GrpcServerProperties.KeepAlive keepAlive = server.getKeepAlive();
+            DataSize maxInbound = server.getMaxInboundMessageSize() != null
+                    ? server.getMaxInboundMessageSize()
+                    : DEFAULT_MAX_INBOUND_MESSAGE_SIZE;
+            log.info("gRPC server listening on port {}", event.getPort());
+            log.info("gRPC transport: {}, event loops: {} boss / {} worker, handlers: {}",
+                    useEpoll(netty) ? "epoll" : "nio", threads(boss), threads(worker), describe(execution));
+            log.info("gRPC flow control: {} window {}, max concurrent calls per connection: {}, max inbound message: {}",
+                    netty.isAutoFlowControl() ? "auto-tuned" : "fixed", netty.getFlowControlWindow(),
+                    netty.getMaxConcurrentCallsPerConnection() > 0 ? netty.getMaxConcurrentCallsPerConnection() : "unlimited",
+                    maxInbound);
+            log.info("gRPC keepalive: time {}, timeout {}, permit time {}, permit without calls {}",
+                    keepAlive.getTime(), keepAlive.getTimeout(), keepAlive.getPermitTime(), keepAlive.isPermitWithoutCalls());
+            log.info("gRPC connections: max idle {}, max age {}, max age grace {}",
+                    orUnlimited(keepAlive.getMaxIdle()), orUnlimited(keepAlive.getMaxAge()),
+                    orUnlimited(keepAlive.getMaxAgeGrace()));
+        };
+    }
+
+    private static EventLoopGroup eventLoopGroup(NettyServerProperties properties, int threads, String role) {
+        if (useEpoll(properties)) {
+            return new EpollEventLoopGroup(threads, new DefaultThreadFactory("grpc-epoll-" + role, true));
         }
+        return new NioEventLoopGroup(threads, new DefaultThreadFactory("grpc-nio-" + role, true));
+    }
+
+    private static boolean useEpoll(NettyServerProperties properties) {
+        return properties.isEpoll() && Epoll.isAvailable();
+    }
+
+    private static int threads(EventLoopGroup group) {
+        return ((MultithreadEventExecutorGroup) group).executorCount();
+    }
+
+    private static String describe(ExecutionProperties execution) {
+        if (execution.getMode() == ExecutionProperties.Mode.PLATFORM) {
+            return "platform threads";
+        }
+        return "virtual threads (max concurrency: "
+                + (execution.getMaxConcurrency() > 0 ? execution.getMaxConcurrency() : "unbounded") + ")";
+    }
 
-        Server server = serverBuilder.build().start();
-        log.info("gRPC Server started on port: 9090");
-        
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            log.info("Shutting down gRPC server");
-            server.shutdown();
-        }));
+    private static Object orUnlimited(Duration duration) {
+        return duration != null ? duration : "unlimited";
     }
-}
\ No newline at end of file
+}
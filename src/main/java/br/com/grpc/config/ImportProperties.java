@@ -0,0 +1,23 @@
+package br.com.grpc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "grpc.import")
+public class ImportProperties {
+    // Linhas validadas e gravadas por vez; também é a janela de request(n) do stream
+    private int batchSize = 500;
+    // Limite de erros detalhados devolvidos no resumo
+    private int maxReportedErrors = 1000;
+
+    // Validado no bind: com zero o request(n) nunca pede linha e todo ImportUsers fica parado
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Import batch size must be positive, got " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+}
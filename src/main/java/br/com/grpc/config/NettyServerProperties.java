@@ -0,0 +1,28 @@
+package br.com.grpc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Opções do transporte Netty que o {@code spring.grpc.server} não cobre. Porta, keepalive,
+ * idade máxima da conexão e tamanho máximo de mensagem continuam em {@code spring.grpc.server}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "grpc.server.netty")
+public class NettyServerProperties {
+    // Usa epoll quando o nativo carrega (Linux x86_64); senão, NIO
+    private boolean epoll = true;
+    // Threads que aceitam conexões
+    private int bossThreads = 1;
+    // Threads de I/O das conexões; 0 = padrão do Netty (2 x processadores)
+    private int workerThreads = 0;
+    // Janela de controle de fluxo HTTP/2 por stream
+    private DataSize flowControlWindow = DataSize.ofMegabytes(1);
+    // Com true a janela acima é só a inicial e o grpc-java ajusta pelo BDP; com false fica fixa
+    private boolean autoFlowControl = true;
+    // Chamadas simultâneas por conexão HTTP/2; 0 = sem limite
+    private int maxConcurrentCallsPerConnection = 0;
+}
@@ -0,0 +1,78 @@
+package br.com.grpc.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.grpc.autoconfigure.server.GrpcServerExecutorProvider;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Modo {@code grpc.execution.mode=virtual}: handlers gRPC e requisições do Tomcat rodam em
+ * virtual threads. Uma chamada bloqueante (fsync do write-ahead log, blocking stub do
+ * {@code UserGrpcClient}) estaciona só a virtual thread, sem segurar uma thread de plataforma.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "grpc.execution.mode", havingValue = "virtual")
+public class VirtualThreadConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService grpcHandlerThreads() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("grpc-handler-", 0).factory());
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService httpHandlerThreads() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-handler-", 0).factory());
+    }
+
+    @Bean
+    public Executor grpcHandlerExecutor(@Qualifier("grpcHandlerThreads") ExecutorService threads,
+                                        ExecutionProperties properties) {
+        log.info("gRPC handlers on virtual threads (max concurrency: {})", describe(properties.getMaxConcurrency()));
+        return bounded(threads, properties.getMaxConcurrency());
+    }
+
+    // O Spring gRPC aplica no servidor no lugar do pool em cache do grpc-java
+    @Bean
+    public GrpcServerExecutorProvider grpcServerExecutorProvider(@Qualifier("grpcHandlerExecutor") Executor executor) {
+        return () -> executor;
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandler(
+            @Qualifier("httpHandlerThreads") ExecutorService threads, ExecutionProperties properties) {
+        log.info("HTTP requests on virtual threads (max concurrency: {})", describe(properties.getMaxConcurrency()));
+        Executor executor = bounded(threads, properties.getMaxConcurrency());
+        return handler -> handler.setExecutor(executor);
+    }
+
+    // Respostas em stream (StreamingResponseBody) também em virtual threads, sem o pool fixo do Spring MVC
+    @Bean
+    public WebMvcConfigurer virtualThreadAsyncSupport(@Qualifier("httpHandlerThreads") ExecutorService threads) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(new TaskExecutorAdapter(threads));
+            }
+        };
+    }
+
+    private static Executor bounded(ExecutorService threads, int maxConcurrency) {
+        return maxConcurrency > 0 ? new BoundedExecutor(threads, maxConcurrency) : threads;
+    }
+
+    private static String describe(int maxConcurrency) {
+        return maxConcurrency > 0 ? String.valueOf(maxConcurrency) : "unbounded";
+    }
+}
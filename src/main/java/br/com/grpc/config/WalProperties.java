@@ -0,0 +1,32 @@
+package br.com.grpc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "users.store.wal")
+public class WalProperties {
+    // Desligado, o estado vive só em memória e se perde a cada reinício
+    private boolean enabled = false;
+    private String directory = "data";
+    private SyncMode syncMode = SyncMode.GROUP;
+    // Espera antes de cada fsync em GROUP: mais escritas por lote em troca de latência
+    private Duration groupCommitDelay = Duration.ZERO;
+    // Intervalo entre fsyncs em PERIODIC; é também a janela máxima de perda numa queda
+    private Duration flushInterval = Duration.ofSeconds(1);
+    // Zero desliga a compactação automática
+    private Duration snapshotInterval = Duration.ofMinutes(10);
+
+    public enum SyncMode {
+        // Um fsync por escrita, dentro da própria escrita
+        ALWAYS,
+        // Escritas concorrentes esperam juntas pelo mesmo fsync (group commit)
+        GROUP,
+        // A escrita não espera o disco; o fsync roda em segundo plano a cada flushInterval
+        PERIODIC
+    }
+}
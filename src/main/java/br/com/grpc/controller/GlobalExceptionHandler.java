@@ -1,7 +1,9 @@
 package br.com.grpc.controller;
 
+import br.com.grpc.exception.DuplicateEmailException;
 import br.com.grpc.exception.InvalidUserDataException;
 import br.com.grpc.exception.UserNotFoundException;
+import br.com.grpc.exception.VersionConflictException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -43,6 +45,36 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    // currentVersion permite ao cliente tentar de novo sem reler o usuário inteiro
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleVersionConflictException(VersionConflictException ex) {
+        log.debug("Version conflict: {}", ex.getMessage());
+
+        Map<String, Object> error = Map.of(
+                "timestamp", LocalDateTime.now(),
+                "status", HttpStatus.CONFLICT.value(),
+                "error", "Version Conflict",
+                "message", ex.getMessage(),
+                "currentVersion", ex.getCurrentVersion()
+        );
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(DuplicateEmailException.class)
+    public ResponseEntity<Map<String, Object>> handleDuplicateEmailException(DuplicateEmailException ex) {
+        log.error("Duplicate email: {}", ex.getMessage());
+        
+        Map<String, Object> error = Map.of(
+                "timestamp", LocalDateTime.now(),
+                "status", HttpStatus.CONFLICT.value(),
+                "error", "Conflict",
+                "message", ex.getMessage()
+        );
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, Object>> handleIllegalArgumentException(IllegalArgumentException ex) {
         log.error("Invalid argument: {}", ex.getMessage());
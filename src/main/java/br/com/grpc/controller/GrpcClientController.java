@@ -2,134 +2,152 @@ package br.com.grpc.controller;
 
 import br.com.grpc.client.UserGrpcClient;
 import br.com.grpc.user.proto.*;
+import br.com.grpc.mapper.UserJsonModule;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.StatusRuntimeException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
 
+/**
+ * Expõe o {@link UserGrpcClient} em REST. As respostas do gRPC vão direto para o JSON pelo
+ * {@link UserJsonModule}, sem cópia para {@code Map}s.
+ */
 @RestController
 @RequestMapping("/api/grpc-client")
 @RequiredArgsConstructor
 public class GrpcClientController {
 
+    private static final SerializedString SSE_USER = new SerializedString("event: user\ndata: ");
+    private static final SerializedString SSE_ERROR = new SerializedString("event: error\ndata: ");
+    private static final SerializedString SSE_END = new SerializedString("\n\n");
+    private static final SerializedString NDJSON_END = new SerializedString("\n");
+
     private final UserGrpcClient grpcClient;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/users")
-    public ResponseEntity<Map<String, Object>> createUser(@RequestParam String name, 
-                                 @RequestParam String email, 
-                                 @RequestParam int age,
-                                 @RequestParam UserStatus status) {
+    public ResponseEntity<Object> createUser(@RequestParam String name,
+                                             @RequestParam String email,
+                                             @RequestParam int age,
+                                             @RequestParam UserStatus status) {
         try {
-            UserResponse response = grpcClient.createUser(name, email, age, status);
-            Map<String, Object> result = Map.of(
-                "id", response.getId(),
-                "name", response.getName(),
-                "email", response.getEmail(),
-                "age", response.getAge(),
-                "status", response.getStatus().name(),
-                "createdAt", response.getCreatedAt(),
-                "updatedAt", response.getUpdatedAt()
-            );
-            return ResponseEntity.ok(result);
+            return ResponseEntity.ok(grpcClient.createUser(name, email, age, status));
         } catch (Exception e) {
-            return ResponseEntity.status(500)
-                .body(Map.of("error", "gRPC call failed: " + e.getMessage()));
+            return failed(e);
         }
     }
 
     @GetMapping("/users/{id}")
-    public ResponseEntity<Map<String, Object>> getUser(@PathVariable long id) {
+    public ResponseEntity<Object> getUser(@PathVariable long id) {
         try {
-            UserResponse response = grpcClient.getUser(id);
-            Map<String, Object> result = Map.of(
-                "id", response.getId(),
-                "name", response.getName(),
-                "email", response.getEmail(),
-                "age", response.getAge(),
-                "status", response.getStatus().name(),
-                "createdAt", response.getCreatedAt(),
-                "updatedAt", response.getUpdatedAt()
-            );
-            return ResponseEntity.ok(result);
+            return ResponseEntity.ok(grpcClient.getUser(id));
         } catch (Exception e) {
-            return ResponseEntity.status(500)
-                .body(Map.of("error", "gRPC call failed: " + e.getMessage()));
+            return failed(e);
         }
     }
 
     @GetMapping("/users")
-    public ResponseEntity<Map<String, Object>> listUsers(@RequestParam(defaultValue = "0") int page,
-                                     @RequestParam(defaultValue = "10") int size) {
+    public ResponseEntity<Object> listUsers(@RequestParam(defaultValue = "0") int page,
+                                            @RequestParam(defaultValue = "10") int size) {
         try {
-            ListUsersResponse response = grpcClient.listUsers(page, size);
-            List<Map<String, Object>> users = response.getUsersList().stream()
-                .map(user -> {
-                    Map<String, Object> userMap = new HashMap<>();
-                    userMap.put("id", user.getId());
-                    userMap.put("name", user.getName());
-                    userMap.put("email", user.getEmail());
-                    userMap.put("age", user.getAge());
-                    userMap.put("status", user.getStatus().name());
-                    return userMap;
-                })
-                .collect(Collectors.toList());
-            
-            Map<String, Object> result = new HashMap<>();
-            result.put("users", users);
-            result.put("totalCount", response.getTotalCount());
-            result.put("page", response.getPage());
-            result.put("size", response.getSize());
-            return ResponseEntity.ok(result);
+            return ResponseEntity.ok(grpcClient.listUsers(page, size));
         } catch (Exception e) {
-            return ResponseEntity.status(500)
-                .body(Map.of("error", "gRPC call failed: " + e.getMessage()));
+            return failed(e);
         }
     }
 
     @PutMapping("/users/{id}")
-    public ResponseEntity<Map<String, Object>> updateUser(@PathVariable long id,
-                                                        @RequestParam String name,
-                                                        @RequestParam String email,
-                                                        @RequestParam int age,
-                                                        @RequestParam UserStatus status) {
+    public ResponseEntity<Object> updateUser(@PathVariable long id,
+                                             @RequestParam String name,
+                                             @RequestParam String email,
+                                             @RequestParam int age,
+                                             @RequestParam UserStatus status) {
         try {
-            UserResponse response = grpcClient.updateUser(id, name, email, age, status);
-            Map<String, Object> result = Map.of(
-                "id", response.getId(),
-                "name", response.getName(),
-                "email", response.getEmail(),
-                "age", response.getAge(),
-                "status", response.getStatus().name(),
-                "createdAt", response.getCreatedAt(),
-                "updatedAt", response.getUpdatedAt()
-            );
-            return ResponseEntity.ok(result);
+            return ResponseEntity.ok(grpcClient.updateUser(id, name, email, age, status));
         } catch (Exception e) {
-            return ResponseEntity.status(500)
-                .body(Map.of("error", "gRPC call failed: " + e.getMessage()));
+            return failed(e);
         }
     }
 
     @DeleteMapping("/users/{id}")
-    public ResponseEntity<Map<String, Object>> deleteUser(@PathVariable long id) {
+    public ResponseEntity<Object> deleteUser(@PathVariable long id) {
         try {
-            DeleteUserResponse response = grpcClient.deleteUser(id);
-            Map<String, Object> result = Map.of(
-                "success", response.getSuccess(),
-                "message", response.getMessage()
-            );
-            return ResponseEntity.ok(result);
+            return ResponseEntity.ok(grpcClient.deleteUser(id));
         } catch (Exception e) {
-            return ResponseEntity.status(500)
-                .body(Map.of("error", "gRPC call failed: " + e.getMessage()));
+            return failed(e);
         }
     }
 
-    @GetMapping("/users/stream/{status}")
-    public String streamUsers(@PathVariable UserStatus status) {
-        grpcClient.streamUsersByStatus(status);
-        return "Check logs for streamed users";
+    private static ResponseEntity<Object> failed(Exception e) {
+        return ResponseEntity.status(500)
+            .body(Map.of("error", "gRPC call failed: " + e.getMessage()));
+    }
+
+    /**
+     * Repassa o stream {@code GetUsersByStatus} conforme os usuários chegam: NDJSON (um JSON por
+     * linha) por padrão, ou Server-Sent Events com {@code Accept: text/event-stream}. Cada usuário
+     * é escrito antes do próximo ser pedido ao servidor, então um cliente HTTP lento desacelera a
+     * chamada gRPC e a memória não cresce com o tamanho do resultado.
+     *
+     * <p>Um erro depois do início da resposta não pode mais mudar o status HTTP; sai como última
+     * linha {@code {"error": ...}} (ou evento {@code error} no SSE).
+     */
+    @GetMapping(value = "/users/stream/{status}",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<StreamingResponseBody> streamUsers(
+            @PathVariable UserStatus status,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean sse = accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(MediaType.TEXT_EVENT_STREAM::equalsTypeAndSubtype);
+        SerializedString end = sse ? SSE_END : NDJSON_END;
+        StreamingResponseBody body = out -> {
+            // Um gerador para o stream inteiro; em NDJSON ele e o buffer do Tomcat enviam em blocos
+            // conforme enchem
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.setRootValueSeparator(null);
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                try {
+                    grpcClient.streamUsersByStatus(status, user -> {
+                        try {
+                            if (sse) {
+                                json.writeRaw(SSE_USER);
+                            }
+                            UserJsonModule.writeUser(json, user);
+                            json.writeRaw(end);
+                            if (sse) {
+                                // Cada evento é entregue na hora; o EventSource não vê eventos parados no buffer
+                                json.flush();
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    // Cliente HTTP desconectou; a chamada gRPC já foi cancelada
+                    throw e.getCause();
+                } catch (StatusRuntimeException e) {
+                    if (sse) {
+                        json.writeRaw(SSE_ERROR);
+                    }
+                    json.writeStartObject();
+                    json.writeStringField("error", "gRPC call failed: " + e.getMessage());
+                    json.writeEndObject();
+                    json.writeRaw(end);
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(sse ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
-}
\ No newline at end of file
+}
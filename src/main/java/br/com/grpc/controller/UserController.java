@@ -1,6 +1,7 @@
 package br.com.grpc.controller;
 
 import br.com.grpc.model.User;
+import br.com.grpc.model.UserPage;
 import br.com.grpc.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -41,8 +42,17 @@ public class UserController {
         return ResponseEntity.ok(user);
     }
 
+    @GetMapping("/by-email")
+    public ResponseEntity<User> getUserByEmail(@RequestParam String email) {
+        log.info("REST: Getting user by email: {}", email);
+        User user = userService.getUserByEmail(email);
+        return ResponseEntity.ok(user);
+    }
+
     @PutMapping("/{id}")
-    public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody UpdateUserRequest request) {
+    public ResponseEntity<User> updateUser(@PathVariable Long id,
+                                           @RequestParam(required = false) Long expectedVersion,
+                                           @RequestBody UpdateUserRequest request) {
         log.info("REST: Updating user: {}", id);
         
         User user = User.builder()
@@ -53,14 +63,15 @@ public class UserController {
                 .status(User.UserStatus.valueOf(request.getStatus().toUpperCase()))
                 .build();
         
-        User updatedUser = userService.updateUser(user);
+        User updatedUser = userService.updateUser(user, expectedVersion);
         return ResponseEntity.ok(updatedUser);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> deleteUser(@PathVariable Long id) {
+    public ResponseEntity<Map<String, Object>> deleteUser(@PathVariable Long id,
+                                                          @RequestParam(required = false) Long expectedVersion) {
         log.info("REST: Deleting user: {}", id);
-        boolean deleted = userService.deleteUser(id);
+        boolean deleted = userService.deleteUser(id, expectedVersion);
         
         Map<String, Object> response = Map.of(
                 "success", deleted,
@@ -73,14 +84,24 @@ public class UserController {
     @GetMapping
     public ResponseEntity<PagedResponse<User>> listUsers(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String pageToken) {
         
-        log.info("REST: Listing users - page: {}, size: {}", page, size);
+        log.info("REST: Listing users - page: {}, size: {}, pageToken: {}", page, size, pageToken);
         
-        List<User> users = userService.getAllUsers(page, size);
+        List<User> users;
+        String nextPageToken;
+        if (pageToken == null || pageToken.isEmpty()) {
+            users = userService.getAllUsers(page, size);
+            nextPageToken = userService.nextPageToken(users);
+        } else {
+            UserPage userPage = userService.getUsersAfter(pageToken, size);
+            users = userPage.getUsers();
+            nextPageToken = userPage.getNextPageToken();
+        }
         long totalCount = userService.getTotalCount();
         
-        PagedResponse<User> response = new PagedResponse<>(users, totalCount, page, size);
+        PagedResponse<User> response = new PagedResponse<>(users, totalCount, page, size, nextPageToken);
         return ResponseEntity.ok(response);
     }
 
@@ -134,12 +155,18 @@ public class UserController {
         private long totalElements;
         private int page;
         private int size;
+        private String nextPageToken;
 
         public PagedResponse(List<T> content, long totalElements, int page, int size) {
+            this(content, totalElements, page, size, null);
+        }
+
+        public PagedResponse(List<T> content, long totalElements, int page, int size, String nextPageToken) {
             this.content = content;
             this.totalElements = totalElements;
             this.page = page;
             this.size = size;
+            this.nextPageToken = nextPageToken;
         }
 
         // Getters e Setters
@@ -151,5 +178,7 @@ public class UserController {
         public void setPage(int page) { this.page = page; }
         public int getSize() { return size; }
         public void setSize(int size) { this.size = size; }
+        public String getNextPageToken() { return nextPageToken; }
+        public void setNextPageToken(String nextPageToken) { this.nextPageToken = nextPageToken; }
     }
 }
\ No newline at end of file
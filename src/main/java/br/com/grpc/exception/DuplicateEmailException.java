@@ -0,0 +1,7 @@
+package br.com.grpc.exception;
+
+public class DuplicateEmailException extends RuntimeException {
+    public DuplicateEmailException(String email) {
+        super("Email already in use: " + email);
+    }
+}
@@ -1,7 +1,18 @@
 package br.com.grpc.exception;
 
+import java.util.List;
+
+/**
+ * Dados de entrada inválidos. Vira INVALID_ARGUMENT/400 e só a mensagem é registrada, então a
+ * exceção não captura stack trace.
+ */
 public class InvalidUserDataException extends RuntimeException {
     public InvalidUserDataException(String message) {
-        super(message);
+        super(message, null, false, false);
+    }
+
+    // Todas as violações numa mensagem só, separadas por "; "
+    public InvalidUserDataException(List<String> violations) {
+        this(String.join("; ", violations));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package br.com.grpc.exception;
+
+/**
+ * Gravação condicional recusada porque o usuário já está em outra versão. Esperada sob
+ * disputa: quem recebe relê e tenta de novo, por isso não captura stack trace.
+ */
+public class VersionConflictException extends RuntimeException {
+
+    private final long currentVersion;
+
+    public VersionConflictException(Long id, long expectedVersion, long currentVersion) {
+        super("Version conflict for user " + id + ": expected " + expectedVersion + ", current " + currentVersion,
+                null, false, false);
+        this.currentVersion = currentVersion;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
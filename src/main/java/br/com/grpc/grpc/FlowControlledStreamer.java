@@ -0,0 +1,65 @@
+package br.com.grpc.grpc;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * Envia os itens de um {@link Iterator} respeitando o controle de fluxo do transporte:
+ * só puxa o próximo item da origem enquanto {@code isReady()} for verdadeiro, e para
+ * assim que a chamada é cancelada ou o deadline expira.
+ */
+@Slf4j
+final class FlowControlledStreamer<S, T> implements Runnable {
+
+    private final ServerCallStreamObserver<T> observer;
+    private final Iterator<S> source;
+    private final Function<S, T> mapper;
+    private boolean done;
+
+    private FlowControlledStreamer(ServerCallStreamObserver<T> observer, Iterator<S> source, Function<S, T> mapper) {
+        this.observer = observer;
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    static <S, T> void stream(StreamObserver<T> responseObserver, Iterator<S> source, Function<S, T> mapper) {
+        ServerCallStreamObserver<T> observer = (ServerCallStreamObserver<T>) responseObserver;
+        FlowControlledStreamer<S, T> streamer = new FlowControlledStreamer<>(observer, source, mapper);
+        // Sem handler de cancelamento o onNext lançaria CANCELLED; aqui basta parar de produzir
+        observer.setOnCancelHandler(() -> log.debug("Stream cancelled by client or deadline"));
+        observer.setOnReadyHandler(streamer);
+    }
+
+    // Callbacks de uma mesma chamada são serializados pelo gRPC, então "done" não precisa de sincronização
+    @Override
+    public void run() {
+        if (done) {
+            return;
+        }
+        try {
+            while (observer.isReady()) {
+                if (observer.isCancelled()) {
+                    done = true;
+                    return;
+                }
+                if (!source.hasNext()) {
+                    done = true;
+                    observer.onCompleted();
+                    return;
+                }
+                observer.onNext(mapper.apply(source.next()));
+            }
+        } catch (Exception e) {
+            log.error("Error streaming response", e);
+            done = true;
+            observer.onError(Status.INTERNAL
+                    .withDescription("Internal server error")
+                    .asRuntimeException());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package br.com.grpc.grpc;
+
+import br.com.grpc.mapper.UserMapper;
+import br.com.grpc.model.User;
+import br.com.grpc.model.UserBatchResult;
+import br.com.grpc.service.UserService;
+import br.com.grpc.user.proto.CreateUserRequest;
+import br.com.grpc.user.proto.ImportError;
+import br.com.grpc.user.proto.ImportUsersResponse;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lado servidor do ImportUsers. O controle de fluxo de entrada é manual: o servidor
+ * pede {@code batchSize} linhas, grava o lote e só então pede as próximas, de modo que
+ * um produtor rápido nunca tem mais do que um lote em trânsito ou em memória.
+ */
+@Slf4j
+final class ImportUsersObserver implements StreamObserver<CreateUserRequest> {
+
+    private final ServerCallStreamObserver<ImportUsersResponse> responseObserver;
+    private final UserService userService;
+    private final UserMapper userMapper;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    private final List<User> buffer;
+    private final ImportUsersResponse.Builder summary = ImportUsersResponse.newBuilder();
+    private long rows;
+    private long accepted;
+    private long rejected;
+    private boolean started;
+    private boolean failed;
+
+    ImportUsersObserver(StreamObserver<ImportUsersResponse> responseObserver, UserService userService,
+                        UserMapper userMapper, int batchSize, int maxReportedErrors) {
+        this.responseObserver = (ServerCallStreamObserver<ImportUsersResponse>) responseObserver;
+        this.userService = userService;
+        this.userMapper = userMapper;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.buffer = new ArrayList<>(batchSize);
+
+        this.responseObserver.disableAutoRequest();
+        // O primeiro lote é pedido quando a chamada fica pronta, como no exemplo de controle de fluxo manual do grpc-java
+        this.responseObserver.setOnReadyHandler(() -> {
+            if (!started) {
+                started = true;
+                this.responseObserver.request(batchSize);
+            }
+        });
+    }
+
+    @Override
+    public void onNext(CreateUserRequest request) {
+        if (failed) {
+            return;
+        }
+        buffer.add(userMapper.toEntity(request));
+        rows++;
+        if (buffer.size() >= batchSize) {
+            flush();
+            if (!failed) {
+                responseObserver.request(batchSize);
+            }
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log.warn("Import stream aborted by client after {} rows: {}", rows, t.getMessage());
+        buffer.clear();
+    }
+
+    @Override
+    public void onCompleted() {
+        if (failed) {
+            return;
+        }
+        flush();
+        if (failed) {
+            return;
+        }
+        log.info("gRPC importUsers finished - accepted: {}, rejected: {}", accepted, rejected);
+        responseObserver.onNext(summary
+                .setAcceptedCount(accepted)
+                .setRejectedCount(rejected)
+                .build());
+        responseObserver.onCompleted();
+    }
+
+    private void flush() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        long firstIndex = rows - buffer.size();
+        try {
+            List<UserBatchResult> results = userService.importUsers(buffer);
+            for (int i = 0; i < results.size(); i++) {
+                UserBatchResult result = results.get(i);
+                if (result.isSuccess()) {
+                    accepted++;
+                } else {
+                    rejected++;
+                    recordError(firstIndex + i, result.getErrorMessage());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error importing users", e);
+            failed = true;
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Import failed after " + accepted + " accepted rows")
+                    .asRuntimeException());
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private void recordError(long index, String message) {
+        if (summary.getErrorsCount() < maxReportedErrors) {
+            summary.addErrors(ImportError.newBuilder()
+                    .setIndex(index)
+                    .setMessage(message));
+        } else {
+            summary.setErrorsTruncated(true);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package br.com.grpc.grpc;
+
+import br.com.grpc.user.proto.ListUsersResponse;
+import br.com.grpc.user.proto.UserResponse;
+import br.com.grpc.user.proto.UserServiceGrpc;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.ServiceDescriptor;
+import io.grpc.protobuf.ProtoUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Marshallers de resposta que mandam para o transporte os bytes de {@link UserResponse} já
+ * serializados pelo cache de respostas, em vez de serializar a mensagem a cada envio.
+ *
+ * <p>O formato na rede é o mesmo do marshaller padrão: um {@code ListUsersResponse} é
+ * escrito campo a campo na ordem dos números, como o código gerado faz, com cada usuário
+ * copiado do cache. Respostas que não vieram do cache seguem pelo caminho normal.
+ */
+public final class PreEncodedMarshallers {
+
+    // Leituras que repetem os mesmos usuários; escritas sempre montam uma versão nova
+    private static final Set<String> READ_METHODS = Set.of(
+            UserServiceGrpc.getGetUserMethod().getFullMethodName(),
+            UserServiceGrpc.getGetUserByEmailMethod().getFullMethodName(),
+            UserServiceGrpc.getGetUsersByStatusMethod().getFullMethodName(),
+            UserServiceGrpc.getListUsersMethod().getFullMethodName());
+
+    private static final int USERS_TAG =
+            ListUsersResponse.USERS_FIELD_NUMBER << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+    private PreEncodedMarshallers() {
+    }
+
+    /**
+     * Troca o marshaller de resposta dos métodos de leitura. O descritor do serviço é
+     * recriado com os mesmos métodos e o mesmo schema, então a reflection continua igual.
+     */
+    static ServerServiceDefinition bind(ServerServiceDefinition definition, Function<UserResponse, byte[]> encoded) {
+        ServiceDescriptor original = definition.getServiceDescriptor();
+        ServiceDescriptor.Builder descriptor = ServiceDescriptor.newBuilder(original.getName())
+                .setSchemaDescriptor(original.getSchemaDescriptor());
+        List<ServerMethodDefinition<?, ?>> methods = definition.getMethods().stream()
+                .map(method -> READ_METHODS.contains(method.getMethodDescriptor().getFullMethodName())
+                        ? rebind(method, encoded)
+                        : method)
+                .toList();
+        methods.forEach(method -> descriptor.addMethod(method.getMethodDescriptor()));
+
+        ServerServiceDefinition.Builder builder = ServerServiceDefinition.builder(descriptor.build());
+        methods.forEach(builder::addMethod);
+        return builder.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <ReqT, RespT> ServerMethodDefinition<ReqT, RespT> rebind(
+            ServerMethodDefinition<ReqT, RespT> method, Function<UserResponse, byte[]> encoded) {
+        MethodDescriptor<ReqT, RespT> descriptor = method.getMethodDescriptor();
+        MethodDescriptor.Marshaller<?> marshaller =
+                descriptor.getFullMethodName().equals(UserServiceGrpc.getListUsersMethod().getFullMethodName())
+                        ? listUsersResponse(encoded)
+                        : userResponse(encoded);
+        return ServerMethodDefinition.create(
+                descriptor.toBuilder(descriptor.getRequestMarshaller(), (MethodDescriptor.Marshaller<RespT>) marshaller)
+                        .build(),
+                method.getServerCallHandler());
+    }
+
+    public static MethodDescriptor.Marshaller<UserResponse> userResponse(Function<UserResponse, byte[]> encoded) {
+        MethodDescriptor.Marshaller<UserResponse> proto = ProtoUtils.marshaller(UserResponse.getDefaultInstance());
+        return new MethodDescriptor.PrototypeMarshaller<>() {
+            @Override
+            public InputStream stream(UserResponse value) {
+                byte[] bytes = encoded.apply(value);
+                return bytes != null ? new PreEncodedStream(List.of(bytes), null) : proto.stream(value);
+            }
+
+            @Override
+            public UserResponse parse(InputStream stream) {
+                return proto.parse(stream);
+            }
+
+            @Override
+            public UserResponse getMessagePrototype() {
+                return UserResponse.getDefaultInstance();
+            }
+
+            @Override
+            public Class<UserResponse> getMessageClass() {
+                return UserResponse.class;
+            }
+        };
+    }
+
+    public static MethodDescriptor.Marshaller<ListUsersResponse> listUsersResponse(
+            Function<UserResponse, byte[]> encoded) {
+        MethodDescriptor.Marshaller<ListUsersResponse> proto = ProtoUtils.marshaller(ListUsersResponse.getDefaultInstance());
+        return new MethodDescriptor.PrototypeMarshaller<>() {
+            @Override
+            public InputStream stream(ListUsersResponse value) {
+                if (!value.getUnknownFields().asMap().isEmpty()) {
+                    return proto.stream(value);
+                }
+                List<UserResponse> users = value.getUsersList();
+                byte[][] parts = new byte[users.size()][];
+                for (int i = 0; i < parts.length; i++) {
+                    byte[] bytes = encoded.apply(users.get(i));
+                    parts[i] = bytes != null ? bytes : users.get(i).toByteArray();
+                }
+                return new PreEncodedStream(List.of(parts), trailer(value));
+            }
+
+            @Override
+            public ListUsersResponse parse(InputStream stream) {
+                return proto.parse(stream);
+            }
+
+            @Override
+            public ListUsersResponse getMessagePrototype() {
+                return ListUsersResponse.getDefaultInstance();
+            }
+
+            @Override
+            public Class<ListUsersResponse> getMessageClass() {
+                return ListUsersResponse.class;
+            }
+        };
+    }
+
+    // Campos 2 a 5 do ListUsersResponse, omitindo valores padrão como o proto3 faz
+    private static byte[] trailer(ListUsersResponse value) {
+        int size = 0;
+        if (value.getTotalCount() != 0) {
+            size += CodedOutputStream.computeInt32Size(ListUsersResponse.TOTAL_COUNT_FIELD_NUMBER, value.getTotalCount());
+        }
+        if (value.getPage() != 0) {
+            size += CodedOutputStream.computeInt32Size(ListUsersResponse.PAGE_FIELD_NUMBER, value.getPage());
+        }
+        if (value.getSize() != 0) {
+            size += CodedOutputStream.computeInt32Size(ListUsersResponse.SIZE_FIELD_NUMBER, value.getSize());
+        }
+        if (!value.getNextPageToken().isEmpty()) {
+            size += CodedOutputStream.computeStringSize(ListUsersResponse.NEXT_PAGE_TOKEN_FIELD_NUMBER,
+                    value.getNextPageToken());
+        }
+        byte[] trailer = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(trailer);
+        try {
+            if (value.getTotalCount() != 0) {
+                out.writeInt32(ListUsersResponse.TOTAL_COUNT_FIELD_NUMBER, value.getTotalCount());
+            }
+            if (value.getPage() != 0) {
+                out.writeInt32(ListUsersResponse.PAGE_FIELD_NUMBER, value.getPage());
+            }
+            if (value.getSize() != 0) {
+                out.writeInt32(ListUsersResponse.SIZE_FIELD_NUMBER, value.getSize());
+            }
+            if (!value.getNextPageToken().isEmpty()) {
+                out.writeString(ListUsersResponse.NEXT_PAGE_TOKEN_FIELD_NUMBER, value.getNextPageToken());
+            }
+            out.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode ListUsersResponse fields", e);
+        }
+        return trailer;
+    }
+
+    /**
+     * Mensagem já serializada. Com {@code trailer == null} é um único {@link UserResponse};
+     * caso contrário, cada parte é um usuário do campo repetido, seguido dos demais campos.
+     * O framer do gRPC usa {@link #drainTo} e copia as partes direto no buffer do transporte.
+     */
+    static final class PreEncodedStream extends InputStream implements Drainable, KnownLength {
+
+        private final List<byte[]> parts;
+        private final byte[] trailer;
+        private final int length;
+        private InputStream fallback;
+        private boolean drained;
+
+        PreEncodedStream(List<byte[]> parts, byte[] trailer) {
+            this.parts = parts;
+            this.trailer = trailer;
+            int total = trailer == null ? 0 : trailer.length;
+            for (byte[] part : parts) {
+                total += part.length;
+                if (trailer != null) {
+                    total += CodedOutputStream.computeUInt32SizeNoTag(USERS_TAG)
+                            + CodedOutputStream.computeUInt32SizeNoTag(part.length);
+                }
+            }
+            this.length = total;
+        }
+
+        @Override
+        public int drainTo(OutputStream target) throws IOException {
+            if (drained || fallback != null) {
+                throw new IllegalStateException("Stream already consumed");
+            }
+            drained = true;
+            if (trailer == null) {
+                target.write(parts.get(0));
+                return length;
+            }
+            byte[] prefix = new byte[10];
+            for (byte[] part : parts) {
+                int size = putVarint(prefix, 0, USERS_TAG);
+                size = putVarint(prefix, size, part.length);
+                target.write(prefix, 0, size);
+                target.write(part);
+            }
+            target.write(trailer);
+            return length;
+        }
+
+        @Override
+        public int available() throws IOException {
+            if (fallback != null) {
+                return fallback.available();
+            }
+            return drained ? 0 : length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fallback().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return fallback().read(b, off, len);
+        }
+
+        // Leitura byte a byte só acontece fora do framer do gRPC; materializa uma vez
+        private InputStream fallback() throws IOException {
+            if (fallback == null) {
+                if (drained) {
+                    return InputStream.nullInputStream();
+                }
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(length);
+                drainTo(bytes);
+                fallback = new ByteArrayInputStream(bytes.toByteArray());
+            }
+            return fallback;
+        }
+
+        private static int putVarint(byte[] buffer, int position, int value) {
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+            return position;
+        }
+    }
+}
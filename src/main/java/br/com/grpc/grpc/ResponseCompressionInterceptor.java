@@ -0,0 +1,85 @@
+package br.com.grpc.grpc;
+
+import br.com.grpc.config.CompressionProperties;
+import com.google.protobuf.MessageLite;
+import io.grpc.Codec;
+import io.grpc.CompressorRegistry;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.grpc.server.GlobalServerInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Política de compressão das respostas: cada método tem seu codec e, dentro de uma chamada
+ * comprimida, mensagens abaixo de {@code grpc.compression.min-size} saem sem compressão. Num
+ * stream a decisão é por mensagem, porque o gRPC comprime cada mensagem separadamente.
+ *
+ * <p>Se o cliente não anunciar o codec em {@code grpc-accept-encoding}, o gRPC responde sem
+ * compressão.
+ */
+@Slf4j
+@Component
+@GlobalServerInterceptor
+public class ResponseCompressionInterceptor implements ServerInterceptor {
+
+    private static final String IDENTITY = Codec.Identity.NONE.getMessageEncoding();
+
+    private final Map<String, String> codecs;
+    private final String defaultCodec;
+    private final int minSize;
+
+    public ResponseCompressionInterceptor(CompressionProperties properties) {
+        CompressorRegistry registry = CompressorRegistry.getDefaultInstance();
+        this.codecs = new HashMap<>(properties.getMethods());
+        this.defaultCodec = properties.getDefaultCodec();
+        this.minSize = Math.toIntExact(properties.getMinSize().toBytes());
+        // Codec desconhecido só apareceria como erro na primeira chamada; melhor falhar ao subir
+        codecs.forEach((method, codec) -> requireRegistered(registry, codec));
+        requireRegistered(registry, defaultCodec);
+        log.info("gRPC response compression: {} by default, per method {}, min size {}",
+                defaultCodec, codecs, properties.getMinSize());
+    }
+
+    private static void requireRegistered(CompressorRegistry registry, String codec) {
+        if (!codec.equals(IDENTITY) && registry.lookupCompressor(codec) == null) {
+            throw new IllegalArgumentException("Unknown gRPC compression codec: " + codec);
+        }
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        String codec = codecs.getOrDefault(call.getMethodDescriptor().getBareMethodName(), defaultCodec);
+        if (codec.equals(IDENTITY)) {
+            return next.startCall(call, headers);
+        }
+        call.setCompression(codec);
+        return next.startCall(new ThresholdCall<>(call, minSize), headers);
+    }
+
+    private static final class ThresholdCall<ReqT, RespT>
+            extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+
+        private final int minSize;
+
+        ThresholdCall(ServerCall<ReqT, RespT> delegate, int minSize) {
+            super(delegate);
+            this.minSize = minSize;
+        }
+
+        @Override
+        public void sendMessage(RespT message) {
+            // O tamanho serializado fica memorizado na mensagem, então o marshaller não o recalcula
+            boolean large = !(message instanceof MessageLite lite) || lite.getSerializedSize() >= minSize;
+            delegate().setMessageCompression(large);
+            super.sendMessage(message);
+        }
+    }
+}
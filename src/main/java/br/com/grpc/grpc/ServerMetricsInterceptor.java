@@ -0,0 +1,194 @@
+package br.com.grpc.grpc;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.grpc.server.GlobalServerInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Métricas por método do servidor gRPC, em {@code /actuator/metrics}:
+ * <ul>
+ *   <li>{@code grpc.server.call.duration}: latência com p50/p99/p999 (histograma HDR, 2 dígitos)</li>
+ *   <li>{@code grpc.server.calls.active}: chamadas em andamento</li>
+ *   <li>{@code grpc.server.request.size} e {@code grpc.server.response.size}: bytes de cada
+ *   mensagem serializada, antes da compressão</li>
+ *   <li>{@code grpc.server.calls}: chamadas encerradas por {@code status}</li>
+ * </ul>
+ *
+ * <p>Os medidores de um método são criados na primeira chamada e reaproveitados; o caminho de
+ * gravação não monta tags nem procura medidores no registry. Por chamada ficam só os dois
+ * wrappers de call e listener. É o interceptor mais externo, então a latência inclui os demais.
+ */
+@Component
+@GlobalServerInterceptor
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServerMetricsInterceptor implements ServerInterceptor {
+
+    private final MeterRegistry registry;
+    private final Map<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    public ServerMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        MethodDescriptor<ReqT, RespT> method = call.getMethodDescriptor();
+        // get antes do computeIfAbsent: a lambda capturaria variáveis e seria alocada a cada chamada
+        MethodMetrics metrics = methods.get(method.getFullMethodName());
+        if (metrics == null) {
+            metrics = methods.computeIfAbsent(method.getFullMethodName(), name -> new MethodMetrics(registry, method));
+        }
+        MetricsCall<ReqT, RespT> metricsCall = new MetricsCall<>(call, metrics);
+        try {
+            return new MetricsListener<>(next.startCall(metricsCall, headers), metricsCall);
+        } catch (RuntimeException e) {
+            // O gRPC fecha a chamada sem passar pelo wrapper
+            metricsCall.finish(Status.fromThrowable(e).getCode());
+            throw e;
+        }
+    }
+
+    private static int sizeOf(Object message) {
+        // Tamanho memorizado na mensagem; o marshaller usa o mesmo valor ao serializar
+        return message instanceof MessageLite lite ? lite.getSerializedSize() : 0;
+    }
+
+    private static final class MethodMetrics {
+        private static final Status.Code[] CODES = Status.Code.values();
+
+        private final MeterRegistry registry;
+        private final Tags tags;
+        private final Timer duration;
+        private final DistributionSummary requestSize;
+        private final DistributionSummary responseSize;
+        private final AtomicInteger active = new AtomicInteger();
+        // Um contador por código de status, registrado quando o código aparece pela primeira vez
+        private final AtomicReferenceArray<Counter> calls = new AtomicReferenceArray<>(CODES.length);
+
+        MethodMetrics(MeterRegistry registry, MethodDescriptor<?, ?> method) {
+            this.registry = registry;
+            this.tags = Tags.of("service", method.getServiceName(), "method", method.getBareMethodName());
+            this.duration = Timer.builder("grpc.server.call.duration")
+                    .description("Server-side gRPC call latency, from start to close or cancel")
+                    .tags(tags)
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .percentilePrecision(2)
+                    .register(registry);
+            this.requestSize = DistributionSummary.builder("grpc.server.request.size")
+                    .description("Serialized size of each request message")
+                    .baseUnit("bytes")
+                    .tags(tags)
+                    .register(registry);
+            this.responseSize = DistributionSummary.builder("grpc.server.response.size")
+                    .description("Serialized size of each response message, before compression")
+                    .baseUnit("bytes")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("grpc.server.calls.active", active, AtomicInteger::get)
+                    .description("gRPC calls in flight")
+                    .tags(tags)
+                    .register(registry);
+        }
+
+        Counter calls(Status.Code code) {
+            Counter counter = calls.get(code.ordinal());
+            if (counter == null) {
+                counter = Counter.builder("grpc.server.calls")
+                        .description("Completed gRPC calls by status code")
+                        .tags(tags)
+                        .tag("status", code.name())
+                        .register(registry);
+                calls.set(code.ordinal(), counter);
+            }
+            return counter;
+        }
+    }
+
+    private static final class MetricsCall<ReqT, RespT> extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<MetricsCall> FINISHED =
+                AtomicIntegerFieldUpdater.newUpdater(MetricsCall.class, "finished");
+
+        private final MethodMetrics metrics;
+        private final long startNanos;
+        // Close e cancelamento podem chegar os dois; só o primeiro grava
+        private volatile int finished;
+
+        MetricsCall(ServerCall<ReqT, RespT> delegate, MethodMetrics metrics) {
+            super(delegate);
+            this.metrics = metrics;
+            this.startNanos = System.nanoTime();
+            metrics.active.incrementAndGet();
+        }
+
+        @Override
+        public void sendMessage(RespT message) {
+            metrics.responseSize.record(sizeOf(message));
+            super.sendMessage(message);
+        }
+
+        // Grava antes de repassar: o cliente pode receber o status antes de o close retornar
+        @Override
+        public void close(Status status, Metadata trailers) {
+            finish(status.getCode());
+            super.close(status, trailers);
+        }
+
+        void finish(Status.Code code) {
+            if (FINISHED.compareAndSet(this, 0, 1)) {
+                metrics.active.decrementAndGet();
+                metrics.duration.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                metrics.calls(code).increment();
+            }
+        }
+    }
+
+    private static final class MetricsListener<ReqT> extends ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT> {
+        private final MetricsCall<ReqT, ?> call;
+
+        MetricsListener(ServerCall.Listener<ReqT> delegate, MetricsCall<ReqT, ?> call) {
+            super(delegate);
+            this.call = call;
+        }
+
+        @Override
+        public void onMessage(ReqT message) {
+            call.metrics.requestSize.record(sizeOf(message));
+            super.onMessage(message);
+        }
+
+        // Deadline vencido também chega como cancelamento; o contexto da chamada diz qual foi
+        @Override
+        public void onCancel() {
+            Deadline deadline = Context.current().getDeadline();
+            call.finish(deadline != null && deadline.isExpired() ? Status.Code.DEADLINE_EXCEEDED : Status.Code.CANCELLED);
+            super.onCancel();
+        }
+    }
+}
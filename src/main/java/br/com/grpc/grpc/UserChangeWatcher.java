@@ -0,0 +1,110 @@
+package br.com.grpc.grpc;
+
+import br.com.grpc.mapper.UserMapper;
+import br.com.grpc.model.UserChange;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.user.proto.ChangeType;
+import br.com.grpc.user.proto.UserChangeEvent;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Um WatchUsers em andamento. Não há fila por watcher: cada um guarda apenas o cursor
+ * e lê direto do {@link UserChangeLog} enquanto o transporte estiver pronto. Quem fica
+ * para trás a ponto de o cursor ser sobrescrito recebe OUT_OF_RANGE.
+ */
+@Slf4j
+final class UserChangeWatcher {
+
+    private final ServerCallStreamObserver<UserChangeEvent> observer;
+    private final UserChangeLog changeLog;
+    private final UserMapper userMapper;
+    private final Executor executor;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Runnable wakeUp = this::schedule;
+    private final Consumer<UserChange> onChange = change -> schedule();
+    private volatile boolean closed;
+    private long cursor;
+
+    private UserChangeWatcher(ServerCallStreamObserver<UserChangeEvent> observer, UserChangeLog changeLog,
+                              UserMapper userMapper, Executor executor, long fromSequence) {
+        this.observer = observer;
+        this.changeLog = changeLog;
+        this.userMapper = userMapper;
+        this.executor = executor;
+        this.cursor = fromSequence > 0 ? fromSequence : changeLog.latestSequence() + 1;
+    }
+
+    static void watch(StreamObserver<UserChangeEvent> responseObserver, UserChangeLog changeLog,
+                      UserMapper userMapper, Executor executor, long fromSequence) {
+        ServerCallStreamObserver<UserChangeEvent> observer = (ServerCallStreamObserver<UserChangeEvent>) responseObserver;
+        UserChangeWatcher watcher = new UserChangeWatcher(observer, changeLog, userMapper, executor, fromSequence);
+        observer.setOnCancelHandler(watcher::close);
+        observer.setOnReadyHandler(watcher.wakeUp);
+        changeLog.addListener(watcher.onChange);
+    }
+
+    // Chamado na thread de escrita do repositório ou do gRPC: só agenda, nunca envia
+    private void schedule() {
+        if (!closed && scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private synchronized void drain() {
+        scheduled.set(false);
+        try {
+            while (!closed && observer.isReady()) {
+                UserChange change = changeLog.get(cursor);
+                if (change == null) {
+                    if (cursor > changeLog.latestSequence()) {
+                        return;
+                    }
+                    resyncRequired();
+                    return;
+                }
+                observer.onNext(toProto(change));
+                cursor++;
+            }
+        } catch (Exception e) {
+            log.error("Error streaming user changes", e);
+            close();
+            observer.onError(Status.INTERNAL
+                    .withDescription("Internal server error")
+                    .asRuntimeException());
+        }
+    }
+
+    private void resyncRequired() {
+        long oldest = changeLog.oldestSequence();
+        log.warn("Watcher fell behind the change log at sequence {} (oldest retained: {})", cursor, oldest);
+        close();
+        observer.onError(Status.OUT_OF_RANGE
+                .withDescription("Resync required: sequence " + cursor
+                        + " is no longer retained, oldest available is " + oldest)
+                .asRuntimeException());
+    }
+
+    private void close() {
+        closed = true;
+        changeLog.removeListener(onChange);
+    }
+
+    private UserChangeEvent toProto(UserChange change) {
+        UserChangeEvent.Builder event = UserChangeEvent.newBuilder()
+                .setSequence(change.getSequence())
+                .setUserId(change.getUserId());
+        if (change.getType() == UserChange.Type.DELETED) {
+            event.setType(ChangeType.USER_DELETED);
+        } else {
+            event.setType(ChangeType.USER_UPSERTED).setUser(userMapper.toProto(change.getUser()));
+        }
+        return event.build();
+    }
+}
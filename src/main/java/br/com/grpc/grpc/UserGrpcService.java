@@ -1,26 +1,46 @@
 package br.com.grpc.grpc;
 
+import br.com.grpc.config.ImportProperties;
+import br.com.grpc.exception.DuplicateEmailException;
 import br.com.grpc.exception.InvalidUserDataException;
 import br.com.grpc.exception.UserNotFoundException;
+import br.com.grpc.exception.VersionConflictException;
 import br.com.grpc.mapper.UserMapper;
 import br.com.grpc.model.User;
+import br.com.grpc.model.UserBatchResult;
+import br.com.grpc.model.UserPage;
 import br.com.grpc.service.UserService;
 import br.com.grpc.user.proto.*;
+import io.grpc.BindableService;
+import io.grpc.ServerServiceDefinition;
 import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.grpc.server.service.GrpcService;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Slf4j
 @GrpcService
 @RequiredArgsConstructor
-public class UserGrpcService extends UserServiceGrpc.UserServiceImplBase {
+public class UserGrpcService implements UserServiceGrpc.AsyncService, BindableService {
 
     private final UserService userService;
     private final UserMapper userMapper;
+    private final ImportProperties importProperties;
+    // Entrega dos eventos do WatchUsers fora da thread que grava no repositório
+    private final ExecutorService watchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Mesmo binding do UserServiceImplBase, mas as leituras mandam os bytes já serializados do cache
+    @Override
+    public ServerServiceDefinition bindService() {
+        return PreEncodedMarshallers.bind(UserServiceGrpc.bindService(this), userMapper::encoded);
+    }
 
     @Override
     public void createUser(CreateUserRequest request, StreamObserver<UserResponse> responseObserver) {
@@ -37,6 +57,11 @@ public class UserGrpcService extends UserServiceGrpc.UserServiceImplBase {
             responseObserver.onError(Status.INVALID_ARGUMENT
                     .withDescription(e.getMessage())
                     .asRuntimeException());
+        } catch (DuplicateEmailException e) {
+            log.error("Duplicate email: {}", e.getMessage());
+            responseObserver.onError(Status.ALREADY_EXISTS
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
         } catch (Exception e) {
             log.error("Error creating user", e);
             responseObserver.onError(Status.INTERNAL
@@ -67,12 +92,40 @@ public class UserGrpcService extends UserServiceGrpc.UserServiceImplBase {
         }
     }
 
+    @Override
+    public void getUserByEmail(GetUserByEmailRequest request, StreamObserver<UserResponse> responseObserver) {
+        try {
+            log.info("gRPC getUserByEmail called for: {}", request.getEmail());
+            User user = userService.getUserByEmail(request.getEmail());
+            UserResponse response = userMapper.toProto(user);
+
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
+        } catch (InvalidUserDataException e) {
+            log.error("Invalid user data: {}", e.getMessage());
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+        } catch (UserNotFoundException e) {
+            log.error("User not found: {}", e.getMessage());
+            responseObserver.onError(Status.NOT_FOUND
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+        } catch (Exception e) {
+            log.error("Error getting user by email", e);
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Internal server error")
+                    .asRuntimeException());
+        }
+    }
+
     @Override
     public void updateUser(UpdateUserRequest request, StreamObserver<UserResponse> responseObserver) {
         try {
             log.info("gRPC updateUser called for id: {}", request.getId());
             User user = userMapper.toEntity(request);
-            User updatedUser = userService.updateUser(user);
+            User updatedUser = userService.updateUser(user,
+                    request.hasExpectedVersion() ? request.getExpectedVersion() : null);
             UserResponse response = userMapper.toProto(updatedUser);
             
             responseObserver.onNext(response);
@@ -87,6 +140,17 @@ public class UserGrpcService extends UserServiceGrpc.UserServiceImplBase {
             responseObserver.onError(Status.INVALID_ARGUMENT
                     .withDescription(e.getMessage())
                     .asRuntimeException());
+        } catch (DuplicateEmailException e) {
+            log.error("Duplicate email: {}", e.getMessage());
+            responseObserver.onError(Status.ALREADY_EXISTS
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+        } catch (VersionConflictException e) {
+            // Esperado sob disputa: o cliente relê e tenta de novo
+            log.debug("Version conflict: {}", e.getMessage());
+            responseObserver.onError(Status.ABORTED
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
         } catch (Exception e) {
             log.error("Error updating user", e);
             responseObserver.onError(Status.INTERNAL
@@ -99,7 +163,8 @@ public class UserGrpcService extends UserServiceGrpc.UserServiceImplBase {
     public void deleteUser(DeleteUserRequest request, StreamObserver<DeleteUserResponse> responseObserver) {
         try {
             log.info("gRPC deleteUser called for id: {}", request.getId());
-            boolean deleted = userService.deleteUser(request.getId());
+            boolean deleted = userService.deleteUser(request.getId(),
+                    request.hasExpectedVersion() ? request.getExpectedVersion() : null);
             
             DeleteUserResponse response = DeleteUserResponse.newBuilder()
                     .setSuccess(deleted)
@@ -113,6 +178,11 @@ public class UserGrpcService extends UserServiceGrpc.UserServiceImplBase {
             responseObserver.onError(Status.NOT_FOUND
                     .withDescription(e.getMessage())
                     .asRuntimeException());
+        } catch (VersionConflictException e) {
+            log.debug("Version conflict: {}", e.getMessage());
+            responseObserver.onError(Status.ABORTED
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
         } catch (Exception e) {
             log.error("Error deleting user", e);
             responseObserver.onError(Status.INTERNAL
@@ -124,18 +194,31 @@ public class UserGrpcService extends UserServiceGrpc.UserServiceImplBase {
     @Override
     public void listUsers(ListUsersRequest request, StreamObserver<ListUsersResponse> responseObserver) {
         try {
-            log.info("gRPC listUsers called - page: {}, size: {}", request.getPage(), request.getSize());
+            log.info("gRPC listUsers called - page: {}, size: {}, pageToken: {}",
+                    request.getPage(), request.getSize(), request.getPageToken());
             
             int page = Math.max(0, request.getPage());
             int size = request.getSize() > 0 ? request.getSize() : 10;
             
-            List<User> users = userService.getAllUsers(page, size);
+            List<User> users;
+            String nextPageToken;
+            if (request.getPageToken().isEmpty()) {
+                users = userService.getAllUsers(page, size);
+                nextPageToken = userService.nextPageToken(users);
+            } else {
+                UserPage userPage = userService.getUsersAfter(request.getPageToken(), size);
+                users = userPage.getUsers();
+                nextPageToken = userPage.getNextPageToken();
+            }
             long totalCount = userService.getTotalCount();
             
             ListUsersResponse.Builder responseBuilder = ListUsersResponse.newBuilder()
                     .setTotalCount((int) totalCount)
                     .setPage(page)
                     .setSize(size);
+            if (nextPageToken != null) {
+                responseBuilder.setNextPageToken(nextPageToken);
+            }
             
             users.forEach(user -> responseBuilder.addUsers(userMapper.toProto(user)));
             
@@ -159,19 +242,79 @@ public class UserGrpcService extends UserServiceGrpc.UserServiceImplBase {
         try {
             log.info("gRPC getUsersByStatus called for status: {}", request.getStatus());
             User.UserStatus status = userMapper.toEntityStatus(request.getStatus());
-            List<User> users = userService.getUsersByStatus(status);
+            Iterator<User> users = userService.streamUsersByStatus(status);
+            
+            // Produção preguiçosa guiada por isReady(): o servidor não acumula a resposta inteira na heap
+            FlowControlledStreamer.stream(responseObserver, users, userMapper::toProto);
+        } catch (Exception e) {
+            log.error("Error getting users by status", e);
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Internal server error")
+                    .asRuntimeException());
+        }
+    }
+
+    @Override
+    public void batchGetUsers(BatchGetUsersRequest request, StreamObserver<BatchUsersResponse> responseObserver) {
+        try {
+            log.info("gRPC batchGetUsers called for {} ids", request.getIdsCount());
+            List<UserBatchResult> results = userService.getUsersByIds(request.getIdsList());
             
-            users.forEach(user -> {
-                UserResponse response = userMapper.toProto(user);
-                responseObserver.onNext(response);
-            });
+            responseObserver.onNext(userMapper.toBatchProto(results));
+            responseObserver.onCompleted();
+        } catch (InvalidUserDataException e) {
+            log.error("Invalid batch request: {}", e.getMessage());
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
+        } catch (Exception e) {
+            log.error("Error getting users in batch", e);
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Internal server error")
+                    .asRuntimeException());
+        }
+    }
+
+    @Override
+    public void batchCreateUsers(BatchCreateUsersRequest request, StreamObserver<BatchUsersResponse> responseObserver) {
+        try {
+            log.info("gRPC batchCreateUsers called for {} users", request.getUsersCount());
+            List<User> users = request.getUsersList().stream()
+                    .map(userMapper::toEntity)
+                    .toList();
+            List<UserBatchResult> results = userService.createUsers(users);
             
+            responseObserver.onNext(userMapper.toBatchProto(results));
             responseObserver.onCompleted();
+        } catch (InvalidUserDataException e) {
+            log.error("Invalid batch request: {}", e.getMessage());
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
         } catch (Exception e) {
-            log.error("Error getting users by status", e);
+            log.error("Error creating users in batch", e);
             responseObserver.onError(Status.INTERNAL
                     .withDescription("Internal server error")
                     .asRuntimeException());
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public StreamObserver<CreateUserRequest> importUsers(StreamObserver<ImportUsersResponse> responseObserver) {
+        log.info("gRPC importUsers stream opened - batch size: {}", importProperties.getBatchSize());
+        return new ImportUsersObserver(responseObserver, userService, userMapper,
+                importProperties.getBatchSize(), importProperties.getMaxReportedErrors());
+    }
+
+    @Override
+    public void watchUsers(WatchUsersRequest request, StreamObserver<UserChangeEvent> responseObserver) {
+        log.info("gRPC watchUsers called from sequence: {}", request.getFromSequence());
+        UserChangeWatcher.watch(responseObserver, userService.getChangeLog(), userMapper,
+                watchExecutor, request.getFromSequence());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchExecutor.shutdownNow();
+    }
+}
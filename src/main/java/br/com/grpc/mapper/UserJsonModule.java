@@ -0,0 +1,112 @@
+package br.com.grpc.mapper;
+
+import br.com.grpc.user.proto.DeleteUserResponse;
+import br.com.grpc.user.proto.ListUsersResponse;
+import br.com.grpc.user.proto.UserResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Escreve as respostas do gRPC em JSON direto da mensagem protobuf para o {@link JsonGenerator},
+ * sem montar {@code Map}s intermediários. Os nomes dos campos ficam pré-codificados em
+ * {@link SerializedString}. O Spring Boot registra o módulo no {@code ObjectMapper}, então os
+ * controllers podem devolver as mensagens diretamente.
+ *
+ * <p>Mesmo formato que os {@code Map}s do {@code GrpcClientController} tinham: usuário completo
+ * nas respostas unitárias e sem as datas na listagem.
+ */
+@Component
+public class UserJsonModule extends SimpleModule {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString EMAIL = new SerializedString("email");
+    private static final SerializedString AGE = new SerializedString("age");
+    private static final SerializedString STATUS = new SerializedString("status");
+    private static final SerializedString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializedString UPDATED_AT = new SerializedString("updatedAt");
+    private static final SerializedString VERSION = new SerializedString("version");
+    private static final SerializedString USERS = new SerializedString("users");
+    private static final SerializedString TOTAL_COUNT = new SerializedString("totalCount");
+    private static final SerializedString PAGE = new SerializedString("page");
+    private static final SerializedString SIZE = new SerializedString("size");
+    private static final SerializedString SUCCESS = new SerializedString("success");
+    private static final SerializedString MESSAGE = new SerializedString("message");
+
+    public UserJsonModule() {
+        super("UserJsonModule");
+        addSerializer(UserResponse.class, new StdSerializer<>(UserResponse.class) {
+            @Override
+            public void serialize(UserResponse user, JsonGenerator json, SerializerProvider provider) throws IOException {
+                writeUser(json, user);
+            }
+        });
+        addSerializer(ListUsersResponse.class, new StdSerializer<>(ListUsersResponse.class) {
+            @Override
+            public void serialize(ListUsersResponse page, JsonGenerator json, SerializerProvider provider) throws IOException {
+                writeUserPage(json, page);
+            }
+        });
+        addSerializer(DeleteUserResponse.class, new StdSerializer<>(DeleteUserResponse.class) {
+            @Override
+            public void serialize(DeleteUserResponse response, JsonGenerator json, SerializerProvider provider) throws IOException {
+                json.writeStartObject();
+                json.writeFieldName(SUCCESS);
+                json.writeBoolean(response.getSuccess());
+                json.writeFieldName(MESSAGE);
+                json.writeString(response.getMessage());
+                json.writeEndObject();
+            }
+        });
+    }
+
+    public static void writeUser(JsonGenerator json, UserResponse user) throws IOException {
+        json.writeStartObject();
+        writeUserFields(json, user);
+        json.writeFieldName(CREATED_AT);
+        json.writeString(user.getCreatedAt());
+        json.writeFieldName(UPDATED_AT);
+        json.writeString(user.getUpdatedAt());
+        json.writeFieldName(VERSION);
+        json.writeNumber(user.getVersion());
+        json.writeEndObject();
+    }
+
+    public static void writeUserPage(JsonGenerator json, ListUsersResponse page) throws IOException {
+        json.writeStartObject();
+        json.writeFieldName(USERS);
+        json.writeStartArray();
+        for (int i = 0; i < page.getUsersCount(); i++) {
+            json.writeStartObject();
+            writeUserFields(json, page.getUsers(i));
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+        json.writeFieldName(TOTAL_COUNT);
+        json.writeNumber(page.getTotalCount());
+        json.writeFieldName(PAGE);
+        json.writeNumber(page.getPage());
+        json.writeFieldName(SIZE);
+        json.writeNumber(page.getSize());
+        json.writeEndObject();
+    }
+
+    private static void writeUserFields(JsonGenerator json, UserResponse user) throws IOException {
+        json.writeFieldName(ID);
+        json.writeNumber(user.getId());
+        json.writeFieldName(NAME);
+        json.writeString(user.getName());
+        json.writeFieldName(EMAIL);
+        json.writeString(user.getEmail());
+        json.writeFieldName(AGE);
+        json.writeNumber(user.getAge());
+        json.writeFieldName(STATUS);
+        json.writeString(user.getStatus().name());
+    }
+}
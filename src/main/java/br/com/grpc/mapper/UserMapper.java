@@ -1,16 +1,32 @@
 package br.com.grpc.mapper;
 
 import br.com.grpc.model.User;
+import br.com.grpc.model.UserBatchResult;
 import br.com.grpc.user.proto.*;
+import io.grpc.Status;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 @Component
 public class UserMapper {
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
+    // null: toda resposta é montada na hora
+    private final UserResponseCache responseCache;
+
+    public UserMapper() {
+        this(null);
+    }
+
+    @Autowired
+    public UserMapper(UserResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
     public User toEntity(CreateUserRequest request) {
         return User.builder()
                 .name(request.getName())
@@ -31,6 +47,15 @@ public class UserMapper {
     }
 
     public UserResponse toProto(User user) {
+        return responseCache != null ? responseCache.get(user, this::buildProto) : buildProto(user);
+    }
+
+    // Bytes já serializados de uma resposta do cache, ou null para serializar normalmente
+    public byte[] encoded(UserResponse response) {
+        return responseCache != null ? responseCache.encoded(response) : null;
+    }
+
+    private UserResponse buildProto(User user) {
         UserResponse.Builder builder = UserResponse.newBuilder()
                 .setId(user.getId())
                 .setName(user.getName())
@@ -44,10 +69,34 @@ public class UserMapper {
         if (user.getUpdatedAt() != null) {
             builder.setUpdatedAt(user.getUpdatedAt().format(FORMATTER));
         }
+        if (user.getVersion() != null) {
+            builder.setVersion(user.getVersion());
+        }
 
         return builder.build();
     }
 
+    public BatchUsersResponse toBatchProto(List<UserBatchResult> results) {
+        BatchUsersResponse.Builder builder = BatchUsersResponse.newBuilder();
+        int failures = 0;
+        for (int i = 0; i < results.size(); i++) {
+            UserBatchResult result = results.get(i);
+            BatchUserResult.Builder item = BatchUserResult.newBuilder().setIndex(i);
+            if (result.isSuccess()) {
+                item.setCode(Status.Code.OK.value()).setUser(toProto(result.getUser()));
+            } else {
+                failures++;
+                item.setCode(toStatusCode(result.getFailure()).value())
+                        .setErrorMessage(result.getErrorMessage());
+            }
+            builder.addResults(item);
+        }
+        return builder
+                .setSuccessCount(results.size() - failures)
+                .setFailureCount(failures)
+                .build();
+    }
+
     public User.UserStatus toEntityStatus(UserStatus protoStatus) {
         return switch (protoStatus) {
             case ACTIVE -> User.UserStatus.ACTIVE;
@@ -65,5 +114,13 @@ public class UserMapper {
         };
     }
 
+    private Status.Code toStatusCode(UserBatchResult.Failure failure) {
+        return switch (failure) {
+            case NOT_FOUND -> Status.Code.NOT_FOUND;
+            case INVALID_DATA -> Status.Code.INVALID_ARGUMENT;
+            case ALREADY_EXISTS -> Status.Code.ALREADY_EXISTS;
+        };
+    }
+
 
 }
\ No newline at end of file
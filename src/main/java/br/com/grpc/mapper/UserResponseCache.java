@@ -0,0 +1,175 @@
+package br.com.grpc.mapper;
+
+import br.com.grpc.model.User;
+import br.com.grpc.model.UserChange;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.user.proto.UserResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache limitado de {@link UserResponse} já montados, para que leituras repetidas do mesmo
+ * usuário não formatem as datas e construam a mensagem de novo.
+ *
+ * <p>É uma tabela de mapeamento direto: o id escolhe a posição ({@code id & mask}) e uma
+ * entrada nova simplesmente substitui a anterior, sem lista de LRU nem lock. Como os ids
+ * são sequenciais, os {@code size} ids mais recentes nunca disputam posição. A entrada vale
+ * para uma versão do usuário, o {@code version} que toda gravação incrementa sob o lock da
+ * linha. A chave não pode ser o {@code updatedAt}: duas gravações no mesmo tick do relógio
+ * repetem o timestamp, e um leitor atrasado gravaria a resposta antiga sob a chave da nova.
+ * Como a versão nunca se repete para o mesmo id, uma entrada só é servida para exatamente o
+ * conteúdo de que foi montada. O save/delete publicado no {@link UserChangeLog} ainda remove
+ * a entrada na hora, mas só para não segurar memória de versões mortas.
+ *
+ * <p>Os bytes serializados de cada entrada são calculados na primeira vez que a resposta vai
+ * para a rede ({@link #encoded}) e reaproveitados enquanto a versão não mudar.
+ */
+@Component
+public class UserResponseCache implements MeterBinder {
+
+    public static final int DEFAULT_SIZE = 65536;
+    private static final String NAME = "userResponses";
+
+    // null quando o cache está desligado (tamanho 0)
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public UserResponseCache(@Value("${grpc.response-cache.size:" + DEFAULT_SIZE + "}") int size,
+                             UserChangeLog changeLog) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Response cache size must not be negative");
+        }
+        if (size == 0) {
+            this.slots = null;
+            this.mask = 0;
+            return;
+        }
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size) {
+            capacity <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        changeLog.addListener(this::invalidate);
+    }
+
+    /**
+     * Resposta em cache para esta versão do usuário, ou a montada por {@code builder},
+     * que passa a ocupar a posição do id.
+     */
+    public UserResponse get(User user, Function<User, UserResponse> builder) {
+        if (slots == null || user.getId() == null) {
+            return builder.apply(user);
+        }
+        long id = user.getId();
+        int slot = (int) id & mask;
+        Entry entry = slots.get(slot);
+        if (entry != null && entry.id == id && Objects.equals(entry.version, user.getVersion())) {
+            hits.increment();
+            return entry.response;
+        }
+        misses.increment();
+        UserResponse response = builder.apply(user);
+        if (entry != null && entry.id != id) {
+            evictions.increment();
+        }
+        // Mesmo se um save entrou no meio, a entrada fica presa à versão lida e não é servida para a nova
+        slots.set(slot, new Entry(id, user.getVersion(), response));
+        return response;
+    }
+
+    /**
+     * Bytes protobuf de uma resposta devolvida por {@link #get}, ou {@code null} se ela já
+     * não é a que ocupa a posição do id (substituída, invalidada ou cache desligado).
+     */
+    public byte[] encoded(UserResponse response) {
+        if (slots == null) {
+            return null;
+        }
+        Entry entry = slots.get((int) response.getId() & mask);
+        if (entry == null || entry.response != response) {
+            return null;
+        }
+        byte[] bytes = entry.encoded;
+        if (bytes == null) {
+            // Corrida benigna: duas threads podem serializar a mesma versão, com o mesmo resultado
+            bytes = response.toByteArray();
+            entry.encoded = bytes;
+        }
+        return bytes;
+    }
+
+    // Roda na thread do save/delete: só remove a posição se ela for do id alterado
+    private void invalidate(UserChange change) {
+        long id = change.getUserId();
+        int slot = (int) id & mask;
+        Entry entry = slots.get(slot);
+        if (entry != null && entry.id == id) {
+            slots.compareAndSet(slot, entry, null);
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public int capacity() {
+        return slots == null ? 0 : slots.length();
+    }
+
+    // Mesmos nomes e tags dos caches instrumentados pelo Micrometer: cache.gets{result=hit|miss}
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tags("cache", NAME, "result", "hit")
+                .description("Responses served from the cache")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tags("cache", NAME, "result", "miss")
+                .description("Responses built because the cache had no entry for the user version")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+                .tag("cache", NAME)
+                .description("Entries replaced by a different user sharing the slot")
+                .register(registry);
+        Gauge.builder("cache.hit.ratio", this, UserResponseCache::hitRate)
+                .tag("cache", NAME)
+                .description("Hits over all lookups since startup")
+                .register(registry);
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final Long version;
+        private final UserResponse response;
+        private volatile byte[] encoded;
+
+        private Entry(long id, Long version, UserResponse response) {
+            this.id = id;
+            this.version = version;
+            this.response = response;
+        }
+    }
+}
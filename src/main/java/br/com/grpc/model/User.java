@@ -19,6 +19,8 @@ public class User {
     private UserStatus status;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    // Começa em 1 e o repositório incrementa a cada gravação; base das atualizações condicionais
+    private Long version;
 
     public enum UserStatus {
         ACTIVE, INACTIVE, SUSPENDED
@@ -0,0 +1,28 @@
+package br.com.grpc.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class UserBatchResult {
+    private User user;
+    private Failure failure;
+    private String errorMessage;
+
+    public enum Failure {
+        NOT_FOUND, INVALID_DATA, ALREADY_EXISTS
+    }
+
+    public static UserBatchResult success(User user) {
+        return new UserBatchResult(user, null, null);
+    }
+
+    public static UserBatchResult failure(Failure failure, String errorMessage) {
+        return new UserBatchResult(null, failure, errorMessage);
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+}
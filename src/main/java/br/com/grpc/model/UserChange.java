@@ -0,0 +1,18 @@
+package br.com.grpc.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class UserChange {
+    private long sequence;
+    private Type type;
+    private Long userId;
+    // Nulo em DELETED
+    private User user;
+
+    public enum Type {
+        UPSERTED, DELETED
+    }
+}
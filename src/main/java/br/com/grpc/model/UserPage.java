@@ -0,0 +1,14 @@
+package br.com.grpc.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class UserPage {
+    private List<User> users;
+    // Nulo quando não há próxima página
+    private String nextPageToken;
+}
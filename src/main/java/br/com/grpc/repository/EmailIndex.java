@@ -0,0 +1,183 @@
+package br.com.grpc.repository;
+
+/**
+ * Índice único email → id compartilhado pelos repositórios.
+ *
+ * <p>O email, sem distinção de maiúsculas, é reduzido a um hash de 128 bits; o índice guarda
+ * só o hash e o id em arrays primitivos, sem String nem Long por entrada. As entradas são
+ * divididas em faixas pelo hash, cada uma com o próprio lock e crescimento independente,
+ * de modo que inserções de emails diferentes raramente disputam o mesmo lock. Uma colisão
+ * de 128 bits é tratada como impossível; quem consulta confere o email na linha encontrada.
+ */
+final class EmailIndex {
+
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    EmailIndex() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    // Mesma regra de comparação usada no hash: emails diferem só por maiúsculas são o mesmo
+    static boolean sameEmail(String a, String b) {
+        return a == null ? b == null : a.equalsIgnoreCase(b);
+    }
+
+    /**
+     * Reserva o email para o id. Devolve o id do dono atual se o email já pertence a
+     * outro usuário, ou 0 se a reserva valeu (inclusive quando o dono já era o próprio id).
+     */
+    long claim(String email, long id) {
+        if (email == null) {
+            return 0;
+        }
+        long high = hashHigh(email);
+        long low = hashLow(email);
+        return stripe(high).claim(high, low, id);
+    }
+
+    // Remove a entrada apenas se ainda pertencer ao id
+    void release(String email, long id) {
+        if (email == null) {
+            return;
+        }
+        long high = hashHigh(email);
+        long low = hashLow(email);
+        stripe(high).release(high, low, id);
+    }
+
+    // Id do dono do email, ou 0
+    long find(String email) {
+        if (email == null) {
+            return 0;
+        }
+        long high = hashHigh(email);
+        long low = hashLow(email);
+        return stripe(high).find(high, low);
+    }
+
+    long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private Stripe stripe(long high) {
+        return stripes[(int) (high >>> (64 - STRIPE_BITS))];
+    }
+
+    // Dois hashes de 64 bits independentes, sem distinção de maiúsculas e sem alocar
+    private static long hashHigh(String email) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < email.length(); i++) {
+            h = (h ^ Character.toLowerCase(email.charAt(i))) * 0x100000001B3L;
+        }
+        return mix(h ^ email.length());
+    }
+
+    private static long hashLow(String email) {
+        long h = 0xC2B2AE3D27D4EB4FL;
+        for (int i = email.length() - 1; i >= 0; i--) {
+            h = (h + Character.toLowerCase(email.charAt(i))) * 0x5851F42D4C957F2DL;
+            h ^= h >>> 29;
+        }
+        return mix(h + email.length());
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // Tabela de endereçamento aberto com sondagem linear; id 0 marca posição vazia
+    private static final class Stripe {
+        private long[] highs = new long[64];
+        private long[] lows = new long[64];
+        private long[] ids = new long[64];
+        private int size;
+
+        synchronized long claim(long high, long low, long id) {
+            int slot = slotOf(high, low);
+            if (ids[slot] != 0) {
+                return ids[slot] == id ? 0 : ids[slot];
+            }
+            if ((size + 1) * 4L > ids.length * 3L) {
+                grow();
+                slot = slotOf(high, low);
+            }
+            highs[slot] = high;
+            lows[slot] = low;
+            ids[slot] = id;
+            size++;
+            return 0;
+        }
+
+        synchronized void release(long high, long low, long id) {
+            int slot = slotOf(high, low);
+            if (ids[slot] == 0 || ids[slot] != id) {
+                return;
+            }
+            // Remoção sem lápide: puxa para trás as entradas seguintes do mesmo agrupamento
+            int mask = ids.length - 1;
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (ids[next] != 0) {
+                int home = (int) lows[next] & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    highs[hole] = highs[next];
+                    lows[hole] = lows[next];
+                    ids[hole] = ids[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            ids[hole] = 0;
+            size--;
+        }
+
+        synchronized long find(long high, long low) {
+            return ids[slotOf(high, low)];
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        // Posição da chave, ou a primeira vazia onde ela entraria
+        private int slotOf(long high, long low) {
+            int mask = ids.length - 1;
+            int slot = (int) low & mask;
+            while (ids[slot] != 0 && (highs[slot] != high || lows[slot] != low)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldHighs = highs;
+            long[] oldLows = lows;
+            long[] oldIds = ids;
+            highs = new long[oldIds.length * 2];
+            lows = new long[oldIds.length * 2];
+            ids = new long[oldIds.length * 2];
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldIds[i] != 0) {
+                    int slot = slotOf(oldHighs[i], oldLows[i]);
+                    highs[slot] = oldHighs[i];
+                    lows[slot] = oldLows[i];
+                    ids[slot] = oldIds[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package br.com.grpc.repository;
+
+import br.com.grpc.exception.DuplicateEmailException;
+import br.com.grpc.exception.UserNotFoundException;
+import br.com.grpc.exception.VersionConflictException;
+import br.com.grpc.model.User;
+import br.com.grpc.model.UserBatchResult;
+import br.com.grpc.model.UserChange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "users.store.type", havingValue = "heap", matchIfMissing = true)
+public class InMemoryUserRepository implements UserRepository {
+    
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+    private final AtomicLong idGenerator = new AtomicLong(1);
+
+    // Índice secundário por status: mantido dentro do compute() do mapa principal,
+    // que serializa as escritas do mesmo id e mantém os dois consistentes
+    private final Map<User.UserStatus, Set<Long>> statusIndex = new EnumMap<>(User.UserStatus.class);
+
+    // Índice ordenado por id: base da paginação por cursor e de uma ordem estável de listagem
+    private final NavigableSet<Long> idIndex = new ConcurrentSkipListSet<>();
+
+    // Email único: reservado dentro do compute(), antes de a linha mudar
+    private final EmailIndex emailIndex = new EmailIndex();
+
+    private final UserChangeLog changeLog;
+
+    public InMemoryUserRepository() {
+        this(new UserChangeLog(UserChangeLog.DEFAULT_CAPACITY));
+    }
+
+    @Autowired
+    public InMemoryUserRepository(UserChangeLog changeLog) {
+        this.changeLog = changeLog;
+        for (User.UserStatus status : User.UserStatus.values()) {
+            statusIndex.put(status, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    @Override
+    public User save(User user) {
+        changeLog.checkWritable();
+        LocalDateTime now = LocalDateTime.now();
+        if (user.getId() == null) {
+            user.setId(idGenerator.getAndIncrement());
+            user.setCreatedAt(now);
+        } else {
+            reserveId(user.getId());
+        }
+        store(user, now);
+        changeLog.awaitDurable();
+        return user;
+    }
+
+    // Escrita em lote: um único bloco de ids e um único timestamp para todo o lote
+    @Override
+    public List<UserBatchResult> saveAll(List<User> batch) {
+        changeLog.checkWritable();
+        LocalDateTime now = LocalDateTime.now();
+        long newUsers = batch.stream().filter(user -> user.getId() == null).count();
+        long nextId = idGenerator.getAndAdd(newUsers);
+        List<UserBatchResult> results = new ArrayList<>(batch.size());
+        for (User user : batch) {
+            if (user.getId() == null) {
+                user.setId(nextId++);
+                user.setCreatedAt(now);
+            } else {
+                reserveId(user.getId());
+            }
+            try {
+                store(user, now);
+                results.add(UserBatchResult.success(user));
+            } catch (DuplicateEmailException e) {
+                results.add(UserBatchResult.failure(UserBatchResult.Failure.ALREADY_EXISTS, e.getMessage()));
+            }
+        }
+        // Um único fsync cobre o lote inteiro
+        changeLog.awaitDurable();
+        return results;
+    }
+
+    @Override
+    public void restore(List<User> restored) {
+        long maxId = 0;
+        for (User user : restored) {
+            put(user, true);
+            maxId = Math.max(maxId, user.getId());
+        }
+        reserveId(maxId);
+    }
+
+    // Compara e grava dentro do compute(), que só trava o bin do id; o trecho comum a todas as
+    // escritas é a publicação no UserChangeLog, curta e só em memória
+    @Override
+    public User update(User user, Long expectedVersion) {
+        changeLog.checkWritable();
+        LocalDateTime now = LocalDateTime.now();
+        User stored = copy(user);
+        stored.setUpdatedAt(now);
+        users.compute(user.getId(), (id, previous) -> {
+            if (previous == null) {
+                throw new UserNotFoundException(id);
+            }
+            checkVersion(id, previous, expectedVersion);
+            stored.setCreatedAt(previous.getCreatedAt());
+            stored.setVersion(previous.getVersion() + 1);
+            return replace(id, previous, stored, false);
+        });
+        user.setCreatedAt(stored.getCreatedAt());
+        user.setUpdatedAt(now);
+        user.setVersion(stored.getVersion());
+        changeLog.awaitDurable();
+        return user;
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return Optional.ofNullable(users.get(id)).map(InMemoryUserRepository::copy);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        long id = emailIndex.find(email);
+        User user = id == 0 ? null : users.get(id);
+        // A entrada pode apontar para uma linha no meio de uma troca de email
+        if (user == null || !EmailIndex.sameEmail(user.getEmail(), email)) {
+            return Optional.empty();
+        }
+        return Optional.of(copy(user));
+    }
+
+    @Override
+    public Map<Long, User> findAllById(Collection<Long> ids) {
+        Map<Long, User> found = new HashMap<>(ids.size() * 2);
+        for (Long id : ids) {
+            User user = users.get(id);
+            if (user != null) {
+                found.put(id, copy(user));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<User> findAll() {
+        return users.values().stream().map(InMemoryUserRepository::copy).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public List<User> findByStatus(User.UserStatus status) {
+        List<User> result = new ArrayList<>();
+        iterateByStatus(status).forEachRemaining(result::add);
+        return result;
+    }
+
+    // Percorre o índice sob demanda, sem materializar a lista; usado pelo streaming
+    @Override
+    public Iterator<User> iterateByStatus(User.UserStatus status) {
+        Set<Long> index = statusIndex.get(status);
+        if (index == null) {
+            return Collections.emptyIterator();
+        }
+        Iterator<Long> ids = index.iterator();
+        return new Iterator<>() {
+            private User next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && ids.hasNext()) {
+                    User user = users.get(ids.next());
+                    // O índice pode estar um passo à frente do mapa durante uma escrita concorrente
+                    if (user != null && user.getStatus() == status) {
+                        next = user;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public User next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                User user = next;
+                next = null;
+                return copy(user);
+            }
+        };
+    }
+
+    @Override
+    public boolean deleteById(Long id, Long expectedVersion) {
+        changeLog.checkWritable();
+        boolean removed = remove(id, expectedVersion, false);
+        if (removed) {
+            changeLog.awaitDurable();
+        }
+        return removed;
+    }
+
+    @Override
+    public void restoreDelete(Long id) {
+        remove(id, null, true);
+    }
+
+    private boolean remove(Long id, Long expectedVersion, boolean restoring) {
+        boolean[] removed = new boolean[1];
+        users.computeIfPresent(id, (key, previous) -> {
+            checkVersion(key, previous, expectedVersion);
+            idIndex.remove(key);
+            reindex(key, null);
+            emailIndex.release(previous.getEmail(), key);
+            if (!restoring) {
+                changeLog.append(UserChange.Type.DELETED, key, null);
+            }
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return users.containsKey(id);
+    }
+
+    @Override
+    public UserChangeLog getChangeLog() {
+        return changeLog;
+    }
+
+    @Override
+    public long count() {
+        return users.size();
+    }
+
+    // O skip anda pelo índice até o offset: O(page * size); o cursor começa direto no id
+    @Override
+    public List<User> findAllPaginated(int page, int size) {
+        return collectPage(idIndex.stream().skip((long) page * size).iterator(), size);
+    }
+
+    @Override
+    public List<User> findAllAfter(Long afterId, int size) {
+        Set<Long> ids = afterId == null ? idIndex : idIndex.tailSet(afterId, false);
+        return collectPage(ids.iterator(), size);
+    }
+
+    @Override
+    public boolean existsAfter(Long id) {
+        return idIndex.higher(id) != null;
+    }
+
+    private List<User> collectPage(Iterator<Long> ids, int size) {
+        List<User> page = new ArrayList<>(Math.min(size, 1024));
+        while (page.size() < size && ids.hasNext()) {
+            User user = users.get(ids.next());
+            // Id removido entre a leitura do índice e a do mapa
+            if (user != null) {
+                page.add(copy(user));
+            }
+        }
+        return page;
+    }
+
+    private void store(User user, LocalDateTime now) {
+        user.setUpdatedAt(now);
+        put(user, false);
+    }
+
+    // O mapa guarda uma cópia: o chamador pode alterar a própria instância depois, e o
+    // email anterior, necessário para o índice, continua disponível em previous
+    private void put(User user, boolean restoring) {
+        User stored = copy(user);
+        if (restoring && stored.getVersion() == null) {
+            // Registros gravados antes de existir versão
+            stored.setVersion(1L);
+        }
+        users.compute(user.getId(), (id, previous) -> {
+            if (!restoring) {
+                stored.setVersion(previous == null ? 1 : previous.getVersion() + 1);
+            }
+            return replace(id, previous, stored, restoring);
+        });
+        user.setVersion(stored.getVersion());
+    }
+
+    // Troca a linha e os índices; roda dentro do compute() do id
+    private User replace(Long id, User previous, User stored, boolean restoring) {
+        String previousEmail = previous == null ? null : previous.getEmail();
+        if (!EmailIndex.sameEmail(previousEmail, stored.getEmail())) {
+            long owner = emailIndex.claim(stored.getEmail(), id);
+            if (owner != 0) {
+                if (!restoring) {
+                    throw new DuplicateEmailException(stored.getEmail());
+                }
+                // Snapshot tirado durante escritas: o log reaplicado em seguida resolve o dono
+                log.debug("Restored user {} shares email with user {}", id, owner);
+            }
+            emailIndex.release(previousEmail, id);
+        }
+        idIndex.add(id);
+        reindex(id, stored.getStatus());
+        if (!restoring) {
+            changeLog.append(UserChange.Type.UPSERTED, id, stored);
+        }
+        return stored;
+    }
+
+    private static void checkVersion(Long id, User current, Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != current.getVersion().longValue()) {
+            throw new VersionConflictException(id, expectedVersion, current.getVersion());
+        }
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getName(), user.getEmail(), user.getAge(), user.getStatus(),
+                user.getCreatedAt(), user.getUpdatedAt(), user.getVersion());
+    }
+
+    // Evita que o gerador devolva um id já gravado explicitamente (ex.: restauração)
+    private void reserveId(long id) {
+        idGenerator.accumulateAndGet(id + 1, Math::max);
+    }
+
+    // Remove o id de todos os status exceto o atual; independe da instância anterior,
+    // que pode ser o mesmo objeto já alterado pelo chamador
+    private void reindex(Long id, User.UserStatus status) {
+        for (Map.Entry<User.UserStatus, Set<Long>> entry : statusIndex.entrySet()) {
+            if (entry.getKey() == status) {
+                entry.getValue().add(id);
+            } else {
+                entry.getValue().remove(id);
+            }
+        }
+    }
+}
\ No newline at end of file
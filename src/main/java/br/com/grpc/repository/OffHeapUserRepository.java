@@ -0,0 +1,750 @@
+package br.com.grpc.repository;
+
+import br.com.grpc.exception.DuplicateEmailException;
+import br.com.grpc.exception.UserNotFoundException;
+import br.com.grpc.exception.VersionConflictException;
+import br.com.grpc.model.User;
+import br.com.grpc.model.UserBatchResult;
+import br.com.grpc.model.UserChange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Repositório colunar fora da heap, para bases de dezenas de milhões de usuários.
+ *
+ * <p>Os ids são densos (vêm do gerador sequencial), então a linha de um usuário é
+ * simplesmente {@code id - 1} e o id não precisa ser gravado. Idade, status, versão e datas
+ * (epoch em nanos, UTC) ficam em colunas primitivas em {@link ByteBuffer}s diretos,
+ * divididas em blocos de {@value #CHUNK_SIZE} linhas; nome e email ficam numa arena de
+ * strings UTF-8 também direta. Na heap sobram apenas os bitmaps de status e os
+ * contadores por bloco. Os {@link User} devolvidos são cópias montadas na leitura.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "users.store.type", havingValue = "off-heap")
+public class OffHeapUserRepository implements UserRepository {
+
+    static final int CHUNK_BITS = 16;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int STRIPES = 256;
+
+    private static final User.UserStatus[] STATUSES = User.UserStatus.values();
+    // Código de status na coluna: 0 = linha vazia, ordinal + 1 = status, NO_STATUS = presente sem status
+    private static final byte ABSENT = 0;
+    private static final byte NO_STATUS = (byte) (STATUSES.length + 1);
+    // Código de cada status, indexado pelo ordinal
+    private static final byte[] STATUS_CODES = new byte[STATUSES.length];
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    static {
+        for (int i = 0; i < STATUSES.length; i++) {
+            STATUS_CODES[i] = (byte) (i + 1);
+        }
+    }
+
+    private final AtomicLong idGenerator = new AtomicLong(1);
+    private final AtomicLong liveCount = new AtomicLong();
+    private final ReentrantReadWriteLock[] locks = new ReentrantReadWriteLock[STRIPES];
+    private final StringArena arena = new StringArena();
+    // Só hash e id, em arrays primitivos: não devolve à heap o que as colunas economizam
+    private final EmailIndex emailIndex = new EmailIndex();
+    private final Object growLock = new Object();
+    private final UserChangeLog changeLog;
+    // Copiado a cada bloco novo: quem lê a referência volátil enxerga blocos completos
+    private volatile Chunk[] chunks = new Chunk[0];
+
+    public OffHeapUserRepository() {
+        this(new UserChangeLog(UserChangeLog.DEFAULT_CAPACITY));
+    }
+
+    @Autowired
+    public OffHeapUserRepository(UserChangeLog changeLog) {
+        this.changeLog = changeLog;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+        log.info("Using off-heap columnar user store");
+    }
+
+    @Override
+    public User save(User user) {
+        changeLog.checkWritable();
+        LocalDateTime now = LocalDateTime.now();
+        if (user.getId() == null) {
+            user.setId(idGenerator.getAndIncrement());
+            user.setCreatedAt(now);
+        } else {
+            reserveId(user.getId());
+        }
+        store(user, now);
+        changeLog.awaitDurable();
+        return user;
+    }
+
+    @Override
+    public List<UserBatchResult> saveAll(List<User> batch) {
+        changeLog.checkWritable();
+        LocalDateTime now = LocalDateTime.now();
+        long newUsers = batch.stream().filter(user -> user.getId() == null).count();
+        long nextId = idGenerator.getAndAdd(newUsers);
+        List<UserBatchResult> results = new ArrayList<>(batch.size());
+        for (User user : batch) {
+            if (user.getId() == null) {
+                user.setId(nextId++);
+                user.setCreatedAt(now);
+            } else {
+                reserveId(user.getId());
+            }
+            try {
+                store(user, now);
+                results.add(UserBatchResult.success(user));
+            } catch (DuplicateEmailException e) {
+                results.add(UserBatchResult.failure(UserBatchResult.Failure.ALREADY_EXISTS, e.getMessage()));
+            }
+        }
+        changeLog.awaitDurable();
+        return results;
+    }
+
+    @Override
+    public void restore(List<User> restored) {
+        long maxId = 0;
+        for (User user : restored) {
+            put(user, true);
+            maxId = Math.max(maxId, user.getId());
+        }
+        reserveId(maxId);
+    }
+
+    // Compara e grava sob o lock de escrita da faixa do id; as outras faixas só disputam a
+    // publicação no UserChangeLog, curta e só em memória
+    @Override
+    public User update(User user, Long expectedVersion) {
+        changeLog.checkWritable();
+        long id = user.getId();
+        long slot = id - 1;
+        Chunk chunk = id <= 0 ? null : chunk(slot, false);
+        if (chunk == null) {
+            throw new UserNotFoundException(user.getId());
+        }
+        int row = (int) (slot & CHUNK_MASK);
+        user.setUpdatedAt(LocalDateTime.now());
+        Lock lock = lockFor(slot).writeLock();
+        lock.lock();
+        try {
+            if (chunk.statuses.get(row) == ABSENT) {
+                throw new UserNotFoundException(user.getId());
+            }
+            checkVersion(user.getId(), chunk, row, expectedVersion);
+            user.setCreatedAt(fromEpochNanos(chunk.createdAt.getLong(row * 8)));
+            write(chunk, row, user, false);
+        } finally {
+            lock.unlock();
+        }
+        changeLog.awaitDurable();
+        return user;
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return Optional.ofNullable(read(id));
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        long id = emailIndex.find(email);
+        User user = id == 0 ? null : read(id);
+        // A entrada pode apontar para uma linha no meio de uma troca de email
+        if (user == null || !EmailIndex.sameEmail(user.getEmail(), email)) {
+            return Optional.empty();
+        }
+        return Optional.of(user);
+    }
+
+    @Override
+    public Map<Long, User> findAllById(Collection<Long> ids) {
+        Map<Long, User> found = new HashMap<>(ids.size() * 2);
+        for (Long id : ids) {
+            User user = read(id);
+            if (user != null) {
+                found.put(id, user);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<User> findAll() {
+        List<User> result = new ArrayList<>((int) Math.min(liveCount.get(), Integer.MAX_VALUE - 8));
+        scanFrom(0, Integer.MAX_VALUE, result);
+        return result;
+    }
+
+    @Override
+    public List<User> findByStatus(User.UserStatus status) {
+        List<User> result = new ArrayList<>();
+        iterateByStatus(status).forEachRemaining(result::add);
+        return result;
+    }
+
+    // Percorre o bitmap do status palavra a palavra: O(linhas / 64 + resultados)
+    @Override
+    public Iterator<User> iterateByStatus(User.UserStatus status) {
+        int statusIndex = status.ordinal();
+        return new Iterator<>() {
+            private int chunkIndex;
+            private int wordIndex;
+            private long word;
+            private User next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    while (word == 0) {
+                        Chunk[] current = chunks;
+                        if (chunkIndex >= current.length) {
+                            return false;
+                        }
+                        Chunk chunk = current[chunkIndex];
+                        if (chunk == null || wordIndex >= Chunk.WORDS) {
+                            chunkIndex++;
+                            wordIndex = 0;
+                            continue;
+                        }
+                        word = chunk.statusBits[statusIndex].get(wordIndex++);
+                    }
+                    int bit = Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    long slot = ((long) chunkIndex << CHUNK_BITS) + ((long) (wordIndex - 1) << 6) + bit;
+                    User user = read(slot + 1);
+                    // O bit pode ter mudado entre a leitura do bitmap e a da linha
+                    if (user != null && user.getStatus() == status) {
+                        next = user;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public User next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                User user = next;
+                next = null;
+                return user;
+            }
+        };
+    }
+
+    @Override
+    public boolean deleteById(Long id, Long expectedVersion) {
+        changeLog.checkWritable();
+        boolean removed = remove(id, expectedVersion, false);
+        if (removed) {
+            changeLog.awaitDurable();
+        }
+        return removed;
+    }
+
+    @Override
+    public void restoreDelete(Long id) {
+        remove(id, null, true);
+    }
+
+    private boolean remove(Long id, Long expectedVersion, boolean restoring) {
+        if (id == null || id <= 0) {
+            return false;
+        }
+        long slot = id - 1;
+        Chunk chunk = chunk(slot, false);
+        if (chunk == null) {
+            return false;
+        }
+        int row = (int) (slot & CHUNK_MASK);
+        Lock lock = lockFor(slot).writeLock();
+        lock.lock();
+        try {
+            byte previous = chunk.statuses.get(row);
+            if (previous == ABSENT) {
+                return false;
+            }
+            checkVersion(id, chunk, row, expectedVersion);
+            chunk.statuses.put(row, ABSENT);
+            updateStatusBits(chunk, row, previous, ABSENT);
+            emailIndex.release(arena.read(chunk.emails.getLong(row * 8)), id);
+            arena.release(chunk.names.getLong(row * 8));
+            arena.release(chunk.emails.getLong(row * 8));
+            chunk.live.decrementAndGet();
+            liveCount.decrementAndGet();
+            if (!restoring) {
+                changeLog.append(UserChange.Type.DELETED, id, null);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        if (id == null || id <= 0) {
+            return false;
+        }
+        long slot = id - 1;
+        Chunk chunk = chunk(slot, false);
+        if (chunk == null) {
+            return false;
+        }
+        Lock lock = lockFor(slot).readLock();
+        lock.lock();
+        try {
+            return chunk.statuses.get((int) (slot & CHUNK_MASK)) != ABSENT;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public UserChangeLog getChangeLog() {
+        return changeLog;
+    }
+
+    @Override
+    public long count() {
+        return liveCount.get();
+    }
+
+    // Blocos inteiros são pulados pelo contador de linhas vivas, sem ler as colunas
+    @Override
+    public List<User> findAllPaginated(int page, int size) {
+        long skip = (long) page * size;
+        Chunk[] current = chunks;
+        for (int i = 0; i < current.length; i++) {
+            Chunk chunk = current[i];
+            int live = chunk == null ? 0 : chunk.live.get();
+            if (live <= skip) {
+                skip -= live;
+                continue;
+            }
+            // Pula as linhas restantes dentro do bloco e coleta a página a partir daí. O contador
+            // foi lido sem lock: se linhas do bloco forem apagadas no meio, o resto do pulo segue
+            // nos blocos seguintes, e a página sai vazia quando eles acabam
+            long slot = (long) i << CHUNK_BITS;
+            long chunkEnd = slot + CHUNK_SIZE;
+            while (skip > 0 && slot < chunkEnd) {
+                if (existsById(slot + 1)) {
+                    skip--;
+                }
+                slot++;
+            }
+            if (skip > 0) {
+                continue;
+            }
+            List<User> result = new ArrayList<>(Math.min(size, 1024));
+            scanFrom(slot, size, result);
+            return result;
+        }
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<User> findAllAfter(Long afterId, int size) {
+        List<User> page = new ArrayList<>(Math.min(size, 1024));
+        scanFrom(afterId == null ? 0 : Math.max(0, afterId), size, page);
+        return page;
+    }
+
+    @Override
+    public boolean existsAfter(Long id) {
+        List<User> next = new ArrayList<>(1);
+        scanFrom(Math.max(0, id), 1, next);
+        return !next.isEmpty();
+    }
+
+    // Memória fora da heap efetivamente reservada pelas colunas e pela arena
+    public long offHeapBytes() {
+        long total = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk != null) {
+                total += Chunk.BYTES;
+            }
+        }
+        return total + arena.reservedBytes();
+    }
+
+    private void scanFrom(long startSlot, int size, List<User> out) {
+        Chunk[] current = chunks;
+        long end = (long) current.length << CHUNK_BITS;
+        long slot = startSlot;
+        while (out.size() < size && slot < end) {
+            Chunk chunk = current[(int) (slot >>> CHUNK_BITS)];
+            if (chunk == null || chunk.live.get() == 0) {
+                slot = ((slot >>> CHUNK_BITS) + 1) << CHUNK_BITS;
+                continue;
+            }
+            User user = read(slot + 1);
+            if (user != null) {
+                out.add(user);
+            }
+            slot++;
+        }
+    }
+
+    private void store(User user, LocalDateTime now) {
+        user.setUpdatedAt(now);
+        put(user, false);
+    }
+
+    private void put(User user, boolean restoring) {
+        long id = user.getId();
+        if (id <= 0) {
+            throw new IllegalArgumentException("Off-heap store requires positive ids: " + id);
+        }
+        long slot = id - 1;
+        Chunk chunk = chunk(slot, true);
+        int row = (int) (slot & CHUNK_MASK);
+        Lock lock = lockFor(slot).writeLock();
+        lock.lock();
+        try {
+            write(chunk, row, user, restoring);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Grava a linha com o lock de escrita da faixa já tomado
+    private void write(Chunk chunk, int row, User user, boolean restoring) {
+        long id = user.getId();
+        byte previous = chunk.statuses.get(row);
+        boolean existed = previous != ABSENT;
+        String previousEmail = existed ? arena.read(chunk.emails.getLong(row * 8)) : null;
+        if (!EmailIndex.sameEmail(previousEmail, user.getEmail())) {
+            // Reserva antes de tocar nas colunas: em conflito a linha fica como estava
+            long owner = emailIndex.claim(user.getEmail(), id);
+            if (owner != 0) {
+                if (!restoring) {
+                    throw new DuplicateEmailException(user.getEmail());
+                }
+                log.debug("Restored user {} shares email with user {}", id, owner);
+            }
+            emailIndex.release(previousEmail, id);
+        }
+        chunk.names.putLong(row * 8, arena.write(user.getName(), existed ? chunk.names.getLong(row * 8) : -1));
+        chunk.emails.putLong(row * 8, arena.write(user.getEmail(), existed ? chunk.emails.getLong(row * 8) : -1));
+        chunk.ages.putInt(row * 4, user.getAge() == null ? NULL_INT : user.getAge());
+        chunk.createdAt.putLong(row * 8, toEpochNanos(user.getCreatedAt()));
+        chunk.updatedAt.putLong(row * 8, toEpochNanos(user.getUpdatedAt()));
+        if (!restoring) {
+            user.setVersion(existed ? chunk.versions.getLong(row * 8) + 1 : 1);
+        } else if (user.getVersion() == null) {
+            // Registros gravados antes de existir versão
+            user.setVersion(1L);
+        }
+        chunk.versions.putLong(row * 8, user.getVersion());
+        byte status = user.getStatus() == null ? NO_STATUS : STATUS_CODES[user.getStatus().ordinal()];
+        chunk.statuses.put(row, status);
+        updateStatusBits(chunk, row, previous, status);
+        if (!existed) {
+            chunk.live.incrementAndGet();
+            liveCount.incrementAndGet();
+        }
+        if (!restoring) {
+            // Cópia: quem chamou pode alterar a própria instância depois do save
+            changeLog.append(UserChange.Type.UPSERTED, id, copy(user));
+        }
+    }
+
+    private User read(Long id) {
+        if (id == null || id <= 0) {
+            return null;
+        }
+        long slot = id - 1;
+        Chunk chunk = chunk(slot, false);
+        if (chunk == null) {
+            return null;
+        }
+        int row = (int) (slot & CHUNK_MASK);
+        Lock lock = lockFor(slot).readLock();
+        lock.lock();
+        try {
+            byte status = chunk.statuses.get(row);
+            if (status == ABSENT) {
+                return null;
+            }
+            int age = chunk.ages.getInt(row * 4);
+            return User.builder()
+                    .id(id)
+                    .name(arena.read(chunk.names.getLong(row * 8)))
+                    .email(arena.read(chunk.emails.getLong(row * 8)))
+                    .age(age == NULL_INT ? null : age)
+                    .status(status == NO_STATUS ? null : STATUSES[status - 1])
+                    .createdAt(fromEpochNanos(chunk.createdAt.getLong(row * 8)))
+                    .updatedAt(fromEpochNanos(chunk.updatedAt.getLong(row * 8)))
+                    .version(chunk.versions.getLong(row * 8))
+                    .build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getName(), user.getEmail(), user.getAge(), user.getStatus(),
+                user.getCreatedAt(), user.getUpdatedAt(), user.getVersion());
+    }
+
+    private static void checkVersion(Long id, Chunk chunk, int row, Long expectedVersion) {
+        long current = chunk.versions.getLong(row * 8);
+        if (expectedVersion != null && expectedVersion != current) {
+            throw new VersionConflictException(id, expectedVersion, current);
+        }
+    }
+
+    // Bits de linhas vizinhas dividem a mesma palavra, por isso o CAS em vez do lock da linha
+    private void updateStatusBits(Chunk chunk, int row, byte previous, byte current) {
+        if (previous == current) {
+            return;
+        }
+        int word = row >>> 6;
+        long bit = 1L << (row & 63);
+        if (previous != ABSENT && previous != NO_STATUS) {
+            AtomicLongArray bits = chunk.statusBits[previous - 1];
+            bits.getAndUpdate(word, w -> w & ~bit);
+        }
+        if (current != ABSENT && current != NO_STATUS) {
+            AtomicLongArray bits = chunk.statusBits[current - 1];
+            bits.getAndUpdate(word, w -> w | bit);
+        }
+    }
+
+    // Evita que o gerador devolva um id já gravado explicitamente (ex.: restauração)
+    private void reserveId(long id) {
+        idGenerator.accumulateAndGet(id + 1, Math::max);
+    }
+
+    private ReentrantReadWriteLock lockFor(long slot) {
+        return locks[(int) (slot & (STRIPES - 1))];
+    }
+
+    private Chunk chunk(long slot, boolean create) {
+        long index = slot >>> CHUNK_BITS;
+        Chunk[] current = chunks;
+        if (index < current.length && current[(int) index] != null) {
+            return current[(int) index];
+        }
+        if (!create) {
+            return null;
+        }
+        if (index >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Id out of range for off-heap store: " + (slot + 1));
+        }
+        synchronized (growLock) {
+            current = chunks;
+            Chunk[] grown = Arrays.copyOf(current, Math.max(current.length, (int) index + 1));
+            if (grown[(int) index] == null) {
+                grown[(int) index] = new Chunk();
+            }
+            chunks = grown;
+            return grown[(int) index];
+        }
+    }
+
+    private static long toEpochNanos(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return NULL_LONG;
+        }
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + dateTime.getNano();
+    }
+
+    private static LocalDateTime fromEpochNanos(long nanos) {
+        if (nanos == NULL_LONG) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    private static ByteBuffer direct(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    // Um bloco de linhas: uma coluna por campo, endereçada por linha
+    private static final class Chunk {
+        static final int WORDS = CHUNK_SIZE / 64;
+        static final long BYTES = (long) CHUNK_SIZE * (4 + 1 + 8 + 8 + 8 + 8 + 8);
+
+        final ByteBuffer ages = direct(CHUNK_SIZE * 4);
+        final ByteBuffer statuses = direct(CHUNK_SIZE);
+        final ByteBuffer createdAt = direct(CHUNK_SIZE * 8);
+        final ByteBuffer updatedAt = direct(CHUNK_SIZE * 8);
+        final ByteBuffer versions = direct(CHUNK_SIZE * 8);
+        // Referências para a arena de strings (-1 = nulo)
+        final ByteBuffer names = direct(CHUNK_SIZE * 8);
+        final ByteBuffer emails = direct(CHUNK_SIZE * 8);
+        final AtomicLongArray[] statusBits = new AtomicLongArray[STATUSES.length];
+        final AtomicInteger live = new AtomicInteger();
+
+        Chunk() {
+            for (int i = 0; i < statusBits.length; i++) {
+                statusBits[i] = new AtomicLongArray(WORDS);
+            }
+        }
+    }
+
+    /**
+     * Arena de strings fora da heap: cada valor é gravado como [int cabeçalho][bytes UTF-8] e
+     * referenciado pelo deslocamento. O espaço reservado é arredondado para uma classe de
+     * tamanho (múltiplos de 8 até 256 bytes, potências de 2 até 1MB), guardada no byte alto
+     * do cabeçalho junto com o tamanho atual. Um valor novo que cabe no espaço do anterior é
+     * gravado no lugar; senão o espaço antigo vai para a lista livre da sua classe e é
+     * reaproveitado pelo próximo valor da mesma classe. Assim atualizações e deleções não
+     * fazem a arena crescer. Quem troca ou libera a referência de uma linha segura o lock de
+     * escrita dela, então ninguém está lendo o espaço que muda.
+     */
+    private static final class StringArena {
+        private static final int SEGMENT_SIZE = 4 << 20;
+        private static final int HEADER_SIZE = 4;
+        private static final int LENGTH_MASK = (1 << 24) - 1;
+        private static final int FINE_CLASSES = 32;
+        private static final int FINE_STEP = 8;
+        private static final int MAX_CLASSED_BITS = 20;
+        private static final int CLASSES = FINE_CLASSES + 1 + MAX_CLASSED_BITS - 8;
+        // Acima de 1MB: espaço do tamanho exato, só regravado no lugar com o mesmo tamanho
+        private static final int EXACT = 255;
+
+        private volatile ByteBuffer[] segments = new ByteBuffer[0];
+        private long tail;
+        // Pilhas de referências livres por classe; protegidas pelo monitor da arena
+        private final long[][] free = new long[CLASSES][];
+        private final int[] freeCount = new int[CLASSES];
+        private long freeBytes;
+
+        long write(String value, long previousRef) {
+            if (value == null) {
+                release(previousRef);
+                return -1;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > SEGMENT_SIZE - HEADER_SIZE) {
+                throw new IllegalArgumentException("String too large for off-heap arena: " + bytes.length + " bytes");
+            }
+            int sizeClass = sizeClass(bytes.length);
+            if (previousRef >= 0) {
+                int header = header(previousRef);
+                int previousClass = header >>> 24;
+                boolean fits = previousClass == EXACT
+                        ? (header & LENGTH_MASK) == bytes.length
+                        : capacity(previousClass, 0) >= bytes.length && previousClass <= sizeClass + 1;
+                if (fits) {
+                    put(previousRef, previousClass, bytes);
+                    return previousRef;
+                }
+                release(previousRef);
+            }
+            long ref = allocate(sizeClass, capacity(sizeClass, bytes.length));
+            put(ref, sizeClass, bytes);
+            return ref;
+        }
+
+        String read(long ref) {
+            if (ref < 0) {
+                return null;
+            }
+            ByteBuffer segment = segments[(int) (ref / SEGMENT_SIZE)];
+            int position = (int) (ref % SEGMENT_SIZE);
+            byte[] bytes = new byte[segment.getInt(position) & LENGTH_MASK];
+            segment.get(position + HEADER_SIZE, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        synchronized void release(long ref) {
+            if (ref < 0) {
+                return;
+            }
+            int header = header(ref);
+            int sizeClass = header >>> 24;
+            if (sizeClass == EXACT) {
+                // Raro: valores acima de 1MB não voltam para reuso
+                freeBytes += HEADER_SIZE + (header & LENGTH_MASK);
+                return;
+            }
+            long[] stack = free[sizeClass];
+            if (stack == null || freeCount[sizeClass] == stack.length) {
+                free[sizeClass] = stack = Arrays.copyOf(stack == null ? new long[0] : stack,
+                        Math.max(16, freeCount[sizeClass] * 2));
+            }
+            stack[freeCount[sizeClass]++] = ref;
+            freeBytes += HEADER_SIZE + capacity(sizeClass, 0);
+        }
+
+        long reservedBytes() {
+            return (long) segments.length * SEGMENT_SIZE;
+        }
+
+        // Espaço em listas livres, à espera de reuso
+        synchronized long freeBytes() {
+            return freeBytes;
+        }
+
+        private int header(long ref) {
+            return segments[(int) (ref / SEGMENT_SIZE)].getInt((int) (ref % SEGMENT_SIZE));
+        }
+
+        private void put(long ref, int sizeClass, byte[] bytes) {
+            ByteBuffer segment = segments[(int) (ref / SEGMENT_SIZE)];
+            int position = (int) (ref % SEGMENT_SIZE);
+            segment.put(position + HEADER_SIZE, bytes);
+            segment.putInt(position, sizeClass << 24 | bytes.length);
+        }
+
+        private static int sizeClass(int length) {
+            if (length <= FINE_CLASSES * FINE_STEP) {
+                return (length + FINE_STEP - 1) / FINE_STEP;
+            }
+            int bits = 32 - Integer.numberOfLeadingZeros(length - 1);
+            return bits <= MAX_CLASSED_BITS ? FINE_CLASSES + bits - 8 : EXACT;
+        }
+
+        private static int capacity(int sizeClass, int length) {
+            if (sizeClass == EXACT) {
+                return length;
+            }
+            return sizeClass <= FINE_CLASSES ? sizeClass * FINE_STEP : 1 << (sizeClass - FINE_CLASSES + 8);
+        }
+
+        private synchronized long allocate(int sizeClass, int capacity) {
+            if (sizeClass != EXACT && freeCount[sizeClass] > 0) {
+                freeBytes -= HEADER_SIZE + capacity;
+                return free[sizeClass][--freeCount[sizeClass]];
+            }
+            int length = HEADER_SIZE + capacity;
+            long limit = (long) segments.length * SEGMENT_SIZE;
+            if (tail + length > limit) {
+                // Descarta o resto do segmento atual e começa um novo
+                tail = limit;
+                ByteBuffer[] grown = Arrays.copyOf(segments, segments.length + 1);
+                grown[grown.length - 1] = direct(SEGMENT_SIZE);
+                segments = grown;
+            }
+            long ref = tail;
+            tail += length;
+            return ref;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package br.com.grpc.repository;
+
+import br.com.grpc.model.User;
+import br.com.grpc.model.UserChange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Buffer circular das mutações do {@link UserRepository}. Cada save/delete recebe um
+ * número de sequência crescente; leitores consultam por sequência e percebem quando o
+ * evento desejado já foi sobrescrito, em vez de o buffer crescer sem limite.
+ */
+@Component
+public class UserChangeLog {
+
+    public static final int DEFAULT_CAPACITY = 65536;
+
+    private final AtomicReferenceArray<UserChange> slots;
+    private final int mask;
+    private final Set<Consumer<UserChange>> listeners = new CopyOnWriteArraySet<>();
+    // Persistência opcional: recebe as mutações na mesma ordem das sequências
+    private volatile UserWriteAheadLog journal;
+    // Último número publicado; escrito depois do slot, então quem o lê enxerga o evento
+    private volatile long latestSequence;
+
+    public UserChangeLog(@Value("${grpc.watch.buffer-size:" + DEFAULT_CAPACITY + "}") int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Change log capacity must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    // Chamado de dentro do compute() (ou sob o lock da faixa) do repositório, que garante a
+    // ordem por id. O monitor é o único ponto comum a todas as escritas: ele só cobre a
+    // sequência, o slot do anel e o enfileiramento em memória no write-ahead log, que precisa
+    // receber os registros na ordem das sequências (o fsync roda depois, em awaitDurable).
+    // Os listeners rodam fora dele; a ordem por id continua garantida pelo lock da linha
+    UserChange append(UserChange.Type type, Long userId, User user) {
+        UserChange change;
+        synchronized (this) {
+            long sequence = latestSequence + 1;
+            change = new UserChange(sequence, type, userId, user);
+            slots.set((int) (sequence & mask), change);
+            latestSequence = sequence;
+            UserWriteAheadLog wal = journal;
+            if (wal != null) {
+                wal.append(change);
+            }
+        }
+        for (Consumer<UserChange> listener : listeners) {
+            listener.accept(change);
+        }
+        return change;
+    }
+
+    /**
+     * Lança {@link java.io.UncheckedIOException} se o write-ahead log anexado já falhou. As
+     * escritas chamam antes de mutar, para que leitores, watchers e caches nunca vejam uma
+     * mutação que não pode mais ser durável; só as que já passaram daqui quando a falha
+     * acontece descobrem no {@link #awaitDurable()}.
+     */
+    public void checkWritable() {
+        UserWriteAheadLog wal = journal;
+        if (wal != null) {
+            wal.checkAvailable();
+        }
+    }
+
+    /**
+     * Espera até que todas as mutações publicadas até aqui estejam duráveis, conforme o
+     * modo de sync do write-ahead log. Sem log anexado, retorna na hora.
+     */
+    public void awaitDurable() {
+        UserWriteAheadLog wal = journal;
+        if (wal != null) {
+            wal.awaitDurable(latestSequence);
+        }
+    }
+
+    synchronized void attach(UserWriteAheadLog wal) {
+        journal = wal;
+    }
+
+    synchronized void detach(UserWriteAheadLog wal) {
+        if (journal == wal) {
+            journal = null;
+        }
+    }
+
+    /**
+     * Evento com a sequência pedida, ou {@code null} se ainda não foi publicado
+     * ({@code sequence > latestSequence()}) ou já foi sobrescrito.
+     */
+    public UserChange get(long sequence) {
+        if (sequence <= 0 || sequence > latestSequence) {
+            return null;
+        }
+        UserChange change = slots.get((int) (sequence & mask));
+        return change != null && change.getSequence() == sequence ? change : null;
+    }
+
+    public long latestSequence() {
+        return latestSequence;
+    }
+
+    public long oldestSequence() {
+        return Math.max(1, latestSequence - slots.length() + 1);
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    // Listeners rodam na thread de escrita, dentro do lock do id: devem apenas agendar ou invalidar
+    public void addListener(Consumer<UserChange> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<UserChange> listener) {
+        listeners.remove(listener);
+    }
+
+    public int listenerCount() {
+        return listeners.size();
+    }
+}
@@ -0,0 +1,194 @@
+package br.com.grpc.repository;
+
+import br.com.grpc.model.User;
+import br.com.grpc.model.UserChange;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Formato binário dos registros do write-ahead log:
+ * {@code [int tamanho][int crc32][payload]}. O payload traz o tipo, o id e, em upserts,
+ * o usuário completo, de modo que reaplicar um registro é idempotente. A versão vai no fim
+ * do upsert; registros anteriores a ela terminam em {@code updatedAt} e voltam com versão 1.
+ */
+final class UserLogCodec {
+
+    private static final byte UPSERT = 1;
+    private static final byte DELETE = 2;
+    private static final int HEADER_SIZE = 8;
+    // Nenhum usuário válido chega perto disso; acima é lixo de uma escrita interrompida
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private UserLogCodec() {
+    }
+
+    static void write(RecordBuffer out, UserChange change) {
+        int start = out.size();
+        out.putInt(0);
+        out.putInt(0);
+        if (change.getType() == UserChange.Type.DELETED) {
+            out.write(DELETE);
+            out.putLong(change.getUserId());
+        } else {
+            User user = change.getUser();
+            out.write(UPSERT);
+            out.putLong(user.getId());
+            out.putString(user.getName());
+            out.putString(user.getEmail());
+            out.write(user.getAge() == null ? 0 : 1);
+            out.putInt(user.getAge() == null ? 0 : user.getAge());
+            out.write(user.getStatus() == null ? -1 : user.getStatus().ordinal());
+            out.putDateTime(user.getCreatedAt());
+            out.putDateTime(user.getUpdatedAt());
+            out.putLong(user.getVersion());
+        }
+        int length = out.size() - start - HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        crc.update(out.array(), start + HEADER_SIZE, length);
+        out.setInt(start, length);
+        out.setInt(start + 4, (int) crc.getValue());
+    }
+
+    /**
+     * Lê os registros em ordem até o fim do arquivo ou até o primeiro registro incompleto
+     * ou corrompido. Devolve quantos bytes do início do arquivo são válidos.
+     */
+    static long readAll(Path file, Consumer<UserChange> consumer) throws IOException {
+        long valid = 0;
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+            byte[] payload = new byte[256];
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                int checksum;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                } catch (EOFException e) {
+                    return valid;
+                }
+                if (length <= 0 || length > MAX_RECORD_SIZE) {
+                    return valid;
+                }
+                if (payload.length < length) {
+                    payload = new byte[Math.max(length, payload.length * 2)];
+                }
+                try {
+                    in.readFully(payload, 0, length);
+                } catch (EOFException e) {
+                    return valid;
+                }
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    return valid;
+                }
+                consumer.accept(decode(ByteBuffer.wrap(payload, 0, length)));
+                valid += HEADER_SIZE + length;
+            }
+        }
+    }
+
+    private static UserChange decode(ByteBuffer in) {
+        byte type = in.get();
+        long id = in.getLong();
+        if (type == DELETE) {
+            return new UserChange(0, UserChange.Type.DELETED, id, null);
+        }
+        User user = new User();
+        user.setId(id);
+        user.setName(getString(in));
+        user.setEmail(getString(in));
+        boolean hasAge = in.get() != 0;
+        int age = in.getInt();
+        user.setAge(hasAge ? age : null);
+        byte status = in.get();
+        user.setStatus(status < 0 ? null : User.UserStatus.values()[status]);
+        user.setCreatedAt(getDateTime(in));
+        user.setUpdatedAt(getDateTime(in));
+        user.setVersion(in.hasRemaining() ? in.getLong() : 1L);
+        return new UserChange(0, UserChange.Type.UPSERTED, id, user);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static LocalDateTime getDateTime(ByteBuffer in) {
+        boolean present = in.get() != 0;
+        long seconds = in.getLong();
+        int nanos = in.getInt();
+        return present ? LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC) : null;
+    }
+
+    // Buffer de registros com acesso ao array interno, para ir ao canal sem cópia
+    static final class RecordBuffer extends ByteArrayOutputStream {
+
+        RecordBuffer(int capacity) {
+            super(capacity);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        ByteBuffer view() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+        void putInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        void putLong(long value) {
+            putInt((int) (value >>> 32));
+            putInt((int) value);
+        }
+
+        void setInt(int at, int value) {
+            buf[at] = (byte) (value >>> 24);
+            buf[at + 1] = (byte) (value >>> 16);
+            buf[at + 2] = (byte) (value >>> 8);
+            buf[at + 3] = (byte) value;
+        }
+
+        void putString(String value) {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        void putDateTime(LocalDateTime value) {
+            write(value == null ? 0 : 1);
+            putLong(value == null ? 0 : value.toEpochSecond(ZoneOffset.UTC));
+            putInt(value == null ? 0 : value.getNano());
+        }
+    }
+}
@@ -1,60 +1,77 @@
 package br.com.grpc.repository;
 
 import br.com.grpc.model.User;
-import org.springframework.stereotype.Repository;
-
-import java.time.LocalDateTime;
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
-
-@Repository
-public class UserRepository {
-    
-    private final Map<Long, User> users = new ConcurrentHashMap<>();
-    private final AtomicLong idGenerator = new AtomicLong(1);
-
-    public User save(User user) {
-        if (user.getId() == null) {
-            user.setId(idGenerator.getAndIncrement());
-            user.setCreatedAt(LocalDateTime.now());
-        }
-        user.setUpdatedAt(LocalDateTime.now());
-        users.put(user.getId(), user);
-        return user;
-    }
+import br.com.grpc.model.UserBatchResult;
 
-    public Optional<User> findById(Long id) {
-        return Optional.ofNullable(users.get(id));
-    }
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
-    public List<User> findAll() {
-        return new ArrayList<>(users.values());
-    }
+/**
+ * Armazenamento de usuários. A implementação é escolhida por {@code users.store.type}:
+ * {@code heap} (padrão, {@link InMemoryUserRepository}) ou {@code off-heap}
+ * ({@link OffHeapUserRepository}).
+ */
+public interface UserRepository {
 
-    public List<User> findByStatus(User.UserStatus status) {
-        return users.values().stream()
-                .filter(user -> user.getStatus() == status)
-                .collect(Collectors.toList());
-    }
+    // Escritas retornam depois de duráveis quando há write-ahead log (ver UserWriteAheadLog) e,
+    // se ele falhou, são rejeitadas com UncheckedIOException antes de mudar qualquer coisa.
+    // Email repetido (sem distinção de maiúsculas) lança DuplicateEmailException
+    User save(User user);
 
-    public boolean deleteById(Long id) {
-        return users.remove(id) != null;
-    }
+    // Um único bloco de ids e um único timestamp para todo o lote; um resultado por usuário,
+    // na ordem da entrada (email repetido falha só o item)
+    List<UserBatchResult> saveAll(List<User> batch);
 
-    public boolean existsById(Long id) {
-        return users.containsKey(id);
-    }
+    // Grava os usuários como vieram, com ids e datas, sem publicar no change log; usado
+    // na carga de snapshots e na recuperação do write-ahead log. Seguro em paralelo
+    void restore(List<User> users);
 
-    public long count() {
-        return users.size();
-    }
+    // Remove como restore grava: sem publicar no change log nem esperar o disco; usado ao
+    // reaplicar exclusões do write-ahead log
+    void restoreDelete(Long id);
+
+    Optional<User> findById(Long id);
+
+    // Busca O(1) pelo índice único de email, sem distinção de maiúsculas
+    Optional<User> findByEmail(String email);
+
+    Map<Long, User> findAllById(Collection<Long> ids);
+
+    List<User> findAll();
 
-    public List<User> findAllPaginated(int page, int size) {
-        return users.values().stream()
-                .skip((long) page * size)
-                .limit(size)
-                .collect(Collectors.toList());
+    List<User> findByStatus(User.UserStatus status);
+
+    // Percorre os usuários do status sob demanda, sem materializar a lista
+    Iterator<User> iterateByStatus(User.UserStatus status);
+
+    // Atualização atômica de um usuário existente: com expectedVersion, só grava se a versão
+    // atual for essa (senão VersionConflictException); nulo grava sem conferir. Mantém
+    // createdAt, grava com versão + 1 e nunca recria um usuário removido (UserNotFoundException)
+    User update(User user, Long expectedVersion);
+
+    default boolean deleteById(Long id) {
+        return deleteById(id, null);
     }
-}
\ No newline at end of file
+
+    // false se o usuário não existe; com expectedVersion diferente da atual, VersionConflictException
+    boolean deleteById(Long id, Long expectedVersion);
+
+    boolean existsById(Long id);
+
+    UserChangeLog getChangeLog();
+
+    long count();
+
+    // Páginas em ordem de id. Por offset: percorre os page * size ids anteriores, então o custo
+    // cresce com a profundidade da página; para páginas fundas use findAllAfter
+    List<User> findAllPaginated(int page, int size);
+
+    // Página seguinte ao id informado (cursor); afterId nulo começa do início. Custo
+    // proporcional ao tamanho da página, qualquer que seja a profundidade
+    List<User> findAllAfter(Long afterId, int size);
+
+    boolean existsAfter(Long id);
+}
@@ -0,0 +1,340 @@
+package br.com.grpc.repository;
+
+import br.com.grpc.model.User;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Snapshot binário compacto do {@link UserRepository}.
+ *
+ * <pre>
+ * [int magic][int versão]
+ * bloco*: [int usuários][int bytes][int crc32][registros]
+ * </pre>
+ *
+ * Cada bloco é independente: a carga percorre só os cabeçalhos para achar os offsets,
+ * mapeia cada bloco com {@link FileChannel#map} e decodifica os blocos em paralelo direto
+ * para o repositório, sem passar pelo change log. Nos registros, ids são deltas em varint
+ * e strings são UTF-8 com tamanho em varint. A versão 2 do formato acrescenta a versão do
+ * usuário em varint; arquivos da versão 1 continuam carregando, com versão 1 para todos.
+ */
+@Slf4j
+public final class UserSnapshot {
+
+    private static final int MAGIC = 0x55534E50;
+    private static final int VERSION = 2;
+    private static final int FIRST_VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int CHUNK_HEADER_SIZE = 12;
+    static final int USERS_PER_CHUNK = 16_384;
+    private static final int PAGE_SIZE = 10_000;
+    private static final User.UserStatus[] STATUSES = User.UserStatus.values();
+
+    private static final int HAS_NAME = 1;
+    private static final int HAS_EMAIL = 1 << 1;
+    private static final int HAS_AGE = 1 << 2;
+    private static final int HAS_CREATED_AT = 1 << 3;
+    private static final int HAS_UPDATED_AT = 1 << 4;
+    private static final int HAS_VERSION = 1 << 5;
+
+    private UserSnapshot() {
+    }
+
+    /**
+     * Grava os usuários em ordem crescente de id. Não faz fsync nem rename: quem chama
+     * decide como publicar o arquivo.
+     */
+    public static long write(Path file, Iterator<User> users) throws IOException {
+        long total = 0;
+        Encoder chunk = new Encoder(1 << 20);
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(out, fileHeader);
+            while (users.hasNext()) {
+                int count = 0;
+                long previousId = 0;
+                chunk.reset();
+                while (count < USERS_PER_CHUNK && users.hasNext()) {
+                    User user = users.next();
+                    chunk.encode(user, previousId);
+                    previousId = user.getId();
+                    count++;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(chunk.array(), 0, chunk.size());
+                ByteBuffer chunkHeader = ByteBuffer.allocate(CHUNK_HEADER_SIZE)
+                        .putInt(count).putInt(chunk.size()).putInt((int) crc.getValue()).flip();
+                writeFully(out, chunkHeader);
+                writeFully(out, ByteBuffer.wrap(chunk.array(), 0, chunk.size()));
+                total += count;
+            }
+            out.force(true);
+        }
+        return total;
+    }
+
+    // Usuários do repositório por cursor de id, sem materializar a base inteira
+    public static Iterator<User> scan(UserRepository repository) {
+        return new Iterator<>() {
+            private List<User> page = repository.findAllAfter(null, PAGE_SIZE);
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                if (index == page.size() && page.size() == PAGE_SIZE) {
+                    page = repository.findAllAfter(page.get(page.size() - 1).getId(), PAGE_SIZE);
+                    index = 0;
+                }
+                return index < page.size();
+            }
+
+            @Override
+            public User next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(index++);
+            }
+        };
+    }
+
+    /**
+     * Carrega o snapshot no repositório com {@link UserRepository#restore}, decodificando
+     * os blocos em paralelo. Devolve quantos usuários foram carregados.
+     */
+    public static long load(Path file, UserRepository repository) throws IOException {
+        long started = System.nanoTime();
+        List<MappedByteBuffer> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, FILE_HEADER_SIZE));
+            if (size < FILE_HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IllegalStateException("Not a user snapshot: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION && version != FIRST_VERSION) {
+                throw new IllegalStateException("Unsupported snapshot version " + version + ": " + file);
+            }
+            // Só os cabeçalhos são lidos aqui; o mapeamento de cada bloco não toca nas páginas
+            long position = FILE_HEADER_SIZE;
+            ByteBuffer chunkHeader = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+            while (position < size) {
+                chunkHeader.clear();
+                if (size - position < CHUNK_HEADER_SIZE || channel.read(chunkHeader, position) != CHUNK_HEADER_SIZE) {
+                    throw new IllegalStateException("Truncated snapshot " + file + " at byte " + position);
+                }
+                int length = chunkHeader.getInt(4);
+                if (length < 0 || position + CHUNK_HEADER_SIZE + length > size) {
+                    throw new IllegalStateException("Truncated snapshot " + file + " at byte " + position);
+                }
+                chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, position, CHUNK_HEADER_SIZE + length));
+                position += CHUNK_HEADER_SIZE + length;
+            }
+        }
+
+        long users;
+        try {
+            users = chunks.parallelStream().mapToLong(chunk -> restoreChunk(chunk, repository)).sum();
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException("Corrupted snapshot " + file + ": " + e.getMessage(), e);
+        }
+        log.info("Loaded {} users from {} ({} chunks) in {} ms", users, file, chunks.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return users;
+    }
+
+    private static long restoreChunk(MappedByteBuffer chunk, UserRepository repository) {
+        int count = chunk.getInt();
+        int length = chunk.getInt();
+        int checksum = chunk.getInt();
+        ByteBuffer records = chunk.slice(CHUNK_HEADER_SIZE, length);
+        CRC32 crc = new CRC32();
+        crc.update(records.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            throw new IllegalStateException("checksum mismatch in a chunk of " + count + " users");
+        }
+
+        List<User> users = new ArrayList<>(count);
+        byte[] scratch = new byte[256];
+        long id = 0;
+        for (int i = 0; i < count; i++) {
+            id += readVarLong(records);
+            int flags = records.get();
+            User user = new User();
+            user.setId(id);
+            int status = records.get();
+            user.setStatus(status == 0 ? null : STATUSES[status - 1]);
+            if ((flags & HAS_NAME) != 0) {
+                scratch = readString(records, scratch, user, true);
+            }
+            if ((flags & HAS_EMAIL) != 0) {
+                scratch = readString(records, scratch, user, false);
+            }
+            if ((flags & HAS_AGE) != 0) {
+                user.setAge((int) readVarLong(records));
+            }
+            if ((flags & HAS_CREATED_AT) != 0) {
+                user.setCreatedAt(readDateTime(records));
+            }
+            if ((flags & HAS_UPDATED_AT) != 0) {
+                user.setUpdatedAt(readDateTime(records));
+            }
+            if ((flags & HAS_VERSION) != 0) {
+                user.setVersion(readVarLong(records));
+            }
+            users.add(user);
+        }
+        repository.restore(users);
+        return count;
+    }
+
+    private static byte[] readString(ByteBuffer in, byte[] scratch, User user, boolean name) {
+        int length = (int) readVarLong(in);
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        in.get(scratch, 0, length);
+        String value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        if (name) {
+            user.setName(value);
+        } else {
+            user.setEmail(value);
+        }
+        return scratch;
+    }
+
+    private static LocalDateTime readDateTime(ByteBuffer in) {
+        long seconds = zigZagDecode(readVarLong(in));
+        int nanos = (int) readVarLong(in);
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("malformed varint");
+    }
+
+    private static long zigZagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+    }
+
+    // Buffer de um bloco; ids entram como delta do anterior, sempre positivo na ordem de id
+    private static final class Encoder {
+        private byte[] buf;
+        private int count;
+
+        private Encoder(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        int size() {
+            return count;
+        }
+
+        void reset() {
+            count = 0;
+        }
+
+        void encode(User user, long previousId) {
+            if (user.getId() == null || user.getId() <= previousId) {
+                throw new IllegalArgumentException("Snapshot users must be in ascending id order: " + user.getId());
+            }
+            int flags = (user.getName() != null ? HAS_NAME : 0)
+                    | (user.getEmail() != null ? HAS_EMAIL : 0)
+                    | (user.getAge() != null ? HAS_AGE : 0)
+                    | (user.getCreatedAt() != null ? HAS_CREATED_AT : 0)
+                    | (user.getUpdatedAt() != null ? HAS_UPDATED_AT : 0)
+                    | (user.getVersion() != null ? HAS_VERSION : 0);
+            putVarLong(user.getId() - previousId);
+            put((byte) flags);
+            put((byte) (user.getStatus() == null ? 0 : user.getStatus().ordinal() + 1));
+            if (user.getName() != null) {
+                putString(user.getName());
+            }
+            if (user.getEmail() != null) {
+                putString(user.getEmail());
+            }
+            if (user.getAge() != null) {
+                // Como inteiro sem sinal: o cast na leitura devolve até idades negativas
+                putVarLong(user.getAge() & 0xFFFFFFFFL);
+            }
+            if (user.getCreatedAt() != null) {
+                putDateTime(user.getCreatedAt());
+            }
+            if (user.getUpdatedAt() != null) {
+                putDateTime(user.getUpdatedAt());
+            }
+            if (user.getVersion() != null) {
+                putVarLong(user.getVersion());
+            }
+        }
+
+        private void putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, count, bytes.length);
+            count += bytes.length;
+        }
+
+        private void putDateTime(LocalDateTime value) {
+            long seconds = value.toEpochSecond(ZoneOffset.UTC);
+            putVarLong((seconds << 1) ^ (seconds >> 63));
+            putVarLong(value.getNano());
+        }
+
+        private void putVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[count++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[count++] = (byte) value;
+        }
+
+        private void put(byte value) {
+            ensure(1);
+            buf[count++] = value;
+        }
+
+        private void ensure(int bytes) {
+            if (count + bytes > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + bytes));
+            }
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package br.com.grpc.repository;
+
+import br.com.grpc.config.WalProperties;
+import br.com.grpc.model.UserChange;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead log do {@link UserRepository}. Cada mutação publicada no {@link UserChangeLog}
+ * é codificada num buffer em memória e gravada em {@code wal-<geração>.log}; as escritas do
+ * repositório só retornam depois do fsync que cobre a sua mutação (modos ALWAYS e GROUP).
+ * Em GROUP um único fsync confirma tudo o que se acumulou enquanto o anterior rodava; em
+ * ALWAYS cada escritor faz o próprio fsync, já fora dos locks do repositório. Depois de uma
+ * falha de I/O toda escrita é rejeitada com {@link UncheckedIOException}, em qualquer modo.
+ *
+ * <p>Periodicamente o estado inteiro vai para {@code snapshot-<geração>.dat} (formato
+ * {@link UserSnapshot}, carregado em paralelo) e os logs
+ * anteriores são apagados. Na subida, o snapshot mais recente é carregado e os logs a
+ * partir dele são reaplicados. Como cada registro traz o usuário completo, reaplicar o log
+ * sobre um snapshot tirado com escritas concorrentes chega ao mesmo estado final.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "users.store.wal.enabled", havingValue = "true")
+public class UserWriteAheadLog {
+
+    private static final Pattern FILE_NAME = Pattern.compile("(wal|snapshot)-(\\d+)\\.(log|dat)");
+    // Em PERIODIC, acorda o flusher antes do intervalo se o buffer crescer demais
+    private static final int PERIODIC_FLUSH_BYTES = 4 << 20;
+
+    private final UserRepository repository;
+    private final UserChangeLog changeLog;
+    private final Path directory;
+    private final WalProperties.SyncMode syncMode;
+    private final long groupCommitDelayNanos;
+    private final long flushIntervalNanos;
+    private final long snapshotIntervalMillis;
+
+    // Protege o buffer pendente; appends nunca esperam pelo disco segurando este lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasWork = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    // Serializa o acesso ao arquivo; a ordem de aquisição é sempre ioLock -> lock
+    private final ReentrantLock ioLock = new ReentrantLock();
+
+    private UserLogCodec.RecordBuffer pending = new UserLogCodec.RecordBuffer(1 << 16);
+    private UserLogCodec.RecordBuffer spare = new UserLogCodec.RecordBuffer(1 << 16);
+    private volatile long appendedSequence;
+    private volatile long durableSequence;
+    private volatile IOException failure;
+    private boolean closing;
+
+    private FileChannel channel;
+    private long generation;
+    private long syncCount;
+    private long snapshotSequence;
+    private Thread flusher;
+    private ScheduledExecutorService scheduler;
+
+    public UserWriteAheadLog(WalProperties properties, UserRepository repository) {
+        this.repository = repository;
+        this.changeLog = repository.getChangeLog();
+        this.directory = Path.of(properties.getDirectory());
+        this.syncMode = properties.getSyncMode();
+        this.groupCommitDelayNanos = properties.getGroupCommitDelay().toNanos();
+        this.flushIntervalNanos = properties.getFlushInterval().toNanos();
+        this.snapshotIntervalMillis = properties.getSnapshotInterval().toMillis();
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+        recover();
+        channel = FileChannel.open(logPath(generation),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        appendedSequence = durableSequence = snapshotSequence = changeLog.latestSequence();
+        changeLog.attach(this);
+
+        if (syncMode != WalProperties.SyncMode.ALWAYS) {
+            flusher = Thread.ofPlatform().name("user-wal-flusher").daemon().start(this::runFlusher);
+        }
+        if (snapshotIntervalMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("user-wal-snapshot").daemon().factory());
+            scheduler.scheduleWithFixedDelay(this::scheduledSnapshot,
+                    snapshotIntervalMillis, snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        log.info("Write-ahead log ready in {} ({} mode): {} users recovered in {} ms",
+                directory.toAbsolutePath(), syncMode, repository.count(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        changeLog.detach(this);
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        lock.lock();
+        try {
+            closing = true;
+            hasWork.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        ioLock.lock();
+        try {
+            flush();
+            channel.close();
+        } finally {
+            ioLock.unlock();
+        }
+        log.info("Write-ahead log closed: {} mutations written with {} fsyncs", appendedSequence, syncCount);
+    }
+
+    // Chamado pelo UserChangeLog, já em ordem de sequência e sob o lock da linha: só codifica e
+    // enfileira. As escritas checam a falha antes de mutar (checkWritable); as que já estavam em
+    // andamento quando ela aconteceu não são enfileiradas e são rejeitadas em awaitDurable
+    void append(UserChange change) {
+        if (failure != null) {
+            return;
+        }
+        lock.lock();
+        try {
+            UserLogCodec.write(pending, change);
+            appendedSequence = change.getSequence();
+            if (syncMode == WalProperties.SyncMode.GROUP
+                    || (syncMode == WalProperties.SyncMode.PERIODIC && pending.size() >= PERIODIC_FLUSH_BYTES)) {
+                hasWork.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Bloqueia até a sequência estar no disco; em PERIODIC retorna na hora. Chamado depois de
+    // soltar o lock da linha, então em ALWAYS o próprio escritor grava e faz o fsync aqui
+    void awaitDurable(long sequence) {
+        checkAvailable();
+        if (syncMode == WalProperties.SyncMode.PERIODIC || durableSequence >= sequence) {
+            return;
+        }
+        if (syncMode == WalProperties.SyncMode.ALWAYS) {
+            // Se outro escritor já levou o registro num flush, este espera o ioLock e sai vazio
+            try {
+                flush();
+            } catch (IOException e) {
+                fail(e);
+            }
+            checkAvailable();
+            return;
+        }
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                checkAvailable();
+                synced.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void checkAvailable() {
+        IOException failed = failure;
+        if (failed != null) {
+            throw new UncheckedIOException("Write-ahead log is unavailable", failed);
+        }
+    }
+
+    /**
+     * Compacta o log: abre uma nova geração, grava o estado atual num snapshot dessa
+     * geração e apaga os arquivos anteriores.
+     */
+    public synchronized void snapshot() throws IOException {
+        long started = System.nanoTime();
+        long snapshotGeneration;
+        long sequence;
+        ioLock.lock();
+        try {
+            flush();
+            channel.close();
+            snapshotGeneration = generation + 1;
+            channel = FileChannel.open(logPath(snapshotGeneration),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            generation = snapshotGeneration;
+            sequence = appendedSequence;
+        } finally {
+            ioLock.unlock();
+        }
+
+        Path temporary = directory.resolve(String.format("snapshot-%08d.tmp", snapshotGeneration));
+        long users = UserSnapshot.write(temporary, UserSnapshot.scan(repository));
+        Files.move(temporary, snapshotPath(snapshotGeneration),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        deleteBefore(snapshotGeneration);
+        snapshotSequence = sequence;
+        log.info("Snapshot {} written with {} users in {} ms", snapshotGeneration, users,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private void scheduledSnapshot() {
+        if (appendedSequence == snapshotSequence) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (IOException e) {
+            log.error("Failed to write snapshot", e);
+        }
+    }
+
+    private void runFlusher() {
+        try {
+            while (awaitWork()) {
+                if (groupCommitDelayNanos > 0) {
+                    LockSupport.parkNanos(groupCommitDelayNanos);
+                }
+                flush();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // GROUP: espera haver algo pendente; PERIODIC: espera o intervalo. false ao fechar
+    private boolean awaitWork() {
+        lock.lock();
+        try {
+            if (syncMode == WalProperties.SyncMode.PERIODIC) {
+                long remaining = flushIntervalNanos;
+                while (!closing && remaining > 0 && pending.size() < PERIODIC_FLUSH_BYTES) {
+                    remaining = hasWork.awaitNanos(remaining);
+                }
+            } else {
+                while (!closing && pending.size() == 0) {
+                    hasWork.awaitUninterruptibly();
+                }
+            }
+            return !closing;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Troca o buffer pendente pelo reserva, grava o lote e faz um único fsync por ele
+    private void flush() throws IOException {
+        ioLock.lock();
+        try {
+            UserLogCodec.RecordBuffer batch;
+            long sequence;
+            lock.lock();
+            try {
+                if (pending.size() == 0) {
+                    return;
+                }
+                batch = pending;
+                pending = spare;
+                spare = batch;
+                sequence = appendedSequence;
+            } finally {
+                lock.unlock();
+            }
+
+            ByteBuffer bytes = batch.view();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+            batch.reset();
+            syncCount++;
+
+            lock.lock();
+            try {
+                durableSequence = sequence;
+                synced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    // Testes fecham o canal para simular uma falha de I/O no próximo flush
+    FileChannel channel() {
+        ioLock.lock();
+        try {
+            return channel;
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    private void fail(IOException e) {
+        log.error("Write-ahead log failed, writes will be rejected", e);
+        lock.lock();
+        try {
+            failure = e;
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Snapshot mais recente + logs a partir da mesma geração; arquivos mais antigos são restos
+    private void recover() throws IOException {
+        long snapshotGeneration = 0;
+        long logGeneration = 0;
+        for (Path file : listFiles()) {
+            Matcher matcher = parse(file);
+            long fileGeneration = Long.parseLong(matcher.group(2));
+            if (matcher.group(1).equals("snapshot")) {
+                snapshotGeneration = Math.max(snapshotGeneration, fileGeneration);
+            } else {
+                logGeneration = Math.max(logGeneration, fileGeneration);
+            }
+        }
+
+        if (snapshotGeneration > 0) {
+            UserSnapshot.load(snapshotPath(snapshotGeneration), repository);
+            deleteBefore(snapshotGeneration);
+        }
+        for (long g = Math.max(snapshotGeneration, 1); g <= logGeneration; g++) {
+            Path logFile = logPath(g);
+            if (!Files.exists(logFile)) {
+                continue;
+            }
+            long valid = UserLogCodec.readAll(logFile, this::apply);
+            long size = Files.size(logFile);
+            if (valid < size) {
+                // Última escrita interrompida pela queda: descarta o registro incompleto
+                log.warn("Truncating {} from {} to {} bytes", logFile, size, valid);
+                try (FileChannel file = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                    file.truncate(valid);
+                    file.force(true);
+                }
+            }
+        }
+        generation = Math.max(1, Math.max(snapshotGeneration, logGeneration));
+    }
+
+    private void apply(UserChange change) {
+        if (change.getType() == UserChange.Type.DELETED) {
+            repository.restoreDelete(change.getUserId());
+        } else {
+            repository.restore(List.of(change.getUser()));
+        }
+    }
+
+    private void deleteBefore(long keepGeneration) throws IOException {
+        for (Path file : listFiles()) {
+            if (Long.parseLong(parse(file).group(2)) < keepGeneration) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> parse(file) != null).toList();
+        }
+    }
+
+    private static Matcher parse(Path file) {
+        Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+        return matcher.matches() ? matcher : null;
+    }
+
+    // Torna o rename do snapshot durável; nem todo sistema de arquivos permite abrir diretórios
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            log.debug("Directory fsync not supported for {}", directory, e);
+        }
+    }
+
+    private Path logPath(long logGeneration) {
+        return directory.resolve(String.format("wal-%08d.log", logGeneration));
+    }
+
+    private Path snapshotPath(long snapshotGeneration) {
+        return directory.resolve(String.format("snapshot-%08d.dat", snapshotGeneration));
+    }
+}
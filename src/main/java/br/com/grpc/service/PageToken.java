@@ -0,0 +1,35 @@
+package br.com.grpc.service;
+
+import br.com.grpc.exception.InvalidUserDataException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor opaco da paginação: codifica o último id entregue, de modo que a
+ * próxima página começa logo depois dele no índice ordenado do repositório.
+ */
+public final class PageToken {
+
+    private static final String PREFIX = "u1:";
+
+    private PageToken() {
+    }
+
+    public static String encode(long lastId) {
+        byte[] raw = (PREFIX + lastId).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    public static long decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(PREFIX)) {
+                throw new InvalidUserDataException("Invalid page token");
+            }
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidUserDataException("Invalid page token");
+        }
+    }
+}
@@ -3,20 +3,29 @@ package br.com.grpc.service;
 import br.com.grpc.exception.InvalidUserDataException;
 import br.com.grpc.exception.UserNotFoundException;
 import br.com.grpc.model.User;
+import br.com.grpc.model.UserBatchResult;
+import br.com.grpc.model.UserPage;
+import br.com.grpc.repository.UserChangeLog;
 import br.com.grpc.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
+    public static final int MAX_BATCH_SIZE = 1000;
+
     private final UserRepository userRepository;
+    private final UserValidator userValidator = new UserValidator();
 
     public User createUser(User user) {
         log.info("Creating user: {}", user.getName());
@@ -24,27 +33,70 @@ public class UserService {
         return userRepository.save(user);
     }
 
+    public List<UserBatchResult> createUsers(List<User> users) {
+        log.info("Creating users in batch: {}", users.size());
+        validateBatchSize(users.size());
+        return validateAndSaveAll(users);
+    }
+
+    // Usado pelo ImportUsers: sem limite de lote e sem log INFO por chamada
+    public List<UserBatchResult> importUsers(List<User> batch) {
+        log.debug("Importing batch of {} users", batch.size());
+        return validateAndSaveAll(batch);
+    }
+
     public User getUserById(Long id) {
         log.info("Getting user by id: {}", id);
         return userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException(id));
     }
 
+    public User getUserByEmail(String email) {
+        log.info("Getting user by email: {}", email);
+        if (!StringUtils.hasText(email)) {
+            throw new InvalidUserDataException("Email is required");
+        }
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new UserNotFoundException("User not found with email: " + email));
+    }
+
+    public List<UserBatchResult> getUsersByIds(List<Long> ids) {
+        log.info("Getting users in batch: {}", ids.size());
+        validateBatchSize(ids.size());
+
+        Map<Long, User> found = userRepository.findAllById(ids);
+        List<UserBatchResult> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = found.get(id);
+            results.add(user != null
+                    ? UserBatchResult.success(user)
+                    : UserBatchResult.failure(UserBatchResult.Failure.NOT_FOUND, "User not found with id: " + id));
+        }
+        return results;
+    }
+
     public User updateUser(User user) {
+        return updateUser(user, null);
+    }
+
+    // Com expectedVersion, só grava sobre essa versão (VersionConflictException se outra
+    // escrita chegou antes); nulo sobrescreve a versão atual
+    public User updateUser(User user, Long expectedVersion) {
         log.info("Updating user: {}", user.getId());
-        if (!userRepository.existsById(user.getId())) {
-            throw new UserNotFoundException(user.getId());
-        }
         validateUser(user);
-        return userRepository.save(user);
+        return userRepository.update(user, expectedVersion);
     }
 
     public boolean deleteUser(Long id) {
+        return deleteUser(id, null);
+    }
+
+    public boolean deleteUser(Long id, Long expectedVersion) {
         log.info("Deleting user: {}", id);
-        if (!userRepository.existsById(id)) {
+        if (!userRepository.deleteById(id, expectedVersion)) {
             throw new UserNotFoundException(id);
         }
-        return userRepository.deleteById(id);
+        return true;
     }
 
     public List<User> getAllUsers(int page, int size) {
@@ -55,6 +107,28 @@ public class UserService {
         return userRepository.findAllPaginated(page, size);
     }
 
+    public UserPage getUsersAfter(String pageToken, int size) {
+        log.info("Getting users after token: {}, size: {}", pageToken, size);
+        if (size <= 0) {
+            throw new InvalidUserDataException("Invalid pagination parameters");
+        }
+        Long afterId = StringUtils.hasText(pageToken) ? PageToken.decode(pageToken) : null;
+        List<User> users = userRepository.findAllAfter(afterId, size);
+        return new UserPage(users, nextPageToken(users));
+    }
+
+    public String nextPageToken(List<User> page) {
+        if (page.isEmpty()) {
+            return null;
+        }
+        Long lastId = page.get(page.size() - 1).getId();
+        return userRepository.existsAfter(lastId) ? PageToken.encode(lastId) : null;
+    }
+
+    public UserChangeLog getChangeLog() {
+        return userRepository.getChangeLog();
+    }
+
     public long getTotalCount() {
         return userRepository.count();
     }
@@ -64,22 +138,47 @@ public class UserService {
         return userRepository.findByStatus(status);
     }
 
-    private void validateUser(User user) {
-        if (!StringUtils.hasText(user.getName())) {
-            throw new InvalidUserDataException("Name is required");
+    public Iterator<User> streamUsersByStatus(User.UserStatus status) {
+        log.info("Streaming users by status: {}", status);
+        return userRepository.iterateByStatus(status);
+    }
+
+    private List<UserBatchResult> validateAndSaveAll(List<User> users) {
+        List<UserBatchResult> results = new ArrayList<>(users.size());
+        List<User> valid = new ArrayList<>(users.size());
+        for (User user : users) {
+            List<String> violations = userValidator.validate(user);
+            if (violations.isEmpty()) {
+                valid.add(user);
+                // Preenchido com o resultado da gravação logo abaixo
+                results.add(null);
+            } else {
+                results.add(UserBatchResult.failure(UserBatchResult.Failure.INVALID_DATA, String.join("; ", violations)));
+            }
         }
-        if (!StringUtils.hasText(user.getEmail())) {
-            throw new InvalidUserDataException("Email is required");
+        if (valid.isEmpty()) {
+            return results;
         }
-        if (!isValidEmail(user.getEmail())) {
-            throw new InvalidUserDataException("Invalid email format");
+        // Um resultado por usuário válido, na mesma ordem: email repetido falha só o item
+        Iterator<UserBatchResult> saved = userRepository.saveAll(valid).iterator();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                results.set(i, saved.next());
+            }
         }
-        if (user.getAge() == null || user.getAge() < 0 || user.getAge() > 150) {
-            throw new InvalidUserDataException("Age must be between 0 and 150");
+        return results;
+    }
+
+    private void validateBatchSize(int size) {
+        if (size == 0 || size > MAX_BATCH_SIZE) {
+            throw new InvalidUserDataException("Batch size must be between 1 and " + MAX_BATCH_SIZE);
         }
     }
 
-    private boolean isValidEmail(String email) {
-        return email.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+    private void validateUser(User user) {
+        List<String> violations = userValidator.validate(user);
+        if (!violations.isEmpty()) {
+            throw new InvalidUserDataException(violations);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,119 @@
+package br.com.grpc.service;
+
+import br.com.grpc.model.User;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Regras de validação do usuário, montadas uma vez e aplicadas em sequência. Todas as violações
+ * são devolvidas juntas; um usuário válido não aloca nada (a lista vazia é compartilhada).
+ *
+ * <p>O email é conferido por um scanner de uma passada que aceita exatamente o que a antiga
+ * expressão {@code ^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\.[A-Za-z]{2,}$} aceitava, sem compilar nem
+ * executar regex.
+ */
+public final class UserValidator {
+
+    public static final String NAME_REQUIRED = "Name is required";
+    public static final String EMAIL_REQUIRED = "Email is required";
+    public static final String EMAIL_INVALID = "Invalid email format";
+    public static final String AGE_OUT_OF_RANGE = "Age must be between 0 and 150";
+
+    private static final int MIN_AGE = 0;
+    private static final int MAX_AGE = 150;
+
+    // Classes de caractere ASCII da parte local e do domínio
+    private static final boolean[] LOCAL_CHARS = new boolean[128];
+    private static final boolean[] DOMAIN_CHARS = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            LOCAL_CHARS[c] = DOMAIN_CHARS[c] = true;
+            LOCAL_CHARS[Character.toUpperCase(c)] = DOMAIN_CHARS[Character.toUpperCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            LOCAL_CHARS[c] = DOMAIN_CHARS[c] = true;
+        }
+        LOCAL_CHARS['.'] = DOMAIN_CHARS['.'] = true;
+        LOCAL_CHARS['-'] = DOMAIN_CHARS['-'] = true;
+        LOCAL_CHARS['+'] = true;
+        LOCAL_CHARS['_'] = true;
+    }
+
+    @FunctionalInterface
+    private interface Rule {
+        /** Mensagem da violação, ou {@code null} se o usuário passa na regra. */
+        String check(User user);
+    }
+
+    private static final Rule[] RULES = {
+            user -> StringUtils.hasText(user.getName()) ? null : NAME_REQUIRED,
+            user -> {
+                String email = user.getEmail();
+                if (!StringUtils.hasText(email)) {
+                    return EMAIL_REQUIRED;
+                }
+                return isValidEmail(email) ? null : EMAIL_INVALID;
+            },
+            user -> {
+                Integer age = user.getAge();
+                return age != null && age >= MIN_AGE && age <= MAX_AGE ? null : AGE_OUT_OF_RANGE;
+            }
+    };
+
+    /** Violações do usuário, na ordem das regras; vazia quando ele é válido. */
+    public List<String> validate(User user) {
+        List<String> violations = null;
+        for (Rule rule : RULES) {
+            String violation = rule.check(user);
+            if (violation != null) {
+                if (violations == null) {
+                    violations = new ArrayList<>(RULES.length);
+                }
+                violations.add(violation);
+            }
+        }
+        return violations == null ? List.of() : violations;
+    }
+
+    /**
+     * Parte local não vazia, um único {@code @}, e domínio não vazio cujo último {@code .} é
+     * seguido de pelo menos duas letras e de mais nada.
+     */
+    public static boolean isValidEmail(CharSequence email) {
+        int length = email.length();
+        int at = -1;
+        int lastDot = -1;
+        boolean tldLetters = false;
+        for (int i = 0; i < length; i++) {
+            char c = email.charAt(i);
+            if (c >= 128) {
+                return false;
+            }
+            if (at < 0) {
+                if (c == '@') {
+                    if (i == 0) {
+                        return false;
+                    }
+                    at = i;
+                } else if (!LOCAL_CHARS[c]) {
+                    return false;
+                }
+            } else if (!DOMAIN_CHARS[c]) {
+                return false;
+            } else if (c == '.') {
+                lastDot = i;
+                tldLetters = true;
+            } else if (tldLetters && !isLetter(c)) {
+                tldLetters = false;
+            }
+        }
+        return at >= 0 && lastDot > at + 1 && length - lastDot > 2 && tldLetters;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
@@ -3,7 +3,7 @@ package br.com.grpc;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.grpc.server.port=0")
 class GrpcApplicationTests {
 
     @Test
@@ -0,0 +1,247 @@
+package br.com.grpc.client;
+
+import br.com.grpc.config.GrpcClientProperties;
+import br.com.grpc.config.ImportProperties;
+import br.com.grpc.grpc.UserGrpcService;
+import br.com.grpc.mapper.UserMapper;
+import br.com.grpc.model.User;
+import br.com.grpc.repository.InMemoryUserRepository;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.repository.UserRepository;
+import br.com.grpc.service.UserService;
+import br.com.grpc.user.proto.UserResponse;
+import br.com.grpc.user.proto.UserStatus;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserGrpcClientTest {
+
+    private static final int CHANNELS = 3;
+
+    private Server server;
+    private final List<ManagedChannel> managedChannels = new ArrayList<>();
+    private final List<ManagedChannel> countingChannels = new ArrayList<>();
+    private final List<AtomicInteger> callsPerChannel = new ArrayList<>();
+    private UserGrpcClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UserRepository repository = new InMemoryUserRepository(new UserChangeLog(1024));
+        for (int i = 1; i <= 3; i++) {
+            repository.save(User.builder()
+                    .name("Usuário " + i)
+                    .email("usuario" + i + "@email.com")
+                    .age(20 + i)
+                    .status(User.UserStatus.ACTIVE)
+                    .build());
+        }
+        String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+                .addService(new UserGrpcService(new UserService(repository), new UserMapper(), new ImportProperties()))
+                .build()
+                .start();
+
+        for (int i = 0; i < CHANNELS; i++) {
+            ManagedChannel channel = InProcessChannelBuilder.forName(serverName).build();
+            AtomicInteger calls = new AtomicInteger();
+            managedChannels.add(channel);
+            callsPerChannel.add(calls);
+            countingChannels.add(new CountingChannel(channel, calls));
+        }
+        client = new UserGrpcClient(new ChannelPool(countingChannels), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.shutdown();
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void getUserAsync_ReturnsUser() throws Exception {
+        UserResponse user = client.getUserAsync(2).get(5, TimeUnit.SECONDS);
+
+        assertEquals("usuario2@email.com", user.getEmail());
+    }
+
+    @Test
+    void getUserAsync_NotFound_CompletesExceptionallyWithStatus() {
+        CompletableFuture<UserResponse> future = client.getUserAsync(99);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        StatusRuntimeException cause = assertInstanceOf(StatusRuntimeException.class, e.getCause());
+        assertEquals(Status.Code.NOT_FOUND, cause.getStatus().getCode());
+    }
+
+    @Test
+    void calls_SpreadRoundRobinAcrossChannels() throws Exception {
+        List<CompletableFuture<UserResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            futures.add(client.getUserAsync(1 + i % 3));
+        }
+        client.getUser(1);
+        client.listUsers(0, 10);
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(11, 11, 10), callsPerChannel.stream().map(AtomicInteger::get).toList());
+    }
+
+    @Test
+    void getUser_Coalescing_SameResultsWithFewerCalls() throws Exception {
+        GrpcClientProperties.Coalescing coalescing = new GrpcClientProperties.Coalescing();
+        coalescing.setEnabled(true);
+        coalescing.setWindow(Duration.ofMillis(20));
+        UserGrpcClient coalesced = new UserGrpcClient(new ChannelPool(countingChannels), Duration.ofSeconds(5), coalescing);
+
+        List<CompletableFuture<UserResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            futures.add(coalesced.getUserAsync(1 + i % 3));
+        }
+        CompletableFuture<UserResponse> missing = coalesced.getUserAsync(99);
+
+        for (int i = 0; i < 30; i++) {
+            assertEquals(1 + i % 3, futures.get(i).get(5, TimeUnit.SECONDS).getId());
+        }
+        ExecutionException e = assertThrows(ExecutionException.class, () -> missing.get(5, TimeUnit.SECONDS));
+        assertEquals(Status.Code.NOT_FOUND,
+                assertInstanceOf(StatusRuntimeException.class, e.getCause()).getStatus().getCode());
+        // 31 buscas em no máximo alguns lotes da janela
+        assertTrue(callsPerChannel.stream().mapToInt(AtomicInteger::get).sum() <= 3);
+        StatusRuntimeException blocking = assertThrows(StatusRuntimeException.class, () -> coalesced.getUser(98));
+        assertEquals(Status.Code.NOT_FOUND, blocking.getStatus().getCode());
+        coalesced.shutdown();
+    }
+
+    @Test
+    void getUser_NearCache_HitsSkipTheServerAndWritesInvalidate() throws Exception {
+        GrpcClientProperties.Cache cache = new GrpcClientProperties.Cache();
+        cache.setEnabled(true);
+        UserGrpcClient cached = new UserGrpcClient(new ChannelPool(countingChannels), Duration.ofSeconds(5),
+                new GrpcClientProperties.Coalescing(), cache);
+
+        cached.getUser(1);
+        cached.getUser(1);
+        assertEquals("usuario1@email.com", cached.getUserAsync(1).get(5, TimeUnit.SECONDS).getEmail());
+        assertEquals(1, totalCalls());
+
+        cached.updateUser(1, "Renomeado", "usuario1@email.com", 30, UserStatus.ACTIVE);
+        assertEquals("Renomeado", cached.getUser(1).getName());
+        assertEquals(3, totalCalls());
+
+        cached.deleteUserAsync(1).get(5, TimeUnit.SECONDS);
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class, () -> cached.getUser(1));
+        assertEquals(Status.Code.NOT_FOUND, e.getStatus().getCode());
+        cached.shutdown();
+    }
+
+    private int totalCalls() {
+        return callsPerChannel.stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    @Test
+    void streamUsersByStatus_DeliversEachUserInOrder() {
+        List<Long> ids = new ArrayList<>();
+
+        long count = client.streamUsersByStatus(UserStatus.ACTIVE, user -> ids.add(user.getId()));
+
+        assertEquals(3, count);
+        assertEquals(List.of(1L, 2L, 3L), ids);
+    }
+
+    @Test
+    void streamUsersByStatus_ConsumerFails_CancelsAndRethrows() {
+        AtomicInteger received = new AtomicInteger();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> client.streamUsersByStatus(UserStatus.ACTIVE, user -> {
+                    received.incrementAndGet();
+                    throw new IllegalStateException("client gone");
+                }));
+
+        assertEquals("client gone", e.getMessage());
+        assertEquals(1, received.get());
+    }
+
+    @Test
+    void shutdown_TerminatesEveryChannel() throws Exception {
+        client.shutdown();
+
+        assertTrue(managedChannels.stream().allMatch(ManagedChannel::isTerminated));
+    }
+
+    // ManagedChannel que conta as chamadas antes de repassá-las ao canal real
+    private static final class CountingChannel extends ManagedChannel {
+        private final ManagedChannel delegate;
+        private final Channel intercepted;
+
+        CountingChannel(ManagedChannel delegate, AtomicInteger calls) {
+            this.delegate = delegate;
+            this.intercepted = ClientInterceptors.intercept(delegate, new ClientInterceptor() {
+                @Override
+                public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                                           CallOptions options, Channel next) {
+                    calls.incrementAndGet();
+                    return next.newCall(method, options);
+                }
+            });
+        }
+
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions options) {
+            return intercepted.newCall(method, options);
+        }
+
+        @Override
+        public String authority() {
+            return delegate.authority();
+        }
+
+        @Override
+        public ManagedChannel shutdown() {
+            return delegate.shutdown();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public ManagedChannel shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
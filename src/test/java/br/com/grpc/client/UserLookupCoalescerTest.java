@@ -0,0 +1,157 @@
+package br.com.grpc.client;
+
+import br.com.grpc.user.proto.BatchUserResult;
+import br.com.grpc.user.proto.BatchUsersResponse;
+import br.com.grpc.user.proto.UserResponse;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserLookupCoalescerTest {
+
+    // Ids pares existem; ímpares dão NOT_FOUND, como no servidor
+    private final List<Long> getUserCalls = new CopyOnWriteArrayList<>();
+    private final List<List<Long>> batchCalls = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<Void> release = new CompletableFuture<>();
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private UserLookupCoalescer coalescer(Duration window, int maxBatchSize) {
+        return new UserLookupCoalescer(
+                id -> {
+                    getUserCalls.add(id);
+                    return release.thenApply(ignored -> {
+                        if (id % 2 != 0) {
+                            throw Status.NOT_FOUND.withDescription("User not found with id: " + id).asRuntimeException();
+                        }
+                        return user(id);
+                    });
+                },
+                ids -> {
+                    batchCalls.add(List.copyOf(ids));
+                    return release.thenApply(ignored -> batch(ids));
+                },
+                scheduler, window, maxBatchSize);
+    }
+
+    private static UserResponse user(long id) {
+        return UserResponse.newBuilder().setId(id).setEmail("usuario" + id + "@email.com").build();
+    }
+
+    private static BatchUsersResponse batch(List<Long> ids) {
+        BatchUsersResponse.Builder response = BatchUsersResponse.newBuilder();
+        for (int i = 0; i < ids.size(); i++) {
+            long id = ids.get(i);
+            BatchUserResult.Builder item = BatchUserResult.newBuilder().setIndex(i);
+            if (id % 2 == 0) {
+                item.setCode(Status.Code.OK.value()).setUser(user(id));
+            } else {
+                item.setCode(Status.Code.NOT_FOUND.value()).setErrorMessage("User not found with id: " + id);
+            }
+            response.addResults(item);
+        }
+        return response.build();
+    }
+
+    @Test
+    void get_SameIdInFlight_SharesOneCall() throws Exception {
+        UserLookupCoalescer coalescer = coalescer(Duration.ZERO, 100);
+
+        CompletableFuture<UserResponse> first = coalescer.get(2);
+        CompletableFuture<UserResponse> second = coalescer.get(2);
+        release.complete(null);
+
+        assertEquals(user(2), first.get(5, TimeUnit.SECONDS));
+        assertEquals(user(2), second.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(2L), getUserCalls);
+        assertEquals(2, coalescer.requestCount());
+        assertEquals(1, coalescer.callCount());
+        assertEquals(1, coalescer.savedCount());
+    }
+
+    @Test
+    void get_AfterCallCompletes_SendsANewCall() throws Exception {
+        UserLookupCoalescer coalescer = coalescer(Duration.ZERO, 100);
+        release.complete(null);
+
+        coalescer.get(2).get(5, TimeUnit.SECONDS);
+        coalescer.get(2).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(2L, 2L), getUserCalls);
+    }
+
+    @Test
+    void get_DistinctIdsInWindow_OneBatchWithPerIdResults() throws Exception {
+        UserLookupCoalescer coalescer = coalescer(Duration.ofMillis(20), 100);
+
+        CompletableFuture<UserResponse> two = coalescer.get(2);
+        CompletableFuture<UserResponse> three = coalescer.get(3);
+        CompletableFuture<UserResponse> four = coalescer.get(4);
+        release.complete(null);
+
+        assertEquals(user(2), two.get(5, TimeUnit.SECONDS));
+        assertEquals(user(4), four.get(5, TimeUnit.SECONDS));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> three.get(5, TimeUnit.SECONDS));
+        assertEquals(Status.Code.NOT_FOUND, assertInstanceOf(StatusRuntimeException.class, e.getCause()).getStatus().getCode());
+        assertEquals(List.of(List.of(2L, 3L, 4L)), batchCalls);
+        assertTrue(getUserCalls.isEmpty());
+        assertEquals(2, coalescer.savedCount());
+    }
+
+    @Test
+    void get_BatchFull_SentBeforeWindowCloses() throws Exception {
+        UserLookupCoalescer coalescer = coalescer(Duration.ofHours(1), 2);
+        release.complete(null);
+
+        CompletableFuture<UserResponse> two = coalescer.get(2);
+        CompletableFuture<UserResponse> four = coalescer.get(4);
+
+        assertEquals(user(2), two.get(5, TimeUnit.SECONDS));
+        assertEquals(user(4), four.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of(2L, 4L)), batchCalls);
+    }
+
+    @Test
+    void get_SingleIdInWindow_SentAsGetUser() throws Exception {
+        UserLookupCoalescer coalescer = coalescer(Duration.ofMillis(5), 100);
+        release.complete(null);
+
+        assertEquals(user(6), coalescer.get(6).get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(6L), getUserCalls);
+        assertTrue(batchCalls.isEmpty());
+    }
+
+    @Test
+    void get_CallerCancels_OthersStillGetTheResult() throws Exception {
+        UserLookupCoalescer coalescer = coalescer(Duration.ZERO, 100);
+
+        CompletableFuture<UserResponse> cancelled = coalescer.get(2);
+        CompletableFuture<UserResponse> other = coalescer.get(2);
+        cancelled.cancel(true);
+        release.complete(null);
+
+        assertEquals(user(2), other.get(5, TimeUnit.SECONDS));
+    }
+}
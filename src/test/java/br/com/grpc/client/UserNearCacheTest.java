@@ -0,0 +1,82 @@
+package br.com.grpc.client;
+
+import br.com.grpc.config.GrpcClientProperties;
+import br.com.grpc.user.proto.UserResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserNearCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private UserNearCache cache(DataSize maxSize, Duration ttl) {
+        GrpcClientProperties.Cache properties = new GrpcClientProperties.Cache();
+        properties.setEnabled(true);
+        properties.setMaxSize(maxSize);
+        properties.setTtl(ttl);
+        return new UserNearCache(properties, nanos::get, Runnable::run);
+    }
+
+    private static UserResponse user(long id) {
+        return UserResponse.newBuilder().setId(id).setName("Usuário " + id).setEmail("usuario" + id + "@email.com").build();
+    }
+
+    @Test
+    void get_AfterPut_HitUntilTtl() {
+        UserNearCache cache = cache(DataSize.ofMegabytes(1), Duration.ofSeconds(5));
+        cache.put(user(1), cache.writeMark());
+
+        nanos.addAndGet(Duration.ofSeconds(4).toNanos());
+        assertEquals(user(1), cache.get(1));
+        nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+        assertNull(cache.get(1));
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    void put_AboveMaxSize_EvictsByWeight() {
+        // Cada entrada pesa o tamanho serializado mais o overhead; cabem poucas em 1KB
+        UserNearCache cache = cache(DataSize.ofKilobytes(1), Duration.ofMinutes(1));
+        for (long id = 1; id <= 100; id++) {
+            cache.put(user(id), cache.writeMark());
+        }
+
+        assertTrue(cache.size() < 20);
+        assertTrue(cache.stats().evictionCount() > 80);
+        assertTrue(cache.stats().evictionWeight() > 0);
+    }
+
+    @Test
+    void put_InvalidatedSinceLookupStarted_IsDropped() {
+        UserNearCache cache = cache(DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+        long mark = cache.writeMark();
+        cache.invalidate(1);
+
+        cache.put(user(1), mark);
+
+        assertNull(cache.get(1));
+        cache.put(user(1), cache.writeMark());
+        assertEquals(user(1), cache.get(1));
+    }
+
+    @Test
+    void bindTo_ExposesHitsMissesAndEvictions() {
+        UserNearCache cache = cache(DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        cache.put(user(1), cache.writeMark());
+        cache.get(1);
+        cache.get(2);
+
+        assertEquals(1, registry.get("cache.gets").tags("cache", UserNearCache.NAME, "result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tags("cache", UserNearCache.NAME, "result", "miss").functionCounter().count());
+        assertNotNull(registry.get("cache.evictions").tags("cache", UserNearCache.NAME).functionCounter());
+    }
+}
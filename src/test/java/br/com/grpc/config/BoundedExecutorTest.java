@@ -0,0 +1,63 @@
+package br.com.grpc.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedExecutorTest {
+
+    @Test
+    void execute_NeverRunsMoreThanLimitAndRunsEveryTask() throws Exception {
+        int limit = 4;
+        int tasks = 2_000;
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(tasks);
+        BoundedExecutor executor;
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor = new BoundedExecutor(threads, limit);
+            for (int i = 0; i < tasks; i++) {
+                executor.execute(() -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    Thread.yield();
+                    active.decrementAndGet();
+                    done.countDown();
+                });
+            }
+
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            assertTrue(maxActive.get() <= limit, "max active " + maxActive.get());
+        }
+        // close() esperou as virtual threads terminarem
+        assertEquals(0, executor.running());
+    }
+
+    @Test
+    void execute_AtLimit_QueuesWithoutBlockingCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch secondRan = new CountDownLatch(1);
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            BoundedExecutor executor = new BoundedExecutor(threads, 1);
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            // Volta na hora mesmo com a única vaga ocupada
+            executor.execute(secondRan::countDown);
+            assertFalse(secondRan.await(100, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            assertTrue(secondRan.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
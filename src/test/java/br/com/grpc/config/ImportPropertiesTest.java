@@ -0,0 +1,33 @@
+package br.com.grpc.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.BindException;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.NestedExceptionUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportPropertiesTest {
+
+    private static ImportProperties bind(String batchSize) {
+        Binder binder = new Binder(new MapConfigurationPropertySource(Map.of("grpc.import.batch-size", batchSize)));
+        return binder.bind("grpc.import", Bindable.ofInstance(new ImportProperties())).get();
+    }
+
+    @Test
+    void bind_PositiveBatchSize_IsAccepted() {
+        assertEquals(1, bind("1").getBatchSize());
+    }
+
+    @Test
+    void bind_ZeroOrNegativeBatchSize_FailsAtStartup() {
+        for (String batchSize : new String[]{"0", "-5"}) {
+            BindException e = assertThrows(BindException.class, () -> bind(batchSize));
+            assertInstanceOf(IllegalArgumentException.class, NestedExceptionUtils.getMostSpecificCause(e));
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package br.com.grpc.controller;
+
+import br.com.grpc.client.UserGrpcClient;
+import br.com.grpc.user.proto.UserResponse;
+import br.com.grpc.user.proto.UserStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class GrpcClientControllerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private UserGrpcClient grpcClient;
+
+    private GrpcClientController controller;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        controller = new GrpcClientController(grpcClient, objectMapper);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    private static UserResponse user(long id, String name) {
+        return UserResponse.newBuilder()
+                .setId(id)
+                .setName(name)
+                .setEmail("usuario" + id + "@email.com")
+                .setAge(30)
+                .setStatus(UserStatus.ACTIVE)
+                .setVersion(1)
+                .build();
+    }
+
+    // O stream entrega os usuários e, se failure não for null, falha depois deles
+    @SuppressWarnings("unchecked")
+    private void stream(RuntimeException failure, UserResponse... users) {
+        doAnswer(invocation -> {
+            Consumer<UserResponse> consumer = invocation.getArgument(1);
+            for (UserResponse user : users) {
+                consumer.accept(user);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return (long) users.length;
+        }).when(grpcClient).streamUsersByStatus(eq(UserStatus.ACTIVE), any(Consumer.class));
+    }
+
+    private String perform(MediaType accept, MediaType expectedType) throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/grpc-client/users/stream/ACTIVE").accept(accept))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(expectedType))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void streamUsers_Ndjson_WritesOneObjectPerLine() throws Exception {
+        stream(null, user(1, "Ana"), user(2, "Bia"));
+
+        String body = perform(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_NDJSON);
+
+        assertTrue(body.endsWith("\n"));
+        List<String> lines = body.lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals("Ana", objectMapper.readTree(lines.get(0)).get("name").asText());
+        assertEquals(2, objectMapper.readTree(lines.get(1)).get("id").asLong());
+    }
+
+    @Test
+    void streamUsers_Sse_WritesOneDataFramePerUser() throws Exception {
+        stream(null, user(1, "Ana"), user(2, "Bia"));
+
+        String body = perform(MediaType.TEXT_EVENT_STREAM, MediaType.TEXT_EVENT_STREAM);
+
+        String[] events = body.split("\n\n");
+        assertEquals(2, events.length);
+        for (int i = 0; i < events.length; i++) {
+            String[] lines = events[i].split("\n");
+            assertEquals("event: user", lines[0]);
+            assertTrue(lines[1].startsWith("data: "));
+            assertEquals(i + 1, objectMapper.readTree(lines[1].substring("data: ".length())).get("id").asLong());
+        }
+    }
+
+    @Test
+    void streamUsers_FailureMidStream_EndsWithErrorRecord() throws Exception {
+        stream(Status.UNAVAILABLE.withDescription("server went away").asRuntimeException(), user(1, "Ana"));
+
+        List<String> lines = perform(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_NDJSON).lines().toList();
+
+        assertEquals(2, lines.size());
+        assertEquals(1, objectMapper.readTree(lines.get(0)).get("id").asLong());
+        JsonNode error = objectMapper.readTree(lines.get(1));
+        assertEquals("gRPC call failed: UNAVAILABLE: server went away", error.get("error").asText());
+    }
+
+    @Test
+    void streamUsers_FailureMidStreamWithSse_EndsWithErrorEvent() throws Exception {
+        stream(Status.UNAVAILABLE.asRuntimeException(), user(1, "Ana"));
+
+        String body = perform(MediaType.TEXT_EVENT_STREAM, MediaType.TEXT_EVENT_STREAM);
+
+        String[] events = body.split("\n\n");
+        assertEquals(2, events.length);
+        assertTrue(events[1].startsWith("event: error\ndata: {\"error\":"));
+    }
+
+    @Test
+    void streamUsers_EmptyResult_WritesEmptyBody() throws Exception {
+        stream(null);
+
+        assertEquals("", perform(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_NDJSON));
+        assertEquals("", perform(MediaType.TEXT_EVENT_STREAM, MediaType.TEXT_EVENT_STREAM));
+    }
+
+    @Test
+    void streamUsers_Sse_FlushesEveryEvent() throws Exception {
+        stream(null, user(1, "Ana"), user(2, "Bia"));
+        List<String> flushed = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushed.add(toString(StandardCharsets.UTF_8));
+            }
+        };
+
+        StreamingResponseBody body = controller.streamUsers(UserStatus.ACTIVE, MediaType.TEXT_EVENT_STREAM_VALUE).getBody();
+        body.writeTo(out);
+
+        // O primeiro evento já estava no cliente antes do segundo ser escrito
+        assertTrue(flushed.size() >= 2);
+        assertTrue(flushed.get(0).endsWith("\n\n"));
+        assertEquals(1, flushed.get(0).split("\n\n").length);
+        assertEquals(out.toString(StandardCharsets.UTF_8), flushed.get(1));
+    }
+}
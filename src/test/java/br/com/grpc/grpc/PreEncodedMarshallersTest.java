@@ -0,0 +1,144 @@
+package br.com.grpc.grpc;
+
+import br.com.grpc.config.ImportProperties;
+import br.com.grpc.mapper.UserMapper;
+import br.com.grpc.mapper.UserResponseCache;
+import br.com.grpc.model.User;
+import br.com.grpc.repository.InMemoryUserRepository;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.repository.UserRepository;
+import br.com.grpc.service.UserService;
+import br.com.grpc.user.proto.GetUserRequest;
+import br.com.grpc.user.proto.ListUsersRequest;
+import br.com.grpc.user.proto.ListUsersResponse;
+import br.com.grpc.user.proto.UserResponse;
+import br.com.grpc.user.proto.UserServiceGrpc;
+import io.grpc.Drainable;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreEncodedMarshallersTest {
+
+    private UserRepository repository;
+    private UserResponseCache cache;
+    private UserMapper mapper;
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UserChangeLog changeLog = new UserChangeLog(1024);
+        repository = new InMemoryUserRepository(changeLog);
+        cache = new UserResponseCache(1024, changeLog);
+        mapper = new UserMapper(cache);
+        for (int i = 1; i <= 3; i++) {
+            repository.save(User.builder()
+                    .name("Usuário " + i)
+                    .email("usuario" + i + "@email.com")
+                    .age(20 + i)
+                    .status(User.UserStatus.ACTIVE)
+                    .build());
+        }
+        String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+                .directExecutor()
+                .addService(new UserGrpcService(new UserService(repository), mapper, new ImportProperties()))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static byte[] drain(InputStream stream) throws IOException {
+        assertInstanceOf(Drainable.class, stream);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int written = ((Drainable) stream).drainTo(out);
+        assertEquals(out.size(), written);
+        return out.toByteArray();
+    }
+
+    private UserResponse cached(long id) {
+        return mapper.toProto(repository.findById(id).orElseThrow());
+    }
+
+    @Test
+    void userResponse_Cached_WritesSameBytesAsProtobuf() throws IOException {
+        UserResponse response = cached(1);
+        MethodDescriptor.Marshaller<UserResponse> marshaller = PreEncodedMarshallers.userResponse(mapper::encoded);
+
+        InputStream stream = marshaller.stream(response);
+
+        assertEquals(response.getSerializedSize(), stream.available());
+        assertArrayEquals(response.toByteArray(), drain(stream));
+        assertSame(cache.encoded(response), mapper.encoded(response));
+    }
+
+    @Test
+    void listUsersResponse_MixedCachedAndUncachedUsers_WritesSameBytesAsProtobuf() throws IOException {
+        UserResponse uncached = new UserMapper().toProto(repository.findById(3L).orElseThrow());
+        MethodDescriptor.Marshaller<ListUsersResponse> marshaller =
+                PreEncodedMarshallers.listUsersResponse(mapper::encoded);
+        List<ListUsersResponse> responses = List.of(
+                ListUsersResponse.newBuilder().addUsers(cached(1)).addUsers(cached(2)).addUsers(uncached)
+                        .setTotalCount(3).setPage(0).setSize(10).setNextPageToken("abc").build(),
+                ListUsersResponse.newBuilder().addUsers(cached(1)).setTotalCount(300).setPage(7).setSize(200).build(),
+                ListUsersResponse.newBuilder().setTotalCount(-1).build(),
+                ListUsersResponse.getDefaultInstance());
+
+        for (ListUsersResponse response : responses) {
+            InputStream stream = marshaller.stream(response);
+            assertEquals(response.getSerializedSize(), stream.available());
+            assertArrayEquals(response.toByteArray(), drain(stream));
+        }
+    }
+
+    @Test
+    void listUsersResponse_ReadWithoutDrain_ParsesBack() throws IOException {
+        ListUsersResponse response = ListUsersResponse.newBuilder()
+                .addUsers(cached(1)).addUsers(cached(2)).setTotalCount(2).setSize(10).build();
+        MethodDescriptor.Marshaller<ListUsersResponse> marshaller =
+                PreEncodedMarshallers.listUsersResponse(mapper::encoded);
+
+        assertEquals(response, ListUsersResponse.parseFrom(marshaller.stream(response).readAllBytes()));
+    }
+
+    @Test
+    void readRpcs_ThroughService_ClientsSeeStandardMessages() {
+        UserServiceGrpc.UserServiceBlockingStub stub = UserServiceGrpc.newBlockingStub(channel);
+
+        UserResponse first = stub.getUser(GetUserRequest.newBuilder().setId(2).build());
+        UserResponse second = stub.getUser(GetUserRequest.newBuilder().setId(2).build());
+        ListUsersResponse page = stub.listUsers(ListUsersRequest.newBuilder().setSize(10).build());
+
+        assertEquals(new UserMapper().toProto(repository.findById(2L).orElseThrow()), first);
+        assertEquals(first, second);
+        assertEquals(List.of(1L, 2L, 3L), page.getUsersList().stream().map(UserResponse::getId).toList());
+        assertEquals(3, page.getTotalCount());
+        assertTrue(cache.hitCount() >= 2);
+    }
+
+    @Test
+    void bind_KeepsEveryMethodOfTheService() {
+        assertEquals(UserServiceGrpc.getServiceDescriptor().getMethods().size(),
+                server.getServices().get(0).getMethods().size());
+    }
+}
@@ -0,0 +1,147 @@
+package br.com.grpc.grpc;
+
+import br.com.grpc.config.CompressionProperties;
+import br.com.grpc.config.ImportProperties;
+import br.com.grpc.mapper.UserMapper;
+import br.com.grpc.model.User;
+import br.com.grpc.repository.InMemoryUserRepository;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.repository.UserRepository;
+import br.com.grpc.service.UserService;
+import br.com.grpc.user.proto.GetUserRequest;
+import br.com.grpc.user.proto.ListUsersRequest;
+import br.com.grpc.user.proto.ListUsersResponse;
+import br.com.grpc.user.proto.UserServiceGrpc;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientStreamTracer;
+import io.grpc.Codec;
+import io.grpc.DecompressorRegistry;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Netty de verdade: o transporte in-process não serializa nem comprime as mensagens
+class ResponseCompressionInterceptorTest {
+
+    private Server server;
+    private ManagedChannel channel;
+    private final AtomicLong wireBytes = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UserRepository repository = new InMemoryUserRepository(new UserChangeLog(1024));
+        for (int i = 1; i <= 50; i++) {
+            repository.save(User.builder()
+                    .name("Usuário " + i)
+                    .email("usuario" + i + "@email.com")
+                    .age(20 + i % 40)
+                    .status(User.UserStatus.ACTIVE)
+                    .build());
+        }
+        CompressionProperties properties = new CompressionProperties();
+        properties.setMethods(Map.of("ListUsers", "gzip", "GetUser", "gzip"));
+        properties.setMinSize(DataSize.ofKilobytes(1));
+
+        UserGrpcService service = new UserGrpcService(new UserService(repository), new UserMapper(), new ImportProperties());
+        server = NettyServerBuilder.forPort(0)
+                .addService(ServerInterceptors.intercept(service, new ResponseCompressionInterceptor(properties)))
+                .build()
+                .start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (channel != null) {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private UserServiceGrpc.UserServiceBlockingStub stub(DecompressorRegistry decompressors) {
+        channel = NettyChannelBuilder.forAddress("localhost", server.getPort())
+                .usePlaintext()
+                .decompressorRegistry(decompressors)
+                .intercept(new WireSizeInterceptor())
+                .build();
+        return UserServiceGrpc.newBlockingStub(channel);
+    }
+
+    @Test
+    void listUsers_AboveMinSize_CompressedOnTheWire() {
+        ListUsersResponse page = stub(DecompressorRegistry.getDefaultInstance())
+                .listUsers(ListUsersRequest.newBuilder().setSize(50).build());
+
+        assertEquals(50, page.getUsersCount());
+        assertEquals(page.getSerializedSize(), uncompressedBytes.get());
+        assertTrue(wireBytes.get() < uncompressedBytes.get() / 2,
+                "wire " + wireBytes.get() + " uncompressed " + uncompressedBytes.get());
+    }
+
+    @Test
+    void getUser_BelowMinSize_SentUncompressed() {
+        stub(DecompressorRegistry.getDefaultInstance()).getUser(GetUserRequest.newBuilder().setId(1).build());
+
+        assertTrue(uncompressedBytes.get() > 0);
+        assertEquals(uncompressedBytes.get(), wireBytes.get());
+    }
+
+    @Test
+    void listUsers_ClientWithoutGzip_FallsBackToIdentity() {
+        ListUsersResponse page = stub(DecompressorRegistry.emptyInstance().with(Codec.Identity.NONE, true))
+                .listUsers(ListUsersRequest.newBuilder().setSize(50).build());
+
+        assertEquals(50, page.getUsersCount());
+        assertEquals(uncompressedBytes.get(), wireBytes.get());
+    }
+
+    @Test
+    void constructor_UnknownCodec_Throws() {
+        CompressionProperties properties = new CompressionProperties();
+        properties.setMethods(Map.of("ListUsers", "zstd"));
+
+        assertThrows(IllegalArgumentException.class, () -> new ResponseCompressionInterceptor(properties));
+    }
+
+    // Soma os bytes recebidos antes e depois da descompressão
+    private final class WireSizeInterceptor implements ClientInterceptor {
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                                   CallOptions callOptions, Channel next) {
+            ClientStreamTracer.Factory tracer = new ClientStreamTracer.Factory() {
+                @Override
+                public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+                    return new ClientStreamTracer() {
+                        @Override
+                        public void inboundWireSize(long bytes) {
+                            wireBytes.addAndGet(bytes);
+                        }
+
+                        @Override
+                        public void inboundUncompressedSize(long bytes) {
+                            uncompressedBytes.addAndGet(bytes);
+                        }
+                    };
+                }
+            };
+            return next.newCall(method, callOptions.withStreamTracerFactory(tracer));
+        }
+    }
+}
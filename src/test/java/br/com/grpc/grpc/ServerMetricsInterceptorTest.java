@@ -0,0 +1,136 @@
+package br.com.grpc.grpc;
+
+import br.com.grpc.config.ImportProperties;
+import br.com.grpc.mapper.UserMapper;
+import br.com.grpc.model.User;
+import br.com.grpc.repository.InMemoryUserRepository;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.repository.UserRepository;
+import br.com.grpc.service.UserService;
+import br.com.grpc.user.proto.GetUserRequest;
+import br.com.grpc.user.proto.UserChangeEvent;
+import br.com.grpc.user.proto.UserServiceGrpc;
+import br.com.grpc.user.proto.WatchUsersRequest;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerMetricsInterceptorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private UserGrpcService grpcService;
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UserRepository repository = new InMemoryUserRepository(new UserChangeLog(64));
+        repository.save(User.builder()
+                .name("João Silva")
+                .email("joao@email.com")
+                .age(30)
+                .status(User.UserStatus.ACTIVE)
+                .build());
+        grpcService = new UserGrpcService(new UserService(repository), new UserMapper(), new ImportProperties());
+        String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+                .addService(ServerInterceptors.intercept(grpcService, new ServerMetricsInterceptor(registry)))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(serverName).build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        grpcService.shutdown();
+    }
+
+    private double calls(String method, String status) {
+        return registry.get("grpc.server.calls").tags("method", method, "status", status).counter().count();
+    }
+
+    private double active(String method) {
+        return registry.get("grpc.server.calls.active").tag("method", method).gauge().value();
+    }
+
+    @Test
+    void unaryCalls_RecordLatencySizesAndStatus() {
+        UserServiceGrpc.UserServiceBlockingStub stub = UserServiceGrpc.newBlockingStub(channel);
+        GetUserRequest request = GetUserRequest.newBuilder().setId(1).build();
+
+        int responseSize = stub.getUser(request).getSerializedSize();
+        stub.getUser(request);
+        assertThrows(StatusRuntimeException.class, () -> stub.getUser(GetUserRequest.newBuilder().setId(99).build()));
+
+        Timer duration = registry.get("grpc.server.call.duration")
+                .tags("service", "br.com.grpc.user.UserService", "method", "GetUser").timer();
+        assertEquals(3, duration.count());
+        assertEquals(2, calls("GetUser", "OK"));
+        assertEquals(1, calls("GetUser", "NOT_FOUND"));
+        assertEquals(0, active("GetUser"));
+        assertEquals(3 * request.getSerializedSize(),
+                registry.get("grpc.server.request.size").tag("method", "GetUser").summary().totalAmount(), 1.0);
+        assertEquals(2 * responseSize,
+                registry.get("grpc.server.response.size").tag("method", "GetUser").summary().totalAmount());
+        assertNotNull(registry.get("grpc.server.call.duration.percentile").tags("method", "GetUser", "phi", "0.999").gauge());
+    }
+
+    @Test
+    void streamCancelledByClient_CountedAsActiveThenCancelled() throws Exception {
+        CompletableFuture<ClientCallStreamObserver<?>> started = new CompletableFuture<>();
+        UserServiceGrpc.newStub(channel).watchUsers(WatchUsersRequest.getDefaultInstance(),
+                new ClientResponseObserver<WatchUsersRequest, UserChangeEvent>() {
+                    @Override
+                    public void beforeStart(ClientCallStreamObserver<WatchUsersRequest> requestStream) {
+                        started.complete(requestStream);
+                    }
+
+                    @Override
+                    public void onNext(UserChangeEvent value) {
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                    }
+                });
+        ClientCallStreamObserver<?> call = started.get(5, TimeUnit.SECONDS);
+        waitFor(() -> registry.find("grpc.server.calls.active").tag("method", "WatchUsers").gauge() != null
+                && active("WatchUsers") == 1);
+
+        call.cancel("client done", null);
+
+        waitFor(() -> registry.find("grpc.server.calls").tags("method", "WatchUsers", "status", "CANCELLED").counter() != null);
+        assertEquals(1, calls("WatchUsers", "CANCELLED"));
+        assertEquals(0, active("WatchUsers"));
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in 5s");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package br.com.grpc.grpc;
+
+import br.com.grpc.config.ImportProperties;
+import br.com.grpc.mapper.UserMapper;
+import br.com.grpc.model.User;
+import br.com.grpc.model.UserBatchResult;
+import br.com.grpc.repository.InMemoryUserRepository;
+import br.com.grpc.repository.UserRepository;
+import br.com.grpc.service.UserService;
+import br.com.grpc.user.proto.CreateUserRequest;
+import br.com.grpc.user.proto.ImportError;
+import br.com.grpc.user.proto.ImportUsersResponse;
+import br.com.grpc.user.proto.UserServiceGrpc;
+import br.com.grpc.user.proto.UserStatus;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserGrpcServiceImportTest {
+
+    private static final int BATCH_SIZE = 10;
+
+    private Server server;
+    private ManagedChannel channel;
+
+    private UserServiceGrpc.UserServiceStub start(UserService userService) throws Exception {
+        ImportProperties properties = new ImportProperties();
+        properties.setBatchSize(BATCH_SIZE);
+        properties.setMaxReportedErrors(1);
+
+        String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+                .addService(new UserGrpcService(userService, new UserMapper(), properties))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(serverName).build();
+        return UserServiceGrpc.newStub(channel);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void importUsers_MixedRows_ReturnsSummaryAndStoresValidRows() throws Exception {
+        UserRepository userRepository = new InMemoryUserRepository();
+        UserServiceGrpc.UserServiceStub stub = start(new UserService(userRepository));
+        ImportClient client = new ImportClient(25, index -> index == 3 || index == 17);
+
+        stub.importUsers(client);
+        ImportUsersResponse response = client.result.get(10, TimeUnit.SECONDS);
+
+        assertEquals(23, response.getAcceptedCount());
+        assertEquals(2, response.getRejectedCount());
+        assertEquals(List.of(3L), response.getErrorsList().stream().map(ImportError::getIndex).toList());
+        assertTrue(response.getErrorsTruncated());
+        assertEquals(23, userRepository.count());
+    }
+
+    @Test
+    void importUsers_FastProducer_IsHeldBackWhileBatchIsBeingWritten() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        UserService userService = mock(UserService.class);
+        when(userService.importUsers(anyList())).thenAnswer(invocation -> {
+            List<User> batch = invocation.getArgument(0);
+            gate.await(10, TimeUnit.SECONDS);
+            return batch.stream().map(UserBatchResult::success).toList();
+        });
+        UserServiceGrpc.UserServiceStub stub = start(userService);
+        ImportClient client = new ImportClient(10_000, index -> false);
+
+        stub.importUsers(client);
+        Thread.sleep(300);
+
+        // Sem request(n) manual o cliente teria despejado as 10.000 linhas no servidor
+        assertTrue(client.sent.get() <= 2 * BATCH_SIZE, "client sent " + client.sent.get() + " rows");
+
+        gate.countDown();
+        ImportUsersResponse response = client.result.get(10, TimeUnit.SECONDS);
+        assertEquals(10_000, response.getAcceptedCount());
+    }
+
+    // Cliente bem-comportado: só envia enquanto o transporte indica isReady()
+    private static final class ImportClient implements ClientResponseObserver<CreateUserRequest, ImportUsersResponse> {
+        private final int total;
+        private final IntPredicate invalid;
+        private final AtomicInteger sent = new AtomicInteger();
+        private final CompletableFuture<ImportUsersResponse> result = new CompletableFuture<>();
+        private boolean completed;
+
+        private ImportClient(int total, IntPredicate invalid) {
+            this.total = total;
+            this.invalid = invalid;
+        }
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<CreateUserRequest> requestStream) {
+            requestStream.setOnReadyHandler(() -> {
+                while (requestStream.isReady() && sent.get() < total) {
+                    int index = sent.getAndIncrement();
+                    requestStream.onNext(CreateUserRequest.newBuilder()
+                            .setName("User " + index)
+                            .setEmail(invalid.test(index) ? "invalid-email" : "user" + index + "@email.com")
+                            .setAge(30)
+                            .setStatus(UserStatus.ACTIVE)
+                            .build());
+                }
+                if (sent.get() == total && !completed) {
+                    completed = true;
+                    requestStream.onCompleted();
+                }
+            });
+        }
+
+        @Override
+        public void onNext(ImportUsersResponse value) {
+            result.complete(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            result.completeExceptionally(t);
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package br.com.grpc.grpc;
+
+import br.com.grpc.config.ImportProperties;
+import br.com.grpc.mapper.UserMapper;
+import br.com.grpc.model.User;
+import br.com.grpc.service.UserService;
+import br.com.grpc.user.proto.GetUsersByStatusRequest;
+import br.com.grpc.user.proto.UserResponse;
+import br.com.grpc.user.proto.UserServiceGrpc;
+import br.com.grpc.user.proto.UserStatus;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserGrpcServiceStreamingTest {
+
+    // Folga entre o que o servidor produziu e o que o cliente já consumiu
+    private static final long MAX_IN_FLIGHT = 16;
+
+    private UserService userService;
+    private Server server;
+    private ManagedChannel channel;
+    private UserServiceGrpc.UserServiceBlockingStub stub;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userService = mock(UserService.class);
+        String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+                .directExecutor()
+                .addService(new UserGrpcService(userService, new UserMapper(), new ImportProperties()))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+        stub = UserServiceGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void getUsersByStatus_SmallResult_StreamsAllAndCompletes() {
+        when(userService.streamUsersByStatus(User.UserStatus.ACTIVE))
+                .thenReturn(List.of(user(1), user(2), user(3)).iterator());
+
+        Iterator<UserResponse> responses = stub.getUsersByStatus(request());
+
+        int received = 0;
+        while (responses.hasNext()) {
+            assertEquals(received + 1, responses.next().getId());
+            received++;
+        }
+        assertEquals(3, received);
+    }
+
+    @Test
+    void getUsersByStatus_SlowConsumer_ServerOnlyProducesWhatTransportAccepts() throws Exception {
+        CountingSource source = new CountingSource(1_000_000);
+        when(userService.streamUsersByStatus(User.UserStatus.ACTIVE)).thenReturn(source);
+
+        Iterator<UserResponse> responses = stub.getUsersByStatus(request());
+
+        for (int consumed = 1; consumed <= 50; consumed++) {
+            responses.next();
+            Thread.sleep(2);
+            assertTrue(source.produced.get() <= consumed + MAX_IN_FLIGHT,
+                    "server produced " + source.produced.get() + " users for " + consumed + " consumed");
+        }
+    }
+
+    @Test
+    void getUsersByStatus_DeadlineExpires_ServerStopsProducing() throws Exception {
+        CountingSource source = new CountingSource(1_000_000);
+        when(userService.streamUsersByStatus(User.UserStatus.ACTIVE)).thenReturn(source);
+
+        Iterator<UserResponse> responses = stub.withDeadlineAfter(200, TimeUnit.MILLISECONDS)
+                .getUsersByStatus(request());
+
+        StatusRuntimeException error = assertThrows(StatusRuntimeException.class, () -> {
+            while (responses.hasNext()) {
+                responses.next();
+                Thread.sleep(20);
+            }
+        });
+        assertEquals(Status.Code.DEADLINE_EXCEEDED, error.getStatus().getCode());
+
+        long producedAtDeadline = source.produced.get();
+        Thread.sleep(100);
+        assertEquals(producedAtDeadline, source.produced.get());
+        assertTrue(producedAtDeadline < 1_000);
+    }
+
+    private GetUsersByStatusRequest request() {
+        return GetUsersByStatusRequest.newBuilder().setStatus(UserStatus.ACTIVE).build();
+    }
+
+    private static User user(long id) {
+        return User.builder()
+                .id(id)
+                .name("User " + id)
+                .email("user" + id + "@email.com")
+                .age(30)
+                .status(User.UserStatus.ACTIVE)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    // Gera usuários sob demanda e conta quantos o servidor realmente puxou
+    private static final class CountingSource implements Iterator<User> {
+        private final long total;
+        private final AtomicLong produced = new AtomicLong();
+
+        private CountingSource(long total) {
+            this.total = total;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return produced.get() < total;
+        }
+
+        @Override
+        public User next() {
+            return user(produced.incrementAndGet());
+        }
+    }
+}
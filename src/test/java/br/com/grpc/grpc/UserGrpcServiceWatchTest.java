@@ -0,0 +1,137 @@
+package br.com.grpc.grpc;
+
+import br.com.grpc.config.ImportProperties;
+import br.com.grpc.mapper.UserMapper;
+import br.com.grpc.model.User;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.repository.InMemoryUserRepository;
+import br.com.grpc.repository.UserRepository;
+import br.com.grpc.service.UserService;
+import br.com.grpc.user.proto.ChangeType;
+import br.com.grpc.user.proto.UserChangeEvent;
+import br.com.grpc.user.proto.UserServiceGrpc;
+import br.com.grpc.user.proto.WatchUsersRequest;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserGrpcServiceWatchTest {
+
+    private static final int BUFFER_SIZE = 8;
+
+    private UserRepository userRepository;
+    private UserGrpcService grpcService;
+    private Server server;
+    private ManagedChannel channel;
+    private UserServiceGrpc.UserServiceBlockingStub stub;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userRepository = new InMemoryUserRepository(new UserChangeLog(BUFFER_SIZE));
+        grpcService = new UserGrpcService(new UserService(userRepository), new UserMapper(), new ImportProperties());
+        String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+                .addService(grpcService)
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(serverName).build();
+        stub = UserServiceGrpc.newBlockingStub(channel).withDeadlineAfter(10, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        grpcService.shutdown();
+    }
+
+    @Test
+    void watchUsers_ReplaysFromSequenceThenTailsLiveEvents() {
+        User ana = userRepository.save(user("Ana"));
+        userRepository.save(user("Bruno"));
+
+        Iterator<UserChangeEvent> events = stub.watchUsers(WatchUsersRequest.newBuilder().setFromSequence(1).build());
+
+        UserChangeEvent first = events.next();
+        assertEquals(1, first.getSequence());
+        assertEquals(ChangeType.USER_UPSERTED, first.getType());
+        assertEquals("Ana", first.getUser().getName());
+        assertEquals(2, events.next().getSequence());
+
+        userRepository.deleteById(ana.getId());
+
+        UserChangeEvent live = events.next();
+        assertEquals(3, live.getSequence());
+        assertEquals(ChangeType.USER_DELETED, live.getType());
+        assertEquals(ana.getId(), live.getUserId());
+        assertFalse(live.hasUser());
+    }
+
+    @Test
+    void watchUsers_FromZero_OnlyReceivesNewEvents() throws Exception {
+        userRepository.save(user("Ana"));
+
+        Iterator<UserChangeEvent> events = stub.watchUsers(WatchUsersRequest.getDefaultInstance());
+        // A chamada é assíncrona: espera o watcher se registrar antes de gravar
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (userRepository.getChangeLog().listenerCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        userRepository.save(user("Bruno"));
+
+        UserChangeEvent event = events.next();
+        assertEquals(2, event.getSequence());
+        assertEquals("Bruno", event.getUser().getName());
+    }
+
+    @Test
+    void watchUsers_SequenceNoLongerRetained_SignalsResync() {
+        for (int i = 0; i < BUFFER_SIZE * 2; i++) {
+            userRepository.save(user("User" + i));
+        }
+
+        Iterator<UserChangeEvent> events = stub.watchUsers(WatchUsersRequest.newBuilder().setFromSequence(1).build());
+
+        StatusRuntimeException error = assertThrows(StatusRuntimeException.class, events::next);
+        assertEquals(Status.Code.OUT_OF_RANGE, error.getStatus().getCode());
+        assertTrue(error.getStatus().getDescription().startsWith("Resync required"));
+    }
+
+    @Test
+    void watchUsers_SlowWatcherFallsOffBuffer_SignalsResyncInsteadOfQueueing() {
+        userRepository.save(user("First"));
+        Iterator<UserChangeEvent> events = stub.watchUsers(WatchUsersRequest.newBuilder().setFromSequence(1).build());
+        assertEquals(1, events.next().getSequence());
+
+        for (int i = 0; i < BUFFER_SIZE * 4; i++) {
+            userRepository.save(user("User" + i));
+        }
+
+        StatusRuntimeException error = assertThrows(StatusRuntimeException.class, () -> {
+            for (int received = 0; received < BUFFER_SIZE * 4; received++) {
+                events.next();
+            }
+        });
+        assertEquals(Status.Code.OUT_OF_RANGE, error.getStatus().getCode());
+    }
+
+    private User user(String name) {
+        return User.builder()
+                .name(name)
+                .email(name.toLowerCase() + "@email.com")
+                .age(30)
+                .status(User.UserStatus.ACTIVE)
+                .build();
+    }
+}
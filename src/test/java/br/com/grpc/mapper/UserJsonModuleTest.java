@@ -0,0 +1,64 @@
+package br.com.grpc.mapper;
+
+import br.com.grpc.user.proto.DeleteUserResponse;
+import br.com.grpc.user.proto.ListUsersResponse;
+import br.com.grpc.user.proto.UserResponse;
+import br.com.grpc.user.proto.UserStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserJsonModuleTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new UserJsonModule());
+
+    private static UserResponse user(long id, String name) {
+        return UserResponse.newBuilder()
+                .setId(id)
+                .setName(name)
+                .setEmail("usuario" + id + "@email.com")
+                .setAge(30)
+                .setStatus(UserStatus.ACTIVE)
+                .setCreatedAt("2024-01-01T10:00:00")
+                .setUpdatedAt("2024-01-02T10:00:00")
+                .setVersion(3)
+                .build();
+    }
+
+    @Test
+    void userResponse_WritesEveryField() throws Exception {
+        assertEquals("{\"id\":1,\"name\":\"João \\\"Jota\\\"\",\"email\":\"usuario1@email.com\",\"age\":30,"
+                        + "\"status\":\"ACTIVE\",\"createdAt\":\"2024-01-01T10:00:00\",\"updatedAt\":\"2024-01-02T10:00:00\","
+                        + "\"version\":3}",
+                objectMapper.writeValueAsString(user(1, "João \"Jota\"")));
+    }
+
+    @Test
+    void listUsersResponse_WritesUsersWithoutTimestamps() throws Exception {
+        ListUsersResponse page = ListUsersResponse.newBuilder()
+                .addUsers(user(1, "Ana"))
+                .addUsers(user(2, "Bia"))
+                .setTotalCount(2)
+                .setPage(0)
+                .setSize(10)
+                .build();
+
+        assertEquals("{\"users\":["
+                        + "{\"id\":1,\"name\":\"Ana\",\"email\":\"usuario1@email.com\",\"age\":30,\"status\":\"ACTIVE\"},"
+                        + "{\"id\":2,\"name\":\"Bia\",\"email\":\"usuario2@email.com\",\"age\":30,\"status\":\"ACTIVE\"}],"
+                        + "\"totalCount\":2,\"page\":0,\"size\":10}",
+                objectMapper.writeValueAsString(page));
+    }
+
+    @Test
+    void deleteUserResponse_WritesSuccessAndMessage() throws Exception {
+        DeleteUserResponse response = DeleteUserResponse.newBuilder()
+                .setSuccess(true)
+                .setMessage("User deleted successfully")
+                .build();
+
+        assertEquals("{\"success\":true,\"message\":\"User deleted successfully\"}",
+                objectMapper.writeValueAsString(response));
+    }
+}
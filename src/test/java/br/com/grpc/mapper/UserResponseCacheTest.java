@@ -0,0 +1,132 @@
+package br.com.grpc.mapper;
+
+import br.com.grpc.model.User;
+import br.com.grpc.repository.InMemoryUserRepository;
+import br.com.grpc.repository.UserChangeLog;
+import br.com.grpc.repository.UserRepository;
+import br.com.grpc.user.proto.UserResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserResponseCacheTest {
+
+    private UserRepository repository;
+    private UserResponseCache cache;
+    private UserMapper mapper;
+
+    @BeforeEach
+    void setUp() {
+        UserChangeLog changeLog = new UserChangeLog(1024);
+        repository = new InMemoryUserRepository(changeLog);
+        cache = new UserResponseCache(16, changeLog);
+        mapper = new UserMapper(cache);
+    }
+
+    private User save(String name) {
+        return repository.save(User.builder()
+                .name(name)
+                .email(name.toLowerCase() + "@email.com")
+                .age(30)
+                .status(User.UserStatus.ACTIVE)
+                .build());
+    }
+
+    @Test
+    void toProto_SameVersion_ServedFromCache() {
+        User ana = save("Ana");
+
+        UserResponse first = mapper.toProto(repository.findById(ana.getId()).orElseThrow());
+        UserResponse second = mapper.toProto(repository.findById(ana.getId()).orElseThrow());
+
+        assertSame(first, second);
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(new UserMapper().toProto(ana), second);
+    }
+
+    @Test
+    void toProto_AfterUpdate_RebuildsResponse() {
+        User ana = save("Ana");
+        mapper.toProto(repository.findById(ana.getId()).orElseThrow());
+
+        ana.setName("Ana Maria");
+        repository.save(ana);
+        UserResponse response = mapper.toProto(repository.findById(ana.getId()).orElseThrow());
+
+        assertEquals("Ana Maria", response.getName());
+        assertEquals(0, cache.hitCount());
+    }
+
+    @Test
+    void toProto_StaleVersionPutAfterUpdate_IsNotServedForNewVersion() {
+        User ana = save("Ana");
+        User stale = repository.findById(ana.getId()).orElseThrow();
+        ana.setName("Ana Maria");
+        repository.save(ana);
+
+        // Leitor atrasado grava a versão antiga depois da invalidação
+        mapper.toProto(stale);
+
+        assertEquals("Ana Maria", mapper.toProto(repository.findById(ana.getId()).orElseThrow()).getName());
+    }
+
+    @Test
+    void toProto_StaleReaderWithSameUpdatedAt_IsNotServedForNewVersion() {
+        User ana = save("Ana");
+        User stale = repository.findById(ana.getId()).orElseThrow();
+        User fresh = repository.findById(ana.getId()).orElseThrow();
+        // Duas gravações no mesmo tick: só a versão distingue o conteúdo
+        fresh.setName("Ana Maria");
+        fresh.setVersion(stale.getVersion() + 1);
+
+        mapper.toProto(stale);
+
+        assertEquals("Ana Maria", mapper.toProto(fresh).getName());
+        assertEquals(0, cache.hitCount());
+    }
+
+    @Test
+    void toProto_SlotTakenByAnotherId_CountsEviction() {
+        User first = save("Ana");
+        for (int i = 0; i < 15; i++) {
+            save("User" + i);
+        }
+        User sameSlot = save("Bruno");
+        assertEquals(first.getId() + 16, sameSlot.getId());
+
+        mapper.toProto(first);
+        mapper.toProto(sameSlot);
+        mapper.toProto(first);
+
+        assertEquals(0, cache.hitCount());
+        assertEquals(3, cache.missCount());
+    }
+
+    @Test
+    void disabledCache_AlwaysBuilds() {
+        UserResponseCache disabled = new UserResponseCache(0, new UserChangeLog(16));
+        UserMapper uncached = new UserMapper(disabled);
+        User ana = save("Ana");
+
+        assertNotSame(uncached.toProto(ana), uncached.toProto(ana));
+        assertEquals(0, disabled.capacity());
+    }
+
+    @Test
+    void bindTo_RegistersHitAndMissCounters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        User ana = save("Ana");
+
+        mapper.toProto(ana);
+        mapper.toProto(ana);
+        mapper.toProto(ana);
+
+        assertEquals(2, registry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(2.0 / 3, registry.get("cache.hit.ratio").gauge().value(), 1e-9);
+    }
+}
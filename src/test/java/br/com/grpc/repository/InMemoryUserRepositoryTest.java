@@ -0,0 +1,9 @@
+package br.com.grpc.repository;
+
+class InMemoryUserRepositoryTest extends UserRepositoryTest {
+
+    @Override
+    protected UserRepository createRepository(UserChangeLog changeLog) {
+        return new InMemoryUserRepository(changeLog);
+    }
+}
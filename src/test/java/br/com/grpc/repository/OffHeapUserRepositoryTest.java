@@ -0,0 +1,142 @@
+package br.com.grpc.repository;
+
+import br.com.grpc.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapUserRepositoryTest extends UserRepositoryTest {
+
+    @Override
+    protected UserRepository createRepository(UserChangeLog changeLog) {
+        return new OffHeapUserRepository(changeLog);
+    }
+
+    @Test
+    void findById_RoundTripsAllFields() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 2, 29, 23, 59, 58, 123_456_789);
+        User saved = userRepository.save(User.builder()
+                .id(42L)
+                .name("João Ção")
+                .email("joao.cao@email.com")
+                .age(0)
+                .status(User.UserStatus.SUSPENDED)
+                .createdAt(createdAt)
+                .build());
+
+        User found = userRepository.findById(42L).orElseThrow();
+
+        assertNotSame(saved, found);
+        assertEquals(saved, found);
+        assertEquals(createdAt, found.getCreatedAt());
+        assertEquals(43L, userRepository.save(newUser("Next", User.UserStatus.ACTIVE)).getId());
+    }
+
+    @Test
+    void save_UpdateWithDifferentStrings_ReadsLatestValues() {
+        User user = userRepository.save(newUser("Ana", User.UserStatus.ACTIVE));
+
+        user.setName("Ana Maria de Souza");
+        user.setEmail(null);
+        userRepository.save(user);
+
+        User found = userRepository.findById(user.getId()).orElseThrow();
+        assertEquals("Ana Maria de Souza", found.getName());
+        assertNull(found.getEmail());
+    }
+
+    @Test
+    void pagination_CrossesChunkBoundariesAndSkipsDeletedRows() {
+        int total = OffHeapUserRepository.CHUNK_SIZE + 100;
+        List<User> batch = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            batch.add(newUser("User" + i, i % 2 == 0 ? User.UserStatus.ACTIVE : User.UserStatus.INACTIVE));
+        }
+        userRepository.saveAll(batch);
+        for (long id = 1; id <= 10; id++) {
+            userRepository.deleteById(id);
+        }
+
+        long boundaryId = OffHeapUserRepository.CHUNK_SIZE;
+        assertEquals(List.of(boundaryId + 1, boundaryId + 2), ids(userRepository.findAllAfter(boundaryId, 2)));
+        // 10 linhas removidas no primeiro bloco deslocam a página em 10 ids
+        int page = OffHeapUserRepository.CHUNK_SIZE / 10;
+        assertEquals(List.of((long) page * 10 + 11), ids(userRepository.findAllPaginated(page, 10)).subList(0, 1));
+        assertEquals(total - 10, userRepository.count());
+        assertEquals((total - 10) / 2, userRepository.findByStatus(User.UserStatus.ACTIVE).size());
+        assertFalse(userRepository.existsAfter((long) total));
+    }
+
+    @Test
+    void pagination_RowsDeletedFromLastChunkDuringScan_Terminates() throws Exception {
+        int total = 2000;
+        List<User> batch = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            batch.add(newUser("User" + i, User.UserStatus.ACTIVE));
+        }
+        userRepository.saveAll(batch);
+
+        // Pede sempre a última página enquanto outra thread apaga do fim: a contagem lida antes
+        // da varredura passa a ser maior que as linhas que restam
+        Thread deleter = Thread.ofPlatform().start(() -> {
+            for (long id = total; id > 0; id--) {
+                userRepository.deleteById(id);
+            }
+        });
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            while (deleter.isAlive()) {
+                long count = userRepository.count();
+                List<User> page = userRepository.findAllPaginated((int) Math.max(0, count - 1) / 10, 10);
+                assertTrue(page.size() <= 10);
+            }
+        });
+        deleter.join();
+        assertEquals(List.of(), userRepository.findAllPaginated(0, 10));
+    }
+
+    @Test
+    void save_ManyUpdatesWithChangingStrings_ArenaStaysBounded() {
+        OffHeapUserRepository repository = (OffHeapUserRepository) userRepository;
+        User user = repository.save(newUser("Ana", User.UserStatus.ACTIVE));
+        // Aquece as classes de tamanho usadas abaixo
+        for (int i = 0; i < 600; i++) {
+            user.setName("Ana " + "x".repeat(i % 600));
+            user.setEmail("ana" + "y".repeat(i % 300) + "@email.com");
+            repository.save(user);
+        }
+        long reserved = repository.offHeapBytes();
+
+        // ~20MB de strings novas: sem reuso, a arena cresceria vários segmentos de 4MB
+        for (int i = 0; i < 60_000; i++) {
+            user.setName("Ana " + "x".repeat(i % 600));
+            user.setEmail("ana" + "y".repeat(i % 300) + "@email.com");
+            repository.save(user);
+        }
+
+        assertEquals(reserved, repository.offHeapBytes());
+        User found = repository.findById(user.getId()).orElseThrow();
+        assertEquals(user.getName(), found.getName());
+        assertEquals(user.getEmail(), found.getEmail());
+    }
+
+    @Test
+    void deleteAndCreate_ReusesArenaSpace() {
+        OffHeapUserRepository repository = (OffHeapUserRepository) userRepository;
+        repository.save(newUser("Warmup" + "z".repeat(40), User.UserStatus.ACTIVE));
+        long reserved = repository.offHeapBytes();
+
+        for (int i = 0; i < 100_000; i++) {
+            User user = repository.save(newUser("Temp" + "z".repeat(40), User.UserStatus.ACTIVE));
+            assertTrue(repository.deleteById(user.getId()));
+        }
+
+        // Ids novos ocupam blocos de colunas novos; a arena, não
+        assertTrue(repository.offHeapBytes() - reserved <= 2 * OffHeapUserRepository.CHUNK_SIZE * 45L,
+                "arena grew: " + (repository.offHeapBytes() - reserved));
+    }
+}
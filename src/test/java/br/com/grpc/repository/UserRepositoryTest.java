@@ -0,0 +1,410 @@
+package br.com.grpc.repository;
+
+import br.com.grpc.exception.DuplicateEmailException;
+import br.com.grpc.exception.UserNotFoundException;
+import br.com.grpc.exception.VersionConflictException;
+import br.com.grpc.model.User;
+import br.com.grpc.model.UserBatchResult;
+import br.com.grpc.model.UserChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Contrato comum às implementações de UserRepository
+abstract class UserRepositoryTest {
+
+    protected UserRepository userRepository;
+
+    protected abstract UserRepository createRepository(UserChangeLog changeLog);
+
+    @BeforeEach
+    void setUp() {
+        userRepository = createRepository(new UserChangeLog(UserChangeLog.DEFAULT_CAPACITY));
+    }
+
+    protected User newUser(String name, User.UserStatus status) {
+        return User.builder()
+                .name(name)
+                .email(name.toLowerCase() + "@email.com")
+                .age(30)
+                .status(status)
+                .build();
+    }
+
+    private User copyWithStatus(User user, User.UserStatus status) {
+        return User.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .age(user.getAge())
+                .status(status)
+                .createdAt(user.getCreatedAt())
+                .build();
+    }
+
+    @Test
+    void findByStatus_ReturnsOnlyMatchingUsers() {
+        userRepository.save(newUser("Ana", User.UserStatus.ACTIVE));
+        userRepository.save(newUser("Bruno", User.UserStatus.SUSPENDED));
+        userRepository.save(newUser("Carla", User.UserStatus.ACTIVE));
+
+        assertEquals(2, userRepository.findByStatus(User.UserStatus.ACTIVE).size());
+        assertEquals(1, userRepository.findByStatus(User.UserStatus.SUSPENDED).size());
+        assertTrue(userRepository.findByStatus(User.UserStatus.INACTIVE).isEmpty());
+    }
+
+    @Test
+    void save_StatusChange_MovesUserBetweenIndexEntries() {
+        User user = userRepository.save(newUser("Ana", User.UserStatus.ACTIVE));
+
+        userRepository.save(copyWithStatus(user, User.UserStatus.SUSPENDED));
+
+        assertTrue(userRepository.findByStatus(User.UserStatus.ACTIVE).isEmpty());
+        assertEquals(List.of(user.getId()), ids(userRepository.findByStatus(User.UserStatus.SUSPENDED)));
+    }
+
+    @Test
+    void save_SameInstanceMutated_MovesUserBetweenIndexEntries() {
+        User user = userRepository.save(newUser("Ana", User.UserStatus.ACTIVE));
+
+        user.setStatus(User.UserStatus.INACTIVE);
+        userRepository.save(user);
+
+        assertTrue(userRepository.findByStatus(User.UserStatus.ACTIVE).isEmpty());
+        assertEquals(1, userRepository.findByStatus(User.UserStatus.INACTIVE).size());
+    }
+
+    @Test
+    void deleteById_RemovesUserFromIndex() {
+        User user = userRepository.save(newUser("Ana", User.UserStatus.SUSPENDED));
+
+        assertTrue(userRepository.deleteById(user.getId()));
+        assertFalse(userRepository.deleteById(user.getId()));
+
+        assertTrue(userRepository.findByStatus(User.UserStatus.SUSPENDED).isEmpty());
+    }
+
+    @Test
+    void concurrentStatusUpdates_IndexMatchesStoredUsers() throws Exception {
+        int userCount = 200;
+        List<User> created = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            created.add(userRepository.save(newUser("User" + i, User.UserStatus.ACTIVE)));
+        }
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        User.UserStatus[] statuses = User.UserStatus.values();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 5_000; i++) {
+                    User target = created.get(random.nextInt(userCount));
+                    if (random.nextInt(20) == 0) {
+                        userRepository.deleteById(target.getId());
+                    } else {
+                        userRepository.save(copyWithStatus(target, statuses[random.nextInt(statuses.length)]));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<User> all = userRepository.findAll();
+        int indexed = 0;
+        for (User.UserStatus status : statuses) {
+            Set<Long> expected = all.stream()
+                    .filter(user -> user.getStatus() == status)
+                    .map(User::getId)
+                    .collect(Collectors.toSet());
+            List<Long> actual = ids(userRepository.findByStatus(status));
+            assertEquals(expected.size(), actual.size(), "duplicated or stale ids for " + status);
+            assertEquals(expected, Set.copyOf(actual), "index out of sync for " + status);
+            indexed += actual.size();
+        }
+        assertEquals(all.size(), indexed);
+    }
+
+    @Test
+    void findAllAfter_WalksIdsInOrderAcrossPages() {
+        for (int i = 0; i < 7; i++) {
+            userRepository.save(newUser("User" + i, User.UserStatus.ACTIVE));
+        }
+
+        List<User> first = userRepository.findAllAfter(null, 3);
+        List<User> second = userRepository.findAllAfter(first.get(2).getId(), 3);
+        List<User> third = userRepository.findAllAfter(second.get(2).getId(), 3);
+
+        assertEquals(List.of(1L, 2L, 3L), ids(first));
+        assertEquals(List.of(4L, 5L, 6L), ids(second));
+        assertEquals(List.of(7L), ids(third));
+        assertFalse(userRepository.existsAfter(7L));
+    }
+
+    @Test
+    void findAllAfter_StableWhenUsersAreInsertedAndDeletedBetweenPages() {
+        for (int i = 0; i < 4; i++) {
+            userRepository.save(newUser("User" + i, User.UserStatus.ACTIVE));
+        }
+        List<User> first = userRepository.findAllAfter(null, 2);
+
+        userRepository.deleteById(1L);
+        userRepository.save(newUser("Late", User.UserStatus.ACTIVE));
+
+        assertEquals(List.of(3L, 4L), ids(userRepository.findAllAfter(first.get(1).getId(), 2)));
+    }
+
+    @Test
+    void findAllPaginated_UsesIdOrder() {
+        for (int i = 0; i < 5; i++) {
+            userRepository.save(newUser("User" + i, User.UserStatus.ACTIVE));
+        }
+
+        assertEquals(List.of(3L, 4L), ids(userRepository.findAllPaginated(1, 2)));
+        assertEquals(List.of(5L), ids(userRepository.findAllPaginated(2, 2)));
+    }
+
+    @Test
+    void saveAll_AssignsContiguousIdsAndIndexesUsers() {
+        userRepository.save(newUser("First", User.UserStatus.ACTIVE));
+
+        List<UserBatchResult> saved = userRepository.saveAll(List.of(
+                newUser("Ana", User.UserStatus.ACTIVE),
+                newUser("Bruno", User.UserStatus.SUSPENDED)));
+
+        assertEquals(List.of(2L, 3L), ids(saved.stream().map(UserBatchResult::getUser).toList()));
+        assertEquals(2, userRepository.findAllById(List.of(2L, 3L, 99L)).size());
+        assertEquals(List.of(3L), ids(userRepository.findByStatus(User.UserStatus.SUSPENDED)));
+        assertEquals(4L, userRepository.save(newUser("Next", User.UserStatus.ACTIVE)).getId());
+    }
+
+    @Test
+    void save_DuplicateEmailIgnoringCase_IsRejectedAndLeavesStoreUnchanged() {
+        User ana = userRepository.save(newUser("Ana", User.UserStatus.ACTIVE));
+        User other = newUser("Other", User.UserStatus.SUSPENDED);
+        other.setEmail("ANA@email.com");
+
+        assertThrows(DuplicateEmailException.class, () -> userRepository.save(other));
+
+        assertEquals(1, userRepository.count());
+        assertEquals(ana.getId(), userRepository.findByEmail("Ana@Email.com").orElseThrow().getId());
+        assertTrue(userRepository.findByStatus(User.UserStatus.SUSPENDED).isEmpty());
+    }
+
+    @Test
+    void save_EmailChange_MovesIndexEntryAndFreesPreviousEmail() {
+        User ana = userRepository.save(newUser("Ana", User.UserStatus.ACTIVE));
+
+        ana.setEmail("ana.nova@email.com");
+        userRepository.save(ana);
+
+        assertTrue(userRepository.findByEmail("ana@email.com").isEmpty());
+        assertEquals(ana.getId(), userRepository.findByEmail("ana.nova@email.com").orElseThrow().getId());
+        assertNotNull(userRepository.save(newUser("Ana", User.UserStatus.ACTIVE)).getId());
+    }
+
+    @Test
+    void deleteById_FreesEmail() {
+        User ana = userRepository.save(newUser("Ana", User.UserStatus.ACTIVE));
+
+        userRepository.deleteById(ana.getId());
+
+        assertTrue(userRepository.findByEmail("ana@email.com").isEmpty());
+        User again = userRepository.save(newUser("Ana", User.UserStatus.ACTIVE));
+        assertEquals(again.getId(), userRepository.findByEmail("ana@email.com").orElseThrow().getId());
+    }
+
+    @Test
+    void saveAll_DuplicateEmail_FailsOnlyThatItem() {
+        userRepository.save(newUser("Ana", User.UserStatus.ACTIVE));
+
+        List<UserBatchResult> results = userRepository.saveAll(List.of(
+                newUser("Bruno", User.UserStatus.ACTIVE),
+                newUser("Ana", User.UserStatus.ACTIVE),
+                newUser("Bruno", User.UserStatus.ACTIVE)));
+
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(UserBatchResult.Failure.ALREADY_EXISTS, results.get(1).getFailure());
+        assertEquals(UserBatchResult.Failure.ALREADY_EXISTS, results.get(2).getFailure());
+        assertEquals(2, userRepository.count());
+    }
+
+    @Test
+    void concurrentCreatesWithSameEmail_ExactlyOneWins() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 50; round++) {
+                String name = "Race" + round;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        try {
+                            userRepository.save(newUser(name, User.UserStatus.ACTIVE));
+                            return true;
+                        } catch (DuplicateEmailException e) {
+                            return false;
+                        }
+                    }));
+                }
+                start.countDown();
+                int winners = 0;
+                for (Future<Boolean> future : futures) {
+                    winners += future.get(10, TimeUnit.SECONDS) ? 1 : 0;
+                }
+                assertEquals(1, winners, "winners for " + name);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(50, userRepository.count());
+    }
+
+    @Test
+    void changeLog_RecordsMutationsInOrderAndDropsOldestWhenFull() {
+        userRepository = createRepository(new UserChangeLog(4));
+        User ana = userRepository.save(newUser("Ana", User.UserStatus.ACTIVE));
+        userRepository.deleteById(ana.getId());
+
+        UserChangeLog changeLog = userRepository.getChangeLog();
+        assertEquals(UserChange.Type.UPSERTED, changeLog.get(1).getType());
+        assertEquals(UserChange.Type.DELETED, changeLog.get(2).getType());
+        assertNull(changeLog.get(3));
+
+        for (int i = 0; i < 4; i++) {
+            userRepository.save(newUser("User" + i, User.UserStatus.ACTIVE));
+        }
+
+        assertEquals(6, changeLog.latestSequence());
+        assertEquals(3, changeLog.oldestSequence());
+        assertNull(changeLog.get(2));
+        assertEquals(3, changeLog.get(3).getSequence());
+    }
+
+    @Test
+    void update_MatchingVersion_IncrementsVersionAndKeepsCreatedAt() {
+        User ana = userRepository.save(newUser("Ana", User.UserStatus.ACTIVE));
+        assertEquals(1L, ana.getVersion());
+
+        User changed = copyWithStatus(ana, User.UserStatus.INACTIVE);
+        changed.setCreatedAt(null);
+        User updated = userRepository.update(changed, 1L);
+
+        assertEquals(2L, updated.getVersion());
+        User stored = userRepository.findById(ana.getId()).orElseThrow();
+        assertEquals(2L, stored.getVersion());
+        assertEquals(ana.getCreatedAt(), stored.getCreatedAt());
+        assertEquals(User.UserStatus.INACTIVE, stored.getStatus());
+        assertEquals(2L, userRepository.getChangeLog().get(2).getUser().getVersion());
+    }
+
+    @Test
+    void update_StaleVersion_IsRejectedAndLeavesUserUnchanged() {
+        User ana = userRepository.save(newUser("Ana", User.UserStatus.ACTIVE));
+        userRepository.update(copyWithStatus(ana, User.UserStatus.INACTIVE), null);
+
+        VersionConflictException e = assertThrows(VersionConflictException.class,
+                () -> userRepository.update(copyWithStatus(ana, User.UserStatus.SUSPENDED), 1L));
+
+        assertEquals(2L, e.getCurrentVersion());
+        User stored = userRepository.findById(ana.getId()).orElseThrow();
+        assertEquals(User.UserStatus.INACTIVE, stored.getStatus());
+        assertEquals(2L, stored.getVersion());
+        assertTrue(userRepository.findByStatus(User.UserStatus.SUSPENDED).isEmpty());
+    }
+
+    @Test
+    void update_DeletedUser_IsNotResurrected() {
+        User ana = userRepository.save(newUser("Ana", User.UserStatus.ACTIVE));
+        userRepository.deleteById(ana.getId());
+
+        assertThrows(UserNotFoundException.class, () -> userRepository.update(ana, null));
+        assertFalse(userRepository.existsById(ana.getId()));
+        assertEquals(0, userRepository.count());
+    }
+
+    @Test
+    void deleteById_StaleVersion_IsRejectedAndKeepsUser() {
+        User ana = userRepository.save(newUser("Ana", User.UserStatus.ACTIVE));
+        userRepository.save(ana);
+
+        assertThrows(VersionConflictException.class, () -> userRepository.deleteById(ana.getId(), 1L));
+        assertTrue(userRepository.existsById(ana.getId()));
+        assertTrue(userRepository.deleteById(ana.getId(), 2L));
+        assertFalse(userRepository.deleteById(ana.getId(), 2L));
+    }
+
+    @Test
+    void concurrentCompareAndSetUpdates_NoLostUpdates() throws Exception {
+        User counter = newUser("Counter", User.UserStatus.ACTIVE);
+        counter.setAge(0);
+        long id = userRepository.save(counter).getId();
+        int threads = 4;
+        int incrementsPerThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < incrementsPerThread; i++) {
+                        // Relê e tenta de novo até a gravação condicional passar
+                        while (true) {
+                            User current = userRepository.findById(id).orElseThrow();
+                            current.setAge(current.getAge() + 1);
+                            try {
+                                userRepository.update(current, current.getVersion());
+                                break;
+                            } catch (VersionConflictException e) {
+                                // outra thread gravou antes
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        User stored = userRepository.findById(id).orElseThrow();
+        assertEquals(threads * incrementsPerThread, stored.getAge());
+        assertEquals(1L + threads * incrementsPerThread, stored.getVersion());
+    }
+
+    @Test
+    void changeLog_HoldsCopyUnaffectedByLaterCallerMutation() {
+        User ana = userRepository.save(newUser("Ana", User.UserStatus.ACTIVE));
+
+        ana.setName("Mutated after save");
+
+        assertEquals("Ana", userRepository.getChangeLog().get(1).getUser().getName());
+    }
+
+    protected List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toList());
+    }
+}
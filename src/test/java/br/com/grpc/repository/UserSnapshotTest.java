@@ -0,0 +1,94 @@
+package br.com.grpc.repository;
+
+import br.com.grpc.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private static List<User> users(int count) {
+        List<User> users = new ArrayList<>();
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 31, 10, 15, 30, 123_456_789);
+        for (int i = 1; i <= count; i++) {
+            users.add(User.builder()
+                    .id(i * 3L)
+                    .name("Usuário " + i)
+                    .email("usuario" + i + "@email.com")
+                    .age(i % 7 == 0 ? null : 18 + i % 60)
+                    .status(i % 11 == 0 ? null : User.UserStatus.values()[i % 3])
+                    .createdAt(createdAt.plusSeconds(i))
+                    .updatedAt(i % 5 == 0 ? null : createdAt.plusDays(i))
+                    .version(1L + i % 300)
+                    .build());
+        }
+        return users;
+    }
+
+    @Test
+    void load_RoundTripsAllFieldsAcrossChunks() throws IOException {
+        List<User> users = users(UserSnapshot.USERS_PER_CHUNK * 2 + 100);
+        Path file = directory.resolve("users.snapshot");
+        assertEquals(users.size(), UserSnapshot.write(file, users.iterator()));
+
+        for (UserRepository repository : List.of(new InMemoryUserRepository(), new OffHeapUserRepository())) {
+            assertEquals(users.size(), UserSnapshot.load(file, repository));
+
+            assertEquals(users.size(), repository.count());
+            assertEquals(users, repository.findAllAfter(null, users.size() + 1));
+            // A carga não é uma mutação nova: nada vai para o change log
+            assertEquals(0, repository.getChangeLog().latestSequence());
+            assertEquals(users.size() * 3L + 1, repository.save(User.builder().name("Next").build()).getId());
+        }
+    }
+
+    @Test
+    void write_ScanOfRepository_ProducesLoadableCopy() throws IOException {
+        InMemoryUserRepository source = new InMemoryUserRepository();
+        source.restore(users(25_000));
+        Path file = directory.resolve("users.snapshot");
+
+        UserSnapshot.write(file, UserSnapshot.scan(source));
+        InMemoryUserRepository copy = new InMemoryUserRepository();
+        UserSnapshot.load(file, copy);
+
+        assertEquals(source.findAll().stream().sorted((a, b) -> Long.compare(a.getId(), b.getId())).toList(),
+                copy.findAllAfter(null, 30_000));
+    }
+
+    @Test
+    void load_CorruptedChunk_Fails() throws IOException {
+        Path file = directory.resolve("users.snapshot");
+        UserSnapshot.write(file, users(100).iterator());
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(raw.length() - 5);
+            raw.write(0x7F);
+        }
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> UserSnapshot.load(file, new InMemoryUserRepository()));
+        assertTrue(error.getMessage().startsWith("Corrupted snapshot"));
+    }
+
+    @Test
+    void load_TruncatedFile_Fails() throws IOException {
+        Path file = directory.resolve("users.snapshot");
+        UserSnapshot.write(file, users(100).iterator());
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.setLength(raw.length() - 1);
+        }
+
+        assertThrows(IllegalStateException.class, () -> UserSnapshot.load(file, new InMemoryUserRepository()));
+    }
+}
@@ -0,0 +1,198 @@
+package br.com.grpc.repository;
+
+import br.com.grpc.config.WalProperties;
+import br.com.grpc.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserWriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    private UserWriteAheadLog wal;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    private UserRepository open(WalProperties.SyncMode syncMode) throws IOException {
+        WalProperties properties = new WalProperties();
+        properties.setDirectory(directory.toString());
+        properties.setSyncMode(syncMode);
+        properties.setSnapshotInterval(Duration.ZERO);
+        properties.setFlushInterval(Duration.ofMillis(10));
+        UserRepository repository = new InMemoryUserRepository(new UserChangeLog(1024));
+        wal = new UserWriteAheadLog(properties, repository);
+        wal.start();
+        return repository;
+    }
+
+    private UserRepository restart() throws IOException {
+        wal.close();
+        return open(WalProperties.SyncMode.GROUP);
+    }
+
+    private static User newUser(String name) {
+        return User.builder()
+                .name(name)
+                .email(name.toLowerCase() + "@email.com")
+                .age(30)
+                .status(User.UserStatus.ACTIVE)
+                .build();
+    }
+
+    @Test
+    void restart_ReplaysSavesUpdatesAndDeletes() throws IOException {
+        UserRepository repository = open(WalProperties.SyncMode.GROUP);
+        User ana = repository.save(newUser("Ana"));
+        User bruno = repository.save(newUser("Bruno"));
+        repository.saveAll(List.of(newUser("Carla"), newUser("Davi")));
+        bruno.setStatus(User.UserStatus.SUSPENDED);
+        bruno.setAge(null);
+        repository.save(bruno);
+        repository.deleteById(ana.getId());
+
+        UserRepository recovered = restart();
+
+        assertEquals(3, recovered.count());
+        assertFalse(recovered.existsById(ana.getId()));
+        assertEquals(bruno, recovered.findById(bruno.getId()).orElseThrow());
+        assertEquals(List.of(bruno.getId()), recovered.findByStatus(User.UserStatus.SUSPENDED).stream()
+                .map(User::getId).toList());
+        // O gerador continua depois do maior id recuperado
+        assertEquals(5L, recovered.save(newUser("Eva")).getId());
+    }
+
+    @Test
+    void restart_ReplayedDeletesAreNotRepublished() throws IOException {
+        UserRepository repository = open(WalProperties.SyncMode.GROUP);
+        User ana = repository.save(newUser("Ana"));
+        repository.save(newUser("Bruno"));
+        repository.deleteById(ana.getId());
+
+        UserRepository recovered = restart();
+
+        assertEquals(1, recovered.count());
+        assertEquals(0, recovered.getChangeLog().latestSequence());
+    }
+
+    @ParameterizedTest
+    @EnumSource(WalProperties.SyncMode.class)
+    void ioFailure_RejectsEveryLaterWrite(WalProperties.SyncMode syncMode) throws Exception {
+        UserRepository repository = open(syncMode);
+        User ana = repository.save(newUser("Ana"));
+        wal.channel().close();
+
+        // Em PERIODIC a escrita não espera o disco: a falha só aparece depois do flush seguinte
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        int attempt = 0;
+        while (true) {
+            try {
+                repository.save(newUser("Retry" + attempt++));
+            } catch (UncheckedIOException e) {
+                break;
+            }
+            assertEquals(WalProperties.SyncMode.PERIODIC, syncMode);
+            assertTrue(System.nanoTime() < deadline, "failure was never reported");
+            Thread.sleep(10);
+        }
+
+        // A escrita que descobriu a falha já estava aplicada; as seguintes nem chegam a mutar
+        long count = repository.count();
+        long sequence = repository.getChangeLog().latestSequence();
+        assertThrows(UncheckedIOException.class, () -> repository.save(newUser("Bruno")));
+        assertThrows(UncheckedIOException.class, () -> repository.deleteById(ana.getId()));
+
+        assertTrue(repository.findByEmail("bruno@email.com").isEmpty());
+        assertEquals(count, repository.count());
+        assertTrue(repository.existsById(ana.getId()));
+        assertEquals(sequence, repository.getChangeLog().latestSequence());
+        wal = null;
+    }
+
+    @Test
+    void snapshot_CompactsOldLogsAndKeepsLaterWrites() throws IOException {
+        UserRepository repository = open(WalProperties.SyncMode.ALWAYS);
+        for (int i = 0; i < 100; i++) {
+            repository.save(newUser("User" + i));
+        }
+        repository.deleteById(1L);
+        wal.snapshot();
+        repository.save(newUser("AfterSnapshot"));
+        repository.deleteById(2L);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of("snapshot-00000002.dat", "wal-00000002.log"),
+                    files.map(file -> file.getFileName().toString()).sorted().toList());
+        }
+
+        UserRepository recovered = restart();
+
+        assertEquals(99, recovered.count());
+        assertFalse(recovered.existsById(2L));
+        assertEquals("AfterSnapshot", recovered.findById(101L).orElseThrow().getName());
+    }
+
+    @Test
+    void restart_TornLastRecord_IsDiscardedAndLogKeepsGrowing() throws IOException {
+        UserRepository repository = open(WalProperties.SyncMode.GROUP);
+        repository.save(newUser("Ana"));
+        repository.save(newUser("Bruno"));
+        wal.close();
+        wal = null;
+        Path logFile = directory.resolve("wal-00000001.log");
+        Files.write(logFile, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        repository = open(WalProperties.SyncMode.GROUP);
+        assertEquals(2, repository.count());
+        repository.save(newUser("Carla"));
+
+        assertEquals(3, restart().count());
+    }
+
+    @Test
+    void groupCommit_ConcurrentWritersAreAllDurable() throws Exception {
+        UserRepository repository = open(WalProperties.SyncMode.GROUP);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        repository.save(newUser("T" + thread + "U" + i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(2000, restart().count());
+    }
+}
@@ -2,7 +2,10 @@ package br.com.grpc.service;
 
 import br.com.grpc.exception.InvalidUserDataException;
 import br.com.grpc.exception.UserNotFoundException;
+import br.com.grpc.exception.VersionConflictException;
 import br.com.grpc.model.User;
+import br.com.grpc.model.UserBatchResult;
+import br.com.grpc.model.UserPage;
 import br.com.grpc.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,10 +14,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -77,20 +83,116 @@ class UserServiceTest {
 
     @Test
     void deleteUser_ExistingUser_Success() {
-        when(userRepository.existsById(1L)).thenReturn(true);
-        when(userRepository.deleteById(1L)).thenReturn(true);
+        when(userRepository.deleteById(1L, null)).thenReturn(true);
 
         boolean result = userService.deleteUser(1L);
 
         assertTrue(result);
-        verify(userRepository).deleteById(1L);
+        verify(userRepository).deleteById(1L, null);
     }
 
     @Test
     void deleteUser_NonExistingUser_ThrowsException() {
-        when(userRepository.existsById(1L)).thenReturn(false);
+        when(userRepository.deleteById(1L, null)).thenReturn(false);
 
         assertThrows(UserNotFoundException.class, () -> userService.deleteUser(1L));
-        verify(userRepository, never()).deleteById(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateUser_ExpectedVersion_PassedToAtomicUpdate() {
+        when(userRepository.update(validUser, 3L)).thenReturn(validUser);
+
+        assertSame(validUser, userService.updateUser(validUser, 3L));
+        verify(userRepository, never()).existsById(any());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void updateUser_StaleVersion_PropagatesConflict() {
+        when(userRepository.update(validUser, 3L)).thenThrow(new VersionConflictException(1L, 3L, 4L));
+
+        VersionConflictException e = assertThrows(VersionConflictException.class,
+                () -> userService.updateUser(validUser, 3L));
+        assertEquals(4L, e.getCurrentVersion());
+    }
+
+    @Test
+    void getUsersAfter_ValidToken_ReturnsNextPageToken() {
+        validUser.setId(2L);
+        when(userRepository.findAllAfter(1L, 1)).thenReturn(List.of(validUser));
+        when(userRepository.existsAfter(2L)).thenReturn(true);
+
+        UserPage page = userService.getUsersAfter(PageToken.encode(1L), 1);
+
+        assertEquals(1, page.getUsers().size());
+        assertEquals(2L, PageToken.decode(page.getNextPageToken()));
+    }
+
+    @Test
+    void getUsersAfter_InvalidToken_ThrowsException() {
+        assertThrows(InvalidUserDataException.class, () -> userService.getUsersAfter("not-a-token", 10));
+        verify(userRepository, never()).findAllAfter(any(), anyInt());
+    }
+
+    @Test
+    void createUsers_OneInvalidItem_OthersAreSaved() {
+        User invalid = User.builder()
+                .name("Invalid")
+                .email("invalid-email")
+                .age(20)
+                .status(User.UserStatus.ACTIVE)
+                .build();
+
+        when(userRepository.saveAll(List.of(validUser))).thenReturn(List.of(UserBatchResult.success(validUser)));
+
+        List<UserBatchResult> results = userService.createUsers(List.of(validUser, invalid));
+
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(UserBatchResult.Failure.INVALID_DATA, results.get(1).getFailure());
+        verify(userRepository).saveAll(List.of(validUser));
+    }
+
+    @Test
+    void createUsers_DuplicateEmail_ReportedInInputOrder() {
+        User invalid = User.builder().name("Invalid").email("invalid-email").age(20).build();
+        User duplicate = User.builder().name("Dup").email("test@email.com").age(20).build();
+        when(userRepository.saveAll(List.of(validUser, duplicate))).thenReturn(List.of(
+                UserBatchResult.success(validUser),
+                UserBatchResult.failure(UserBatchResult.Failure.ALREADY_EXISTS, "Email already in use: test@email.com")));
+
+        List<UserBatchResult> results = userService.createUsers(List.of(validUser, invalid, duplicate));
+
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(UserBatchResult.Failure.INVALID_DATA, results.get(1).getFailure());
+        assertEquals(UserBatchResult.Failure.ALREADY_EXISTS, results.get(2).getFailure());
+    }
+
+    @Test
+    void getUserByEmail_Found_ReturnsUser() {
+        when(userRepository.findByEmail("test@email.com")).thenReturn(Optional.of(validUser));
+
+        assertSame(validUser, userService.getUserByEmail("test@email.com"));
+    }
+
+    @Test
+    void getUserByEmail_Missing_ThrowsNotFound() {
+        when(userRepository.findByEmail("nobody@email.com")).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class, () -> userService.getUserByEmail("nobody@email.com"));
+    }
+
+    @Test
+    void getUsersByIds_MissingId_ReportedPerItem() {
+        when(userRepository.findAllById(List.of(1L, 2L))).thenReturn(Map.of(1L, validUser));
+
+        List<UserBatchResult> results = userService.getUsersByIds(List.of(1L, 2L));
+
+        assertSame(validUser, results.get(0).getUser());
+        assertEquals(UserBatchResult.Failure.NOT_FOUND, results.get(1).getFailure());
+    }
+
+    @Test
+    void getUsersByIds_EmptyBatch_ThrowsException() {
+        assertThrows(InvalidUserDataException.class, () -> userService.getUsersByIds(List.of()));
+    }
+}
@@ -0,0 +1,56 @@
+package br.com.grpc.service;
+
+import br.com.grpc.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserValidatorTest {
+
+    // Expressão usada antes do scanner; o scanner deve aceitar exatamente o mesmo conjunto
+    private static final Pattern LEGACY_EMAIL = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+
+    private final UserValidator validator = new UserValidator();
+
+    private static User user(String name, String email, Integer age) {
+        return User.builder().name(name).email(email).age(age).status(User.UserStatus.ACTIVE).build();
+    }
+
+    @Test
+    void validate_ValidUser_ReturnsSharedEmptyList() {
+        List<String> violations = validator.validate(user("Test User", "test@email.com", 25));
+
+        assertTrue(violations.isEmpty());
+        assertSame(List.of(), violations);
+    }
+
+    @Test
+    void validate_SeveralInvalidFields_ReportsAllInRuleOrder() {
+        assertEquals(List.of(UserValidator.NAME_REQUIRED, UserValidator.EMAIL_INVALID, UserValidator.AGE_OUT_OF_RANGE),
+                validator.validate(user(" ", "test@email", 151)));
+        assertEquals(List.of(UserValidator.EMAIL_REQUIRED, UserValidator.AGE_OUT_OF_RANGE),
+                validator.validate(user("Test User", null, null)));
+    }
+
+    @Test
+    void isValidEmail_MatchesLegacyRegex() {
+        for (String email : List.of("a@b.co", "first.last+tag@sub.domain.com", "x_y-z@a-b.c.de", "a@.b.co",
+                "@b.co", "a@b.c", "a@b.co1", "a@b..co", "a@@b.co", "a@b.co.", "a@.co", "a@b.c-o",
+                "a b@c.de", "a@b.CO", "á@b.co", "a@b.çom", "a@b.co\n")) {
+            assertEquals(LEGACY_EMAIL.matcher(email).matches(), UserValidator.isValidEmail(email), email);
+        }
+        String alphabet = "ab1.-+_@ ";
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder email = new StringBuilder();
+            for (int n = random.nextInt(10); n > 0; n--) {
+                email.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertEquals(LEGACY_EMAIL.matcher(email).matches(), UserValidator.isValidEmail(email), email.toString());
+        }
+    }
+}